@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+#
+# Repeatable startup benchmark: time from JVM launch until the application context is refreshed
+# (spring.context.exit=onRefresh), for the plain jar, the extracted jar, extracted + CDS and extracted + CDS + AOT.
+#
+# Build first:   mvn -Pfast-startup package -DskipTests
+# Then run:      scripts/startup-benchmark.sh [runs]
+#
+set -euo pipefail
+
+RUNS="${1:-10}"
+PROFILE="${STARTUP_BENCHMARK_PROFILE:-dev}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+TARGET="$(cd "$(dirname "$0")/../target" && pwd)"
+JAR="$(ls "$TARGET"/export-service-*.jar | grep -v original | head -n 1)"
+EXTRACTED="$TARGET/application/$(basename "$JAR")"
+ARCHIVE="$TARGET/application/export-service.jsa"
+
+for required in "$JAR" "$EXTRACTED" "$ARCHIVE"; do
+    if [[ ! -f "$required" ]]; then
+        echo "missing $required, run: mvn -Pfast-startup package -DskipTests" >&2
+        exit 1
+    fi
+done
+
+APP_ARGS=(--spring.profiles.active="$PROFILE" --server.port=0 --logging.level.root=WARN)
+
+measure() {
+    local name="$1"
+    shift
+    local times=()
+    # one warm-up run to populate the page cache
+    "$JAVA" -Dspring.context.exit=onRefresh "$@" "${APP_ARGS[@]}" > /dev/null 2>&1
+    for ((i = 0; i < RUNS; i++)); do
+        local start end
+        start=$(date +%s%N)
+        "$JAVA" -Dspring.context.exit=onRefresh "$@" "${APP_ARGS[@]}" > /dev/null 2>&1
+        end=$(date +%s%N)
+        times+=($(((end - start) / 1000000)))
+    done
+    local sorted
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    local sum=0
+    for t in "${sorted[@]}"; do sum=$((sum + t)); done
+    printf '%-22s %8d %8d %8d %8d\n' "$name" "${sorted[$((RUNS / 2))]}" $((sum / RUNS)) "${sorted[0]}" "${sorted[$((RUNS - 1))]}"
+}
+
+echo "runs=$RUNS profile=$PROFILE java=$("$JAVA" -version 2>&1 | head -n 1)"
+printf '%-22s %8s %8s %8s %8s\n' "mode" "p50 ms" "mean ms" "min ms" "max ms"
+measure "jar" -jar "$JAR"
+measure "extracted" -jar "$EXTRACTED"
+measure "extracted+cds" -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off -Xlog:cds+dynamic=off -jar "$EXTRACTED"
+measure "extracted+cds+aot" -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off -Xlog:cds+dynamic=off -Dspring.aot.enabled=true -jar "$EXTRACTED"
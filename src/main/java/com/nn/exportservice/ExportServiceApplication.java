@@ -1,7 +1,19 @@
 package com.nn.exportservice;
 
+import com.nn.exportservice.cli.ExportCli;
+import com.nn.exportservice.config.BacklogProperties;
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.CopyProperties;
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.config.DurabilityProperties;
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.config.FileStoreProperties;
 import com.nn.exportservice.config.FileSystemProperties;
-import com.nn.exportservice.config.SchedulingProperties;
+import com.nn.exportservice.config.FileTypeProperties;
+import com.nn.exportservice.config.LaneProperties;
+import com.nn.exportservice.config.PipelineProperties;
+import com.nn.exportservice.config.RoutingProperties;
+import com.nn.exportservice.config.TracingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -9,10 +21,16 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
-@EnableConfigurationProperties({FileSystemProperties.class, SchedulingProperties.class})
+@EnableConfigurationProperties({FileSystemProperties.class, FileTypeProperties.class, RoutingProperties.class,
+		LaneProperties.class, CopyProperties.class, DeduplicationProperties.class, ExportLoggingProperties.class,
+		BacklogProperties.class, TracingProperties.class, FileStoreProperties.class, DurabilityProperties.class,
+		ConcurrencyProperties.class, PipelineProperties.class})
 public class ExportServiceApplication {
 
 	public static void main(String[] args) {
+		if (ExportCli.isRequested(args)) {
+			System.exit(ExportCli.run(args));
+		}
 		SpringApplication.run(ExportServiceApplication.class, args);
 	}
 
@@ -0,0 +1,177 @@
+package com.nn.exportservice.cli;
+
+import com.nn.exportservice.dto.FileExportResponse;
+import com.nn.exportservice.logging.LoggingContext;
+import com.nn.exportservice.mapper.FileExportMapper;
+import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.service.FileSystemService;
+import com.nn.exportservice.service.FileTypeRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * One-shot batch mode, e.g. {@code --export=redemption,outpay}: runs the exports in a minimal
+ * non-web context, prints the responses as JSON to stdout and exits.
+ * Exit codes: 0 all files exported, 1 some files failed, 2 an export failed as a whole or the context could
+ * not start, 64 invalid arguments. JSON is printed for every outcome but invalid arguments.
+ */
+@Slf4j
+public class ExportCli {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FILE_ERRORS = 1;
+    public static final int EXIT_FAILURE = 2;
+    public static final int EXIT_USAGE = 64;
+
+    private static final String EXPORT_OPTION = "--export=";
+    private static final String LOG_TO_STDERR = "--logging.console.target=System.err";
+
+    private final FileSystemService fileSystemService;
+    private final FileExportMapper fileExportMapper;
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    public ExportCli(FileSystemService fileSystemService, FileExportMapper fileExportMapper) {
+        this.fileSystemService = fileSystemService;
+        this.fileExportMapper = fileExportMapper;
+    }
+
+    public static boolean isRequested(String[] args) {
+        return Arrays.stream(args).anyMatch(arg -> arg.startsWith(EXPORT_OPTION));
+    }
+
+    /**
+     * Starts the minimal context, runs the requested exports and returns the process exit code
+     */
+    public static int run(String[] args) {
+        ConfigurableApplicationContext context;
+        try {
+            context = start(args);
+        } catch (RuntimeException e) {
+            log.error("Batch export could not start error={}", messageOf(e), e);
+            List<FileExportResponse> responses = new ArrayList<>();
+            for (String name : exportOption(args).split(",")) {
+                if (!name.isBlank()) {
+                    responses.add(failed(name.trim(), e));
+                }
+            }
+            System.out.println(JSON_MAPPER.writeValueAsString(responses));
+            return EXIT_FAILURE;
+        }
+        try (context) {
+            FileTypeRegistry fileTypeRegistry = context.getBean(FileTypeRegistry.class);
+            List<FileType> fileTypes;
+            try {
+                fileTypes = parseFileTypes(args, fileTypeRegistry);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println("usage: --export=<type>[,<type>...] with types "
+                        + fileTypeRegistry.getFileTypes().stream().map(FileType::id).toList());
+                return EXIT_USAGE;
+            }
+
+            ExportCli cli = new ExportCli(context.getBean(FileSystemService.class), context.getBean(FileExportMapper.class));
+            return cli.export(fileTypes, System.out);
+        } catch (RuntimeException e) {
+            // e.g. shutting the context down failed, the responses have been printed already
+            log.error("Batch export failed error={}", messageOf(e), e);
+            return EXIT_FAILURE;
+        }
+    }
+
+    static ConfigurableApplicationContext start(String[] args) {
+        String[] cliArgs = Arrays.copyOf(args, args.length + 1);
+        cliArgs[args.length] = LOG_TO_STDERR;
+        return new SpringApplicationBuilder(ExportCliConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(cliArgs);
+    }
+
+    static List<FileType> parseFileTypes(String[] args, FileTypeRegistry fileTypeRegistry) {
+        List<FileType> fileTypes = new ArrayList<>();
+        for (String name : exportOption(args).split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            FileType fileType = fileTypeRegistry.find(name)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown file type: " + name.trim()));
+            if (!fileTypes.contains(fileType)) {
+                fileTypes.add(fileType);
+            }
+        }
+        if (fileTypes.isEmpty()) {
+            throw new IllegalArgumentException("No file type given");
+        }
+        fileTypes.sort(Comparator.comparingInt(FileType::priority));
+        return fileTypes;
+    }
+
+    /**
+     * Exports the given types in priority order and prints the responses as a JSON array
+     *
+     * @return the process exit code
+     */
+    int export(List<FileType> fileTypes, PrintStream out) {
+        List<FileExportResponse> responses = new ArrayList<>();
+        int exitCode = EXIT_OK;
+
+        for (FileType fileType : fileTypes) {
+            LoggingContext.setOperation("EXPORT_" + fileType.name());
+            LoggingContext.setFileType(fileType.name());
+            try {
+                log.info("Batch export started");
+
+                FileOperationResult result = fileSystemService.isPipelined()
+                        ? fileSystemService.exportPipelined(fileType)
+                        : fileSystemService.moveFiles(fileType, fileSystemService.listFiles(fileType));
+                responses.add(fileExportMapper.toResponse(fileType, result));
+                if (result.hasErrors()) {
+                    exitCode = Math.max(exitCode, EXIT_FILE_ERRORS);
+                }
+
+                log.info("Batch export completed successful={} errors={}",
+                        result.getSuccessCount(), result.getErrorCount());
+            } catch (RuntimeException e) {
+                // not only FileSystemException: a closed lane or a failed move must not end the process unreported
+                log.error("Batch export failed error={}", messageOf(e), e);
+                responses.add(failed(fileType.name(), e));
+                exitCode = EXIT_FAILURE;
+            } finally {
+                LoggingContext.clear();
+            }
+        }
+
+        out.println(JSON_MAPPER.writeValueAsString(responses));
+        return exitCode;
+    }
+
+    private static String exportOption(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith(EXPORT_OPTION))
+                .map(arg -> arg.substring(EXPORT_OPTION.length()))
+                .findFirst()
+                .orElse("");
+    }
+
+    private static FileExportResponse failed(String fileType, RuntimeException e) {
+        return FileExportResponse.failure(fileType, messageOf(e));
+    }
+
+    private static String messageOf(RuntimeException e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
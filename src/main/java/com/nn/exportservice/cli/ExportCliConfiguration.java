@@ -0,0 +1,56 @@
+package com.nn.exportservice.cli;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.CopyProperties;
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.config.DurabilityProperties;
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.config.FileStoreProperties;
+import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.config.FileTypeConfiguration;
+import com.nn.exportservice.config.FileTypeProperties;
+import com.nn.exportservice.config.LaneProperties;
+import com.nn.exportservice.config.PipelineProperties;
+import com.nn.exportservice.config.RoutingProperties;
+import com.nn.exportservice.logging.ExportTracing;
+import com.nn.exportservice.mapper.FileExportMapper;
+import com.nn.exportservice.service.DeduplicationService;
+import com.nn.exportservice.service.ExportRouter;
+import com.nn.exportservice.service.ExportStageRegistry;
+import com.nn.exportservice.service.FileStoreRegistry;
+import com.nn.exportservice.service.FileSystemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Minimal context for one-shot exports: no auto-configuration, web server, actuator or scheduler,
+ * only the beans needed to list and move files.
+ * Deliberately not a @Configuration so that the web application's component scan does not pick it up.
+ */
+@EnableConfigurationProperties({FileSystemProperties.class, FileTypeProperties.class, RoutingProperties.class,
+        LaneProperties.class, CopyProperties.class, DeduplicationProperties.class, ExportLoggingProperties.class,
+        FileStoreProperties.class, DurabilityProperties.class,
+        ConcurrencyProperties.class, PipelineProperties.class})
+@Import({FileSystemService.class, FileTypeConfiguration.class, ExportRouter.class, DeduplicationService.class,
+        FileStoreRegistry.class, ExportStageRegistry.class, FileExportMapper.class})
+public class ExportCliConfiguration {
+
+    /**
+     * Lane metrics are kept in memory only, a one-shot run has nothing to publish them to
+     */
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /**
+     * No spans either, a one-shot run does not export traces
+     */
+    @Bean
+    ExportTracing exportTracing() {
+        return ExportTracing.disabled();
+    }
+}
@@ -0,0 +1,27 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of the backlog health indicator. Ages are relative to the target latency of each file type.
+ *
+ * @param refreshInterval pause between background scans of the tmp folder, health probes read the last one
+ * @param staleRefreshes refresh intervals after which the last scan is too old to report on, health is DOWN
+ */
+@ConfigurationProperties(prefix = "backlog")
+public record BacklogProperties(
+    @DefaultValue("30s") Duration refreshInterval,
+    @DefaultValue("3") int staleRefreshes,
+    @DefaultValue("10000") long degradedCount,
+    @DefaultValue("100000") long downCount,
+    @DefaultValue("1.0") double degradedAgeFactor,
+    @DefaultValue("2.0") double downAgeFactor
+) {
+
+    public static BacklogProperties defaults() {
+        return new BacklogProperties(Duration.ofSeconds(30), 3, 10_000, 100_000, 1.0, 2.0);
+    }
+}
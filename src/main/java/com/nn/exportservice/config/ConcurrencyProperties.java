@@ -0,0 +1,20 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "concurrency")
+public record ConcurrencyProperties(
+    @DefaultValue("false") boolean adaptive,
+    @DefaultValue("1") int minLimit,
+    @DefaultValue("64") int maxLimit,
+    @DefaultValue("2.0") double latencyTolerance,
+    @DefaultValue("0.75") double decreaseFactor,
+    @DefaultValue("0.1") double maxErrorRate,
+    @DefaultValue("20") int window
+) {
+
+    public static ConcurrencyProperties defaults() {
+        return new ConcurrencyProperties(false, 1, 64, 2.0, 0.75, 0.1, 20);
+    }
+}
@@ -0,0 +1,23 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "copy")
+public record CopyProperties(
+    @DefaultValue("64MB") DataSize resumableThreshold,
+    @DefaultValue("8MB") DataSize chunkSize,
+    @DefaultValue("3") int maxRetries,
+    @DefaultValue("1s") Duration retryBackoff,
+    @DefaultValue("128KB") DataSize bufferSize,
+    @DefaultValue("32") int bufferPoolSize
+) {
+
+    public static CopyProperties defaults() {
+        return new CopyProperties(DataSize.ofMegabytes(64), DataSize.ofMegabytes(8), 3, Duration.ofSeconds(1),
+                DataSize.ofKilobytes(128), 32);
+    }
+}
@@ -0,0 +1,25 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "deduplication")
+public record DeduplicationProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("SKIP") DuplicateAction action,
+    String duplicatesFolder,
+    String storeFile,
+    @DefaultValue("16777216") long capacity,
+    @DefaultValue("7d") Duration retention
+) {
+
+    /**
+     * What happens to a file whose content was already exported within the retention window
+     */
+    public enum DuplicateAction {
+        SKIP,
+        ROUTE
+    }
+}
@@ -0,0 +1,27 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "durability")
+public record DurabilityProperties(
+    @DefaultValue("NONE") Level level,
+    @DefaultValue("10ms") Duration groupCommitWindow,
+    @DefaultValue("1000") int groupCommitMaxFiles
+) {
+
+    public static DurabilityProperties defaults() {
+        return new DurabilityProperties(Level.NONE, Duration.ofMillis(10), 1000);
+    }
+
+    /**
+     * When an exported file and its directory entries are forced to disk before the export is reported
+     */
+    public enum Level {
+        NONE,
+        PER_FILE,
+        GROUP_COMMIT
+    }
+}
@@ -0,0 +1,26 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "export-logging")
+public record ExportLoggingProperties(
+    @DefaultValue("DETAILED") Mode mode,
+    @DefaultValue("1000") int successSampleRate,
+    @DefaultValue("100") int failureSampleRate,
+    @DefaultValue("10") int failureDetailLimit
+) {
+
+    public static ExportLoggingProperties defaults() {
+        return new ExportLoggingProperties(Mode.DETAILED, 1000, 100, 10);
+    }
+
+    /**
+     * DETAILED logs every file, SAMPLED logs per-batch aggregates plus 1 in N files
+     * and the full stack trace only for the first failures of a batch
+     */
+    public enum Mode {
+        DETAILED,
+        SAMPLED
+    }
+}
@@ -0,0 +1,35 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "filesystem")
+public record FileStoreProperties(
+    @DefaultValue Map<String, Store> stores
+) {
+
+    public static FileStoreProperties defaults() {
+        return new FileStoreProperties(Map.of());
+    }
+
+    /**
+     * File system that folder locations of the form {@code <store>:<path>} resolve in
+     */
+    public record Store(
+        Type type,
+        String path
+    ) {}
+
+    public enum Type {
+        /**
+         * Zip archive at {@code path}, written when the last batch exporting into it completes
+         */
+        ZIP,
+        /**
+         * In-memory file system that lives as long as the service
+         */
+        MEMORY
+    }
+}
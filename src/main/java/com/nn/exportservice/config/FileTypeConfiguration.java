@@ -0,0 +1,17 @@
+package com.nn.exportservice.config;
+
+import com.nn.exportservice.service.FileTypeRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the {@link FileTypeRegistry} from the configured file types, for the web application and batch mode
+ */
+@Configuration(proxyBeanMethods = false)
+public class FileTypeConfiguration {
+
+    @Bean
+    FileTypeRegistry fileTypeRegistry(FileTypeProperties fileTypeProperties) {
+        return FileTypeRegistry.from(fileTypeProperties);
+    }
+}
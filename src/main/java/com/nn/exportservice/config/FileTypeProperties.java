@@ -0,0 +1,78 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "export")
+public record FileTypeProperties(
+    @DefaultValue Map<String, Definition> types
+) {
+
+    /**
+     * A feed keyed by its id, see {@link com.nn.exportservice.model.FileType}
+     */
+    public record Definition(
+        String pattern,
+        String cron,
+        String exportFolder,
+        @DefaultValue("100") int priority,
+        @DefaultValue("24h") Duration targetLatency,
+        @DefaultValue Adaptive adaptive,
+        @DefaultValue List<String> fanOut,
+        @DefaultValue List<String> stages,
+        @DefaultValue Validation validation,
+        @DefaultValue Statistics statistics,
+        @DefaultValue Split split
+    ) {}
+
+    /**
+     * Scan interval that shortens while files arrive and backs off while scans come back empty.
+     * When enabled it replaces the cron expression of the type.
+     */
+    public record Adaptive(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10s") Duration minInterval,
+        @DefaultValue("1h") Duration maxInterval
+    ) {}
+
+    /**
+     * Content checks before export, see {@link com.nn.exportservice.model.FileType.Validation}
+     */
+    public record Validation(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("UTF-8") Charset encoding,
+        String header,
+        @DefaultValue(",") String delimiter,
+        @DefaultValue("0") int columns,
+        @DefaultValue("false") boolean trailer,
+        String rejectFolder
+    ) {}
+
+    /**
+     * Record counts of exported files, see {@link com.nn.exportservice.model.FileType.Statistics}
+     */
+    public record Statistics(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0") int headerLines,
+        @DefaultValue("0") int trailerLines,
+        @DefaultValue("0") int timestampColumn,
+        @DefaultValue(",") String delimiter,
+        @DefaultValue("false") boolean manifest
+    ) {}
+
+    /**
+     * Splitting of large files on export, see {@link com.nn.exportservice.model.FileType.Split}
+     */
+    public record Split(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1GB") DataSize threshold,
+        @DefaultValue("4") int parts,
+        @DefaultValue("0") int headerLines
+    ) {}
+}
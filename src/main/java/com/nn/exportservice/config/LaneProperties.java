@@ -0,0 +1,16 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "lanes")
+public record LaneProperties(
+    @DefaultValue("64MB") DataSize largeFileThreshold,
+    @DefaultValue("1") int largeWorkers
+) {
+
+    public static LaneProperties defaults() {
+        return new LaneProperties(DataSize.ofMegabytes(64), 1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "pipeline")
+public record PipelineProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("1000") int queueCapacity
+) {
+
+    public static PipelineProperties defaults() {
+        return new PipelineProperties(false, 1000);
+    }
+}
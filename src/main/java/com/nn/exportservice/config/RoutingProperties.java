@@ -0,0 +1,37 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "routing")
+public record RoutingProperties(
+    @DefaultValue List<Rule> rules,
+    @DefaultValue Map<String, Destination> destinations,
+    @DefaultValue("1") int defaultWorkers
+) {
+
+    public static RoutingProperties disabled() {
+        return new RoutingProperties(List.of(), Map.of(), 0);
+    }
+
+    /**
+     * Sends files of the file type (any type if blank) whose name matches the glob (any name if blank)
+     * to the named destination. Rules are evaluated in order, the first match wins.
+     */
+    public record Rule(
+        String fileType,
+        String pattern,
+        String destination
+    ) {}
+
+    /**
+     * Export root with its own worker pool and queue
+     */
+    public record Destination(
+        String path,
+        @DefaultValue("2") int workers
+    ) {}
+}
@@ -0,0 +1,17 @@
+package com.nn.exportservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param fileSampleRate record a span for 1 in N moved files, 0 for none
+ */
+@ConfigurationProperties(prefix = "export-tracing")
+public record TracingProperties(
+    @DefaultValue("100") int fileSampleRate
+) {
+
+    public static TracingProperties defaults() {
+        return new TracingProperties(100);
+    }
+}
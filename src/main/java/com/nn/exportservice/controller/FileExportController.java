@@ -1,63 +1,61 @@
 package com.nn.exportservice.controller;
 
 import com.nn.exportservice.dto.FileExportResponse;
+import com.nn.exportservice.logging.ExportTracing;
 import com.nn.exportservice.logging.LoggingContext;
 import com.nn.exportservice.mapper.FileExportMapper;
 import com.nn.exportservice.model.FileOperationResult;
 import com.nn.exportservice.model.FileType;
 import com.nn.exportservice.service.FileSystemService;
+import com.nn.exportservice.service.FileTypeRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.nio.file.Path;
-import java.util.List;
-
 @Slf4j
 @RestController
 @RequestMapping("/v1/api/export")
 public class FileExportController {
 
     private final FileSystemService fileSystemService;
+    private final FileTypeRegistry fileTypeRegistry;
     private final FileExportMapper fileExportMapper;
+    private final ExportTracing exportTracing;
 
-    public FileExportController(FileSystemService fileSystemService, FileExportMapper fileExportMapper) {
+    public FileExportController(FileSystemService fileSystemService, FileTypeRegistry fileTypeRegistry,
+                                FileExportMapper fileExportMapper, ExportTracing exportTracing) {
         this.fileSystemService = fileSystemService;
+        this.fileTypeRegistry = fileTypeRegistry;
         this.fileExportMapper = fileExportMapper;
+        this.exportTracing = exportTracing;
     }
 
-    @PostMapping("/redemption")
-    public ResponseEntity<FileExportResponse> exportRedemptionFiles() {
-        return processFileExport(FileType.REDEMPTION);
-    }
-
-    @PostMapping("/outpay")
-    public ResponseEntity<FileExportResponse> exportOutpayFiles() {
-        return processFileExport(FileType.OUTPAY);
-    }
-
-    @PostMapping("/own-and-ben")
-    public ResponseEntity<FileExportResponse> exportOwnAndBenFiles() {
-        return processFileExport(FileType.OWN_AND_BEN);
+    @PostMapping("/{type}")
+    public ResponseEntity<FileExportResponse> exportFiles(@PathVariable String type) {
+        return processFileExport(fileTypeRegistry.get(type));
     }
 
     private ResponseEntity<FileExportResponse> processFileExport(FileType fileType) {
         LoggingContext.setOperation("EXPORT_" + fileType.name());
         LoggingContext.setFileType(fileType.name());
         try {
-            log.info("Manual export triggered");
+            return exportTracing.batch("manual", fileType, () -> {
+                log.info("Manual export triggered");
 
-            List<Path> files = fileSystemService.listFilesByPrefix(fileType.getPrefixPattern());
-            FileOperationResult result = fileSystemService.moveFiles(files);
+                FileOperationResult result = fileSystemService.isPipelined()
+                        ? fileSystemService.exportPipelined(fileType)
+                        : fileSystemService.moveFiles(fileType, fileSystemService.listFiles(fileType));
 
-            FileExportResponse response = fileExportMapper.toResponse(fileType, result);
+                FileExportResponse response = fileExportMapper.toResponse(fileType, result);
 
-            log.info("Manual export completed successful={} errors={}",
-                    result.getSuccessCount(), result.getErrorCount());
+                log.info("Manual export completed successful={} errors={}",
+                        result.getSuccessCount(), result.getErrorCount());
 
-            return ResponseEntity.ok(response);
+                return ResponseEntity.ok(response);
+            });
         } finally {
             LoggingContext.clear();
         }
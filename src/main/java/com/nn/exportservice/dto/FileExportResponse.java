@@ -6,5 +6,16 @@ public record FileExportResponse(
     String fileType,
     int filesProcessed,
     List<String> successfulFiles,
-    List<ErrorDetail> errors
-) {}
+    List<ErrorDetail> errors,
+    List<String> duplicateFiles,
+    List<FileStatistics> statistics
+) {
+
+    /**
+     * Response for an export that failed as a whole, with a single {@code system} error
+     */
+    public static FileExportResponse failure(String fileType, String message) {
+        return new FileExportResponse(fileType, 0, List.of(), List.of(new ErrorDetail("system", message)),
+                List.of(), List.of());
+    }
+}
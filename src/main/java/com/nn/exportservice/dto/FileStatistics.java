@@ -0,0 +1,10 @@
+package com.nn.exportservice.dto;
+
+public record FileStatistics(
+    String fileName,
+    String exportedFileName,
+    long records,
+    long bytes,
+    String firstTimestamp,
+    String lastTimestamp
+) {}
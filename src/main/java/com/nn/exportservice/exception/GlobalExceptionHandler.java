@@ -1,6 +1,5 @@
 package com.nn.exportservice.exception;
 
-import com.nn.exportservice.dto.ErrorDetail;
 import com.nn.exportservice.dto.FileExportResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -8,8 +7,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-import java.util.List;
-
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -18,26 +15,26 @@ public class GlobalExceptionHandler {
     public ResponseEntity<FileExportResponse> handleFileSystemException(FileSystemException e) {
         log.error("File system error: {}", e.getMessage(), e);
         
-        FileExportResponse response = new FileExportResponse(
-                "UNKNOWN",
-                0,
-                List.of(),
-                List.of(new ErrorDetail("system", e.getMessage()))
-        );
+        FileExportResponse response = FileExportResponse.failure("UNKNOWN", e.getMessage());
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    @ExceptionHandler(UnknownFileTypeException.class)
+    public ResponseEntity<FileExportResponse> handleUnknownFileTypeException(UnknownFileTypeException e) {
+        log.warn("Unknown file type requested fileType={}", e.getFileType());
+
+        FileExportResponse response = FileExportResponse.failure(e.getFileType(), e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<FileExportResponse> handleGenericException(Exception e) {
         log.error("Unexpected error: {}", e.getMessage(), e);
         
-        FileExportResponse response = new FileExportResponse(
-                "UNKNOWN",
-                0,
-                List.of(),
-                List.of(new ErrorDetail("system", "An unexpected error occurred: " + e.getMessage()))
-        );
+        FileExportResponse response = FileExportResponse.failure("UNKNOWN",
+                "An unexpected error occurred: " + e.getMessage());
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
@@ -0,0 +1,18 @@
+package com.nn.exportservice.exception;
+
+/**
+ * Exception thrown when a requested file type is not configured
+ */
+public class UnknownFileTypeException extends RuntimeException {
+
+    private final String fileType;
+
+    public UnknownFileTypeException(String fileType) {
+        super("Unknown file type: " + fileType);
+        this.fileType = fileType;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+}
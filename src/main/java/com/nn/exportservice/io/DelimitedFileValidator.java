@@ -0,0 +1,362 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.LongFunction;
+
+/**
+ * Checks that a delimited text file is well formed before it is exported: valid in its encoding, starting
+ * with the expected header row, the expected number of columns on every record and, optionally, a trailer
+ * line whose last field is the number of records. Files are memory-mapped where the file system allows it
+ * and split into chunks at line boundaries, which are scanned in parallel; the first problem in file order
+ * is reported. The same scan can count the records of a valid file for its statistics, so a validated
+ * file is read once. Line feeds split lines, so the encoding must write a line feed as a single byte, as
+ * UTF-8, ISO-8859-1 and US-ASCII do. Delimiters are counted as bytes, quoted fields are not recognised.
+ */
+public class DelimitedFileValidator {
+
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int BOUNDARY_WINDOW = 64 * 1024;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final Charset encoding;
+    private final String header;
+    private final byte delimiter;
+    private final int columns;
+    private final boolean trailer;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * @param header expected first line, null for none
+     * @param columns expected columns per record, 0 to not check them
+     * @param trailer true if the last line holds the record count in its last field
+     * @param executor scans the chunks of large files
+     * @param parallelism number of chunks a file is split into, if they are at least 1 MB
+     * @throws IllegalArgumentException if the encoding or the delimiter cannot be scanned byte by byte
+     */
+    public DelimitedFileValidator(Charset encoding, String header, char delimiter, int columns, boolean trailer,
+                                  Executor executor, int parallelism) {
+        if (!Arrays.equals("\n".getBytes(encoding), new byte[]{LF})) {
+            throw new IllegalArgumentException("Encoding " + encoding + " does not write a line feed as one byte");
+        }
+        byte[] delimiterBytes = String.valueOf(delimiter).getBytes(encoding);
+        if (delimiterBytes.length != 1) {
+            throw new IllegalArgumentException("Delimiter " + delimiter + " is not a single byte in " + encoding);
+        }
+        this.encoding = encoding;
+        this.header = header;
+        this.delimiter = delimiterBytes[0];
+        this.columns = columns;
+        this.trailer = trailer;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param reason why the file is invalid, null if it is valid
+     * @param counts records of a valid file, null if it is invalid or they were not asked for
+     */
+    public record Result(String reason, RecordCounter.Counts counts) {}
+
+    /**
+     * @return why the file is invalid, null if it is valid
+     * @throws IOException if the file cannot be read
+     */
+    public String validate(Path file) throws IOException {
+        return validate(file, null).reason();
+    }
+
+    /**
+     * Validates the file and counts its records in the same scan
+     *
+     * @param counter layout of the records to count, null to only validate
+     * @throws IOException if the file cannot be read
+     */
+    public Result validate(Path file, RecordCounter counter) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                String reason = header != null || trailer ? "File is empty" : null;
+                return new Result(reason, reason == null && counter != null ? counter.counts(0, 0, null, null) : null);
+            }
+            List<Long> starts = chunkStarts(channel, size);
+            List<CompletableFuture<Chunk>> scans = new ArrayList<>(starts.size());
+            for (int i = 0; i < starts.size(); i++) {
+                long start = starts.get(i);
+                long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+                boolean first = i == 0;
+                boolean last = end == size;
+                scans.add(starts.size() == 1
+                        ? CompletableFuture.completedFuture(scan(channel, start, end, first, last, counter))
+                        : CompletableFuture.supplyAsync(
+                                () -> scanUnchecked(channel, start, end, first, last, counter), executor));
+            }
+            List<Chunk> chunks = join(scans);
+            String reason = merge(chunks);
+            if (reason != null || counter == null) {
+                return new Result(reason, null);
+            }
+            return new Result(null, counts(chunks, counter, size, file));
+        }
+    }
+
+    /**
+     * Splits the file into about one chunk per core, each starting at the beginning of a line
+     */
+    private List<Long> chunkStarts(FileChannel channel, long size) throws IOException {
+        long chunkSize = Math.clamp((size + parallelism - 1) / parallelism, MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        long next = chunkSize;
+        while (next < size) {
+            long lineStart = nextLineStart(channel, next, size);
+            if (lineStart >= size) {
+                break;
+            }
+            starts.add(lineStart);
+            next = lineStart + chunkSize;
+        }
+        return starts;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_WINDOW);
+        long position = from - 1;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == LF) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private Chunk scanUnchecked(FileChannel channel, long start, long end, boolean first, boolean last,
+                                RecordCounter counter) {
+        try {
+            return scan(channel, start, end, first, last, counter);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Counts the lines of a chunk and finds its first problem, the line numbers it reports start at 0 within the chunk.
+     * With a counter that reads timestamps the first chunk keeps its first record and the last chunk its last one.
+     */
+    private Chunk scan(FileChannel channel, long start, long end, boolean first, boolean last, RecordCounter counter)
+            throws IOException {
+        ByteBuffer bytes = region(channel, start, (int) (end - start));
+        Chunk chunk = new Chunk();
+        int invalid = firstUndecodable(bytes);
+        int limit = bytes.limit();
+        int lineStart = 0;
+        int delimiters = 0;
+        boolean timestamps = counter != null && counter.readsTimestamps();
+        // start and end offsets of the last lines, enough to reach back over the trailer lines
+        int[] tail = timestamps && last ? new int[2 * (counter.trailerLines() + 1)] : null;
+        for (int i = 0; i <= limit; i++) {
+            byte b = i < limit ? bytes.get(i) : LF;
+            if (b == delimiter) {
+                delimiters++;
+            } else if (b == LF) {
+                if (i == limit && lineStart == limit) {
+                    break; // the chunk ended with a line feed
+                }
+                int lineEnd = i > lineStart && bytes.get(i - 1) == CR ? i - 1 : i;
+                boolean lastLine = last && (i == limit || i == limit - 1);
+                checkLine(chunk, bytes, lineStart, lineEnd, delimiters, first && chunk.lines == 0, lastLine);
+                if (timestamps && first && chunk.lines == counter.headerLines()) {
+                    chunk.firstRecord = decode(bytes, lineStart, lineEnd);
+                }
+                if (tail != null) {
+                    int slot = chunk.lines % (tail.length / 2) * 2;
+                    tail[slot] = lineStart;
+                    tail[slot + 1] = lineEnd;
+                }
+                chunk.lines++;
+                lineStart = i + 1;
+                delimiters = 0;
+            }
+        }
+        if (tail != null && chunk.lines > counter.trailerLines()) {
+            int slot = (chunk.lines - 1 - counter.trailerLines()) % (tail.length / 2) * 2;
+            chunk.lastRecord = decode(bytes, tail[slot], tail[slot + 1]);
+        }
+        if (invalid >= 0) {
+            int line = lineOf(bytes, invalid);
+            if (chunk.errorLine < 0 || line <= chunk.errorLine) {
+                chunk.error(line, number -> "Line " + number + " is not valid " + encoding.name());
+            }
+        }
+        return chunk;
+    }
+
+    private void checkLine(Chunk chunk, ByteBuffer bytes, int start, int end, int delimiters, boolean firstLine,
+                           boolean lastLine) {
+        if (lastLine) {
+            chunk.lastLine = decode(bytes, start, end);
+        }
+        if (chunk.errorLine >= 0) {
+            return;
+        }
+        if (firstLine && header != null) {
+            String found = decode(bytes, start, end);
+            if (!header.equals(found)) {
+                chunk.error(chunk.lines, number -> "Header is '" + found + "', expected '" + header + "'");
+            }
+            return;
+        }
+        if (lastLine && trailer) {
+            return;
+        }
+        if (columns > 0 && delimiters + 1 != columns) {
+            int found = delimiters + 1;
+            chunk.error(chunk.lines, number -> "Line " + number + " has " + found + " columns, expected " + columns);
+        }
+    }
+
+    private String merge(List<Chunk> chunks) {
+        long lines = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.errorLine >= 0) {
+                return chunk.errorMessage.apply(lines + chunk.errorLine + 1);
+            }
+            lines += chunk.lines;
+        }
+        long records = lines - (header != null ? 1 : 0) - (trailer ? 1 : 0);
+        if (records < 0) {
+            return "File has no " + (header != null ? "header and trailer" : "trailer");
+        }
+        if (trailer) {
+            String trailerLine = chunks.getLast().lastLine;
+            String count = trailerLine.substring(trailerLine.lastIndexOf((char) delimiter) + 1).trim();
+            if (!count.equals(String.valueOf(records))) {
+                return "Trailer count '" + count + "' does not match " + records + " records";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts of a valid file from its scanned chunks. A first or last record outside the chunk that should
+     * hold it, which takes lines longer than a chunk, is read by a separate count of the file.
+     */
+    private static RecordCounter.Counts counts(List<Chunk> chunks, RecordCounter counter, long size, Path file)
+            throws IOException {
+        long lines = 0;
+        for (Chunk chunk : chunks) {
+            lines += chunk.lines;
+        }
+        String firstRecord = chunks.getFirst().firstRecord;
+        String lastRecord = chunks.getLast().lastRecord;
+        boolean records = lines > counter.headerLines() + counter.trailerLines();
+        if (counter.readsTimestamps() && records && (firstRecord == null || lastRecord == null)) {
+            return counter.count(file);
+        }
+        return counter.counts(lines, size, firstRecord, lastRecord);
+    }
+
+    /**
+     * @return the offset of the first byte that is not valid in the encoding, -1 if all are
+     */
+    private int firstUndecodable(ByteBuffer bytes) {
+        CharsetDecoder decoder = encoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = bytes.duplicate();
+        CharBuffer out = CharBuffer.allocate(8192);
+        while (true) {
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isError()) {
+                return in.position();
+            }
+            if (result.isUnderflow()) {
+                result = decoder.flush(out.clear());
+                return result.isError() ? in.position() : -1;
+            }
+            out.clear();
+        }
+    }
+
+    private String decode(ByteBuffer bytes, int start, int end) {
+        return encoding.decode(bytes.slice(start, end - start)).toString();
+    }
+
+    private static int lineOf(ByteBuffer bytes, int offset) {
+        int line = 0;
+        for (int i = 0; i < offset; i++) {
+            if (bytes.get(i) == LF) {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Maps the region, or reads it where the file system cannot map files
+     */
+    private static ByteBuffer region(FileChannel channel, long start, int length) throws IOException {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (UnsupportedOperationException e) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                // read until the region is complete
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static List<Chunk> join(List<CompletableFuture<Chunk>> scans) throws IOException {
+        try {
+            return scans.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Chunk {
+        private int lines;
+        private int errorLine = -1;
+        private LongFunction<String> errorMessage;
+        private String lastLine;
+        private String firstRecord;
+        private String lastRecord;
+
+        /**
+         * @param message builds the reason from the line number within the file, counted from 1
+         */
+        void error(int line, LongFunction<String> message) {
+            errorLine = line;
+            errorMessage = message;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * One processing step a file goes through on its way to the export folder, e.g. compression.
+ * The stages of a file type are chained by a {@link StagePipeline}: each runs on its own thread and reads
+ * what the previous stage writes, the first reads the file and the last writes the exported file.
+ * Implementations are shared by all exports and must be thread-safe.
+ */
+public interface ExportStage {
+
+    /**
+     * @return the name listed in the {@code stages} of a file type
+     */
+    String name();
+
+    /**
+     * @return the name of the file this stage writes for the given input name, unchanged by default
+     */
+    default String targetName(String fileName) {
+        return fileName;
+    }
+
+    /**
+     * Reads the input to its end and writes the processed bytes to the output.
+     * Neither stream is closed by the stage, the pipeline closes them once the stage returns.
+     * Returning before the end of the input fails the export, like throwing.
+     *
+     * @throws IOException to fail the export of the file, nothing of it is exported then
+     */
+    void process(InputStream input, OutputStream output) throws IOException;
+}
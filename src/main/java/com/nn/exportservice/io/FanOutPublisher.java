@@ -0,0 +1,150 @@
+package com.nn.exportservice.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Publishes one file into several folders while keeping a single copy of its content per file store.
+ * Targets on the file store of the source become hard links to it. For every other file store the source
+ * is copied once and the remaining targets there become hard links to that copy; the copies to different
+ * file stores run in parallel. Where a file system has no hard links, every target is a copy.
+ * The source is left in place, so it can be removed once every target is published.
+ */
+@Slf4j
+public class FanOutPublisher {
+
+    private final PooledFileCopier copier;
+    private final ExecutorService copyExecutor;
+
+    /**
+     * @param copyExecutor runs the copies to file stores other than the source's
+     */
+    public FanOutPublisher(PooledFileCopier copier, ExecutorService copyExecutor) {
+        this.copier = copier;
+        this.copyExecutor = copyExecutor;
+    }
+
+    /**
+     * Publishes the source to every target, replacing existing files. If any target fails, the targets
+     * already published are removed again, so a file is either in every folder or in none.
+     *
+     * @return number of targets published by copying rather than linking
+     * @throws IOException the first failure
+     */
+    public int publish(Path source, List<Path> targets) throws IOException {
+        FileStore sourceStore = Files.getFileStore(source);
+        Map<FileStore, List<Path>> targetsByStore = new LinkedHashMap<>();
+        for (Path target : targets) {
+            targetsByStore.computeIfAbsent(Files.getFileStore(target.getParent()), store -> new ArrayList<>()).add(target);
+        }
+
+        List<Path> published = new ArrayList<>();
+        List<CompletableFuture<Integer>> copies = new ArrayList<>();
+        try {
+            targetsByStore.forEach((store, storeTargets) -> {
+                if (!store.equals(sourceStore)) {
+                    copies.add(CompletableFuture.supplyAsync(() -> copyThenLink(source, storeTargets, published), copyExecutor));
+                }
+            });
+            int copied = 0;
+            List<Path> local = targetsByStore.get(sourceStore);
+            if (local != null) {
+                copied += link(source, local, published);
+            }
+            for (CompletableFuture<Integer> copy : copies) {
+                copied += copy.join();
+            }
+            return copied;
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new)).handle((ignored, error) -> null).join();
+            rollBack(published);
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Copies the source to the first target and links the others to that copy
+     */
+    private int copyThenLink(Path source, List<Path> targets, List<Path> published) {
+        try {
+            Path first = targets.getFirst();
+            copier.copy(source, first);
+            record(published, first);
+            return 1 + link(first, targets.subList(1, targets.size()), published);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Links every target to the existing file, copying instead once linking is not supported
+     *
+     * @return number of targets that had to be copied
+     */
+    private int link(Path existing, List<Path> targets, List<Path> published) throws IOException {
+        int copied = 0;
+        boolean linksSupported = true;
+        for (Path target : targets) {
+            Files.deleteIfExists(target);
+            if (linksSupported) {
+                try {
+                    Files.createLink(target, existing);
+                    record(published, target);
+                    continue;
+                } catch (UnsupportedOperationException | IOException e) {
+                    log.debug("hard link not possible, copying target={} error={}", target, e.getMessage());
+                    linksSupported = false;
+                }
+            }
+            copier.copy(existing, target);
+            record(published, target);
+            copied++;
+        }
+        return copied;
+    }
+
+    private static void record(List<Path> published, Path target) {
+        synchronized (published) {
+            published.add(target);
+        }
+    }
+
+    private static void rollBack(List<Path> published) {
+        synchronized (published) {
+            for (Path target : published) {
+                try {
+                    Files.deleteIfExists(target);
+                } catch (IOException e) {
+                    log.warn("failed to remove partially published file path={} error={}", target, e.getMessage());
+                }
+            }
+            published.clear();
+        }
+    }
+
+    private static IOException unwrap(Exception e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+}
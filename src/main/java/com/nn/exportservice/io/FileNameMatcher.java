@@ -0,0 +1,213 @@
+package com.nn.exportservice.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Matches file names against any number of glob patterns ({@code *} any sequence, {@code ?} any character)
+ * in a single pass. The patterns are merged into one trie-shaped automaton which is then determinized,
+ * so matching costs one table lookup per character whether there are 3 patterns or 300.
+ * When several patterns match a name the one given first wins.
+ */
+public final class FileNameMatcher {
+
+    public static final int NO_MATCH = -1;
+
+    private static final int DEAD = -1;
+    private static final int ASCII = 128;
+
+    private final int[] asciiClasses = new int[ASCII];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int otherClass;
+    private final int[][] transitions;
+    private final int[] accepting;
+
+    /**
+     * @param patterns glob patterns, matched against the whole file name
+     */
+    public FileNameMatcher(List<String> patterns) {
+        Nfa nfa = new Nfa();
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            nfa.add(patterns.get(i), i, alphabet);
+        }
+
+        char[] symbols = new char[alphabet.size()];
+        int index = 0;
+        for (char symbol : alphabet) {
+            symbols[index] = symbol;
+            index++;
+        }
+        otherClass = symbols.length;
+        Arrays.fill(asciiClasses, otherClass);
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] < ASCII) {
+                asciiClasses[symbols[i]] = i;
+            } else {
+                otherClasses.put(symbols[i], i);
+            }
+        }
+
+        List<int[]> dfaTransitions = new ArrayList<>();
+        List<Integer> dfaAccepting = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        Deque<BitSet> pending = new ArrayDeque<>();
+
+        BitSet start = new BitSet();
+        start.set(0);
+        nfa.close(start);
+        ids.put(start, 0);
+        pending.add(start);
+        dfaTransitions.add(null);
+        dfaAccepting.add(nfa.accepting(start));
+
+        while (!pending.isEmpty()) {
+            BitSet states = pending.poll();
+            int[] row = new int[otherClass + 1];
+            for (int symbolClass = 0; symbolClass <= otherClass; symbolClass++) {
+                Character symbol = symbolClass < otherClass ? symbols[symbolClass] : null;
+                BitSet next = nfa.step(states, symbol);
+                if (next.isEmpty()) {
+                    row[symbolClass] = DEAD;
+                    continue;
+                }
+                Integer id = ids.get(next);
+                if (id == null) {
+                    id = dfaTransitions.size();
+                    ids.put(next, id);
+                    pending.add(next);
+                    dfaTransitions.add(null);
+                    dfaAccepting.add(nfa.accepting(next));
+                }
+                row[symbolClass] = id;
+            }
+            dfaTransitions.set(ids.get(states), row);
+        }
+
+        transitions = dfaTransitions.toArray(new int[0][]);
+        accepting = dfaAccepting.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return index of the first pattern matching the name, or {@link #NO_MATCH}
+     */
+    public int match(CharSequence name) {
+        int state = 0;
+        for (int i = 0; i < name.length(); i++) {
+            state = transitions[state][classOf(name.charAt(i))];
+            if (state == DEAD) {
+                return NO_MATCH;
+            }
+        }
+        return accepting[state];
+    }
+
+    int stateCount() {
+        return transitions.length;
+    }
+
+    private int classOf(char c) {
+        if (c < ASCII) {
+            return asciiClasses[c];
+        }
+        return otherClasses.getOrDefault(c, otherClass);
+    }
+
+    /**
+     * Trie of pattern tokens. A {@code *} is an epsilon edge to a node that loops on any character,
+     * patterns sharing a prefix share its nodes.
+     */
+    private static final class Nfa {
+
+        private final List<Map<Character, Integer>> literals = new ArrayList<>();
+        private final List<Integer> anyChar = new ArrayList<>();
+        private final List<Integer> star = new ArrayList<>();
+        private final List<Boolean> loops = new ArrayList<>();
+        private final List<Integer> accept = new ArrayList<>();
+
+        Nfa() {
+            newNode(false);
+        }
+
+        void add(String pattern, int index, TreeSet<Character> alphabet) {
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '*') {
+                    if (loops.get(node)) {
+                        continue;
+                    }
+                    if (star.get(node) == DEAD) {
+                        star.set(node, newNode(true));
+                    }
+                    node = star.get(node);
+                } else if (c == '?') {
+                    if (anyChar.get(node) == DEAD) {
+                        anyChar.set(node, newNode(false));
+                    }
+                    node = anyChar.get(node);
+                } else {
+                    alphabet.add(c);
+                    node = literals.get(node).computeIfAbsent(c, key -> newNode(false));
+                }
+            }
+            accept.set(node, Math.min(accept.get(node), index));
+        }
+
+        /**
+         * States reachable from the given states by consuming the symbol, null meaning a character
+         * that appears in no pattern
+         */
+        BitSet step(BitSet states, Character symbol) {
+            BitSet next = new BitSet();
+            for (int node = states.nextSetBit(0); node >= 0; node = states.nextSetBit(node + 1)) {
+                if (symbol != null) {
+                    Integer literal = literals.get(node).get(symbol);
+                    if (literal != null) {
+                        next.set(literal);
+                    }
+                }
+                if (anyChar.get(node) != DEAD) {
+                    next.set(anyChar.get(node));
+                }
+                if (loops.get(node)) {
+                    next.set(node);
+                }
+            }
+            close(next);
+            return next;
+        }
+
+        void close(BitSet states) {
+            for (int node = states.nextSetBit(0); node >= 0; node = states.nextSetBit(node + 1)) {
+                if (star.get(node) != DEAD) {
+                    states.set(star.get(node));
+                }
+            }
+        }
+
+        int accepting(BitSet states) {
+            int best = Integer.MAX_VALUE;
+            for (int node = states.nextSetBit(0); node >= 0; node = states.nextSetBit(node + 1)) {
+                best = Math.min(best, accept.get(node));
+            }
+            return best == Integer.MAX_VALUE ? NO_MATCH : best;
+        }
+
+        private int newNode(boolean loop) {
+            literals.add(new HashMap<>());
+            anyChar.add(DEAD);
+            star.add(DEAD);
+            loops.add(loop);
+            accept.add(Integer.MAX_VALUE);
+            return loops.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.nn.exportservice.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Splits a large line-based file into parts that can be loaded in parallel. The body after the header lines
+ * is cut into parts of about equal size; each cut is moved forward to the next line start, and the cuts are
+ * searched in parallel over the memory-mapped file. Parts are written in parallel with
+ * {@link FileChannel#transferTo}, each starting with the header lines if there are any. An index file
+ * {@code <name>.index} lists the parts with their offset, length and record count in the source; it is
+ * written last, so its presence means every part is complete.
+ */
+@Slf4j
+public class FileSplitter {
+
+    public static final String INDEX_SUFFIX = ".index";
+
+    private static final byte LF = '\n';
+    private static final int BOUNDARY_WINDOW = 64 * 1024;
+    private static final String INDEX_HEADER = "part,file,offset,length,records";
+
+    private final Executor executor;
+
+    /**
+     * @param executor searches the cuts and writes the parts
+     */
+    public FileSplitter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param number part number, counted from 1
+     * @param offset start of the part's records in the source
+     * @param length bytes of the part's records, without the repeated header
+     */
+    public record Part(int number, Path file, long offset, long length, long records) {}
+
+    /**
+     * @param index the index file, written after every part
+     * @param parts the parts in order
+     */
+    public record Result(Path index, List<Part> parts) {}
+
+    /**
+     * @return the name of a part, e.g. {@code outpay_001_part002.csv} for part 2 of {@code outpay_001.csv}
+     */
+    public static String partName(String fileName, int number) {
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        return String.format(Locale.ROOT, "%s_part%03d%s", stem, number, extension);
+    }
+
+    /**
+     * Splits the source into parts in the directory, leaving the source in place. A failure removes
+     * the parts already written.
+     *
+     * @param parts number of parts to aim for, fewer if the file has fewer lines
+     * @param headerLines lines at the start of the source that are repeated at the start of every part
+     */
+    public Result split(Path source, Path directory, int parts, int headerLines) throws IOException {
+        String fileName = source.getFileName().toString();
+        List<Part> written = new ArrayList<>();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = in.size();
+            long bodyStart = RecordCounter.lineStartAfter(in, 0, headerLines, size);
+            ByteBuffer header = ByteBuffer.allocate((int) bodyStart);
+            while (header.hasRemaining() && in.read(header, header.position()) > 0) {
+                // read until the header is complete
+            }
+
+            List<Long> cuts = cuts(in, bodyStart, size, Math.max(1, parts));
+            List<CompletableFuture<Part>> writes = new ArrayList<>();
+            for (int i = 0; i + 1 < cuts.size(); i++) {
+                int number = i + 1;
+                long start = cuts.get(i);
+                long end = cuts.get(i + 1);
+                Path target = directory.resolve(partName(fileName, number));
+                writes.add(CompletableFuture.supplyAsync(
+                        () -> writePart(in, header.duplicate().flip(), number, start, end, size, target), executor));
+            }
+            IOException failure = null;
+            for (CompletableFuture<Part> write : writes) {
+                try {
+                    written.add(write.join());
+                } catch (CompletionException e) {
+                    failure = failure != null ? failure : unwrap(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            Path index = writeIndex(directory.resolve(fileName + INDEX_SUFFIX), written);
+            log.debug("file split fileName={} parts={} bytes={}", fileName, written.size(), size);
+            return new Result(index, List.copyOf(written));
+        } catch (IOException | RuntimeException e) {
+            for (Part part : written) {
+                Files.deleteIfExists(part.file());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the sorted offsets where parts start, followed by the end of the file
+     */
+    private List<Long> cuts(FileChannel in, long bodyStart, long size, int parts) throws IOException {
+        long body = size - bodyStart;
+        List<CompletableFuture<Long>> searches = new ArrayList<>();
+        for (int i = 1; i < parts; i++) {
+            long nominal = bodyStart + body / parts * i;
+            searches.add(CompletableFuture.supplyAsync(() -> nextLineStart(in, nominal, size), executor));
+        }
+        TreeSet<Long> cuts = new TreeSet<>();
+        cuts.add(bodyStart);
+        for (CompletableFuture<Long> search : searches) {
+            try {
+                cuts.add(search.join());
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        cuts.add(size);
+        return List.copyOf(cuts);
+    }
+
+    /**
+     * @return the start of the first line beginning at or after the offset, the end of the file if there is none
+     */
+    private static long nextLineStart(FileChannel in, long from, long size) {
+        try {
+            long position = from - 1;
+            while (position < size) {
+                int length = (int) Math.min(BOUNDARY_WINDOW, size - position);
+                ByteBuffer window = region(in, position, length);
+                for (int i = 0; i < window.limit(); i++) {
+                    if (window.get(i) == LF) {
+                        return position + i + 1;
+                    }
+                }
+                position += length;
+            }
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Part writePart(FileChannel in, ByteBuffer header, int number, long start, long end, long size,
+                                  Path target) {
+        Path staged = ResumableFileCopier.partFile(target);
+        try {
+            try (FileChannel out = FileChannel.open(staged, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (long position = start; position < end; ) {
+                    long transferred = in.transferTo(position, end - position, out);
+                    if (transferred <= 0) {
+                        throw new IOException("Source ended early at offset " + position);
+                    }
+                    position += transferred;
+                }
+            }
+            long records = RecordCounter.countLineFeeds(in, start, end);
+            if (end == size && end > start && !endsWithLineFeed(in, end)) {
+                records++;
+            }
+            publish(staged, target);
+            return new Part(number, target, start, end - start, records);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path writeIndex(Path index, List<Part> parts) throws IOException {
+        StringBuilder content = new StringBuilder(INDEX_HEADER).append('\n');
+        for (Part part : parts) {
+            content.append(part.number()).append(',')
+                    .append(part.file().getFileName()).append(',')
+                    .append(part.offset()).append(',')
+                    .append(part.length()).append(',')
+                    .append(part.records()).append('\n');
+        }
+        Path staged = ResumableFileCopier.partFile(index);
+        Files.writeString(staged, content);
+        publish(staged, index);
+        return index;
+    }
+
+    private static boolean endsWithLineFeed(FileChannel in, long end) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        in.read(last, end - 1);
+        return last.get(0) == LF;
+    }
+
+    private static ByteBuffer region(FileChannel in, long start, int length) throws IOException {
+        try {
+            return in.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (UnsupportedOperationException e) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && in.read(buffer, start + buffer.position()) > 0) {
+                // read until the region is complete
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static void publish(Path staged, Path target) throws IOException {
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static IOException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,254 @@
+package com.nn.exportservice.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forces moved files and the directories whose entries changed to disk, so an export reported as done
+ * survives a power loss. Per file, every move pays for three fsyncs on the moving thread. With group commit,
+ * moves join the open group and return at once; a single sync thread forces every file of the group and
+ * then each touched directory once, when the window has passed or the group is full, and only then
+ * completes the group. A copy is synced in two steps: the target before its source is deleted, and the
+ * source directory after. Paths outside the default file system are not synced. Once closed, group commit
+ * syncs on the calling thread like per file, so a late move still completes.
+ */
+@Slf4j
+public class FileSyncer {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Mode mode;
+    private final Duration window;
+    private final int maxFiles;
+    private final ExecutorService syncThread;
+    private final Executor delayedSync;
+    private Group openGroup;
+
+    private FileSyncer(Mode mode, Duration window, int maxFiles) {
+        this.mode = mode;
+        this.window = window;
+        this.maxFiles = maxFiles;
+        this.syncThread = mode == Mode.GROUP_COMMIT
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("export-fsync").daemon(true).factory())
+                : null;
+        this.delayedSync = syncThread == null ? null
+                : CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, this::onSyncThread);
+    }
+
+    /**
+     * Reports moves as done without syncing
+     */
+    public static FileSyncer none() {
+        return new FileSyncer(Mode.NONE, Duration.ZERO, 0);
+    }
+
+    /**
+     * Syncs every move on the calling thread before it is reported
+     */
+    public static FileSyncer perFile() {
+        return new FileSyncer(Mode.PER_FILE, Duration.ZERO, 0);
+    }
+
+    /**
+     * @param window how long a group stays open for further moves after its first one
+     * @param maxFiles files after which a group is synced without waiting for the window
+     */
+    public static FileSyncer groupCommit(Duration window, int maxFiles) {
+        return new FileSyncer(Mode.GROUP_COMMIT, window, Math.max(1, maxFiles));
+    }
+
+    /**
+     * Makes a completed move durable: the target file, its directory and the directory it left
+     *
+     * @return completes once the move is on disk, exceptionally if a sync failed
+     */
+    public CompletableFuture<Void> sync(Path source, Path target) {
+        if (mode == Mode.NONE || !isDefault(target)) {
+            return DONE;
+        }
+        Path sourceDirectory = isDefault(source) ? source.toAbsolutePath().getParent() : null;
+        return force(target, target.toAbsolutePath().getParent(), sourceDirectory);
+    }
+
+    /**
+     * Makes a copy durable before its source is deleted: the target file and its directory
+     *
+     * @return completes once the copy is on disk, exceptionally if a sync failed
+     */
+    public CompletableFuture<Void> syncCopy(Path target) {
+        if (mode == Mode.NONE || !isDefault(target)) {
+            return DONE;
+        }
+        return force(target, target.toAbsolutePath().getParent(), null);
+    }
+
+    /**
+     * Makes the deletion of a copied source durable: the directory it was deleted from
+     *
+     * @return completes once the deletion is on disk, exceptionally if a sync failed
+     */
+    public CompletableFuture<Void> syncRemoval(Path source) {
+        if (mode == Mode.NONE || !isDefault(source)) {
+            return DONE;
+        }
+        return force(null, source.toAbsolutePath().getParent(), null);
+    }
+
+    /**
+     * @param file file to force, null for none
+     * @param otherDirectory second directory to force, null for none
+     */
+    private CompletableFuture<Void> force(Path file, Path directory, Path otherDirectory) {
+        if (mode == Mode.PER_FILE || syncThread.isShutdown()) {
+            try {
+                if (file != null) {
+                    force(file);
+                }
+                force(directory);
+                if (otherDirectory != null && !otherDirectory.equals(directory)) {
+                    force(otherDirectory);
+                }
+                return DONE;
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return join(file, directory, otherDirectory);
+    }
+
+    /**
+     * Syncs the open group without waiting for its window
+     */
+    public void flush() {
+        Group group;
+        synchronized (this) {
+            group = openGroup;
+            openGroup = null;
+        }
+        if (group != null) {
+            onSyncThread(() -> commit(group));
+        }
+    }
+
+    /**
+     * Syncs the open group and stops the sync thread
+     */
+    public void close() {
+        if (syncThread == null) {
+            return;
+        }
+        flush();
+        syncThread.shutdown();
+        try {
+            if (!syncThread.awaitTermination(window.toMillis() + 10_000, TimeUnit.MILLISECONDS)) {
+                syncThread.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            syncThread.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Void> join(Path file, Path directory, Path otherDirectory) {
+        Group group;
+        boolean full;
+        synchronized (this) {
+            if (openGroup == null) {
+                openGroup = new Group();
+                Group scheduled = openGroup;
+                delayedSync.execute(() -> commitIfOpen(scheduled));
+            }
+            group = openGroup;
+            if (file != null) {
+                group.files.add(file);
+            }
+            group.directories.add(directory);
+            if (otherDirectory != null) {
+                group.directories.add(otherDirectory);
+            }
+            full = group.files.size() >= maxFiles;
+            if (full) {
+                openGroup = null;
+            }
+        }
+        if (full) {
+            onSyncThread(() -> commit(group));
+        }
+        return group.committed;
+    }
+
+    /**
+     * Runs a commit on the sync thread, or right here if it has been stopped since the group was opened
+     */
+    private void onSyncThread(Runnable commit) {
+        try {
+            syncThread.execute(commit);
+        } catch (RejectedExecutionException e) {
+            commit.run();
+        }
+    }
+
+    private void commitIfOpen(Group group) {
+        synchronized (this) {
+            if (openGroup != group) {
+                return; // already committed because it was full or flushed
+            }
+            openGroup = null;
+        }
+        commit(group);
+    }
+
+    private static void commit(Group group) {
+        try {
+            for (Path file : group.files) {
+                force(file);
+            }
+            for (Path directory : group.directories) {
+                force(directory);
+            }
+            group.committed.complete(null);
+        } catch (IOException | RuntimeException e) {
+            log.error("group commit failed files={} error={}", group.files.size(), e.getMessage(), e);
+            group.committed.completeExceptionally(e);
+        }
+    }
+
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (NoSuchFileException e) {
+            // already picked up by the consumer, there is nothing left of it to lose
+        }
+    }
+
+    private static boolean isDefault(Path path) {
+        return path.getFileSystem() == FileSystems.getDefault();
+    }
+
+    private enum Mode {
+        NONE,
+        PER_FILE,
+        GROUP_COMMIT
+    }
+
+    private static final class Group {
+        private final Set<Path> files = new LinkedHashSet<>();
+        private final Set<Path> directories = new LinkedHashSet<>();
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+    }
+}
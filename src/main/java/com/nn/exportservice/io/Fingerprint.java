@@ -0,0 +1,11 @@
+package com.nn.exportservice.io;
+
+/**
+ * 128-bit content fingerprint of a file
+ */
+public record Fingerprint(long high, long low) {
+
+    public String toHex() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,33 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the file with gzip and appends {@code .gz} to its name
+ */
+public class GzipStage implements ExportStage {
+
+    public static final String NAME = "gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String targetName(String fileName) {
+        return fileName + ".gz";
+    }
+
+    @Override
+    public void process(InputStream input, OutputStream output) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE);
+        input.transferTo(gzip);
+        gzip.finish();
+    }
+}
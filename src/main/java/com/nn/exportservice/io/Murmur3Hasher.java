@@ -0,0 +1,171 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming MurmurHash3 (x64, 128-bit, seed 0) used to fingerprint file content.
+ * Not thread safe, create one instance per file.
+ */
+public class Murmur3Hasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final int BLOCK_SIZE = 16;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer pending = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long h1;
+    private long h2;
+    private long length;
+
+    /**
+     * Hashes the full content of the given file
+     *
+     * @param file the file to hash
+     * @return the content fingerprint
+     * @throws IOException if the file cannot be read
+     */
+    public static Fingerprint hash(Path file) throws IOException {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // positional reads skip the channel's position monitor, which would pin a virtual thread
+            long position = 0;
+            int read;
+            while ((read = channel.read(buffer, position)) >= 0) {
+                position += read;
+                buffer.flip();
+                hasher.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Continues hashing from a state taken with {@link #state()}
+     */
+    public static Murmur3Hasher resume(State state) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.h1 = state.h1();
+        hasher.h2 = state.h2();
+        hasher.length = state.length();
+        return hasher;
+    }
+
+    public static Fingerprint hash(byte[] data) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.update(ByteBuffer.wrap(data));
+        return hasher.finish();
+    }
+
+    /**
+     * Consumes all remaining bytes of the buffer
+     */
+    public void update(ByteBuffer data) {
+        ByteBuffer input = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        length += input.remaining();
+        data.position(data.limit());
+
+        if (pending.position() > 0) {
+            while (pending.hasRemaining() && input.hasRemaining()) {
+                pending.put(input.get());
+            }
+            if (pending.hasRemaining()) {
+                return;
+            }
+            pending.flip();
+            mixBlock(pending.getLong(), pending.getLong());
+            pending.clear();
+        }
+
+        while (input.remaining() >= BLOCK_SIZE) {
+            mixBlock(input.getLong(), input.getLong());
+        }
+        while (input.hasRemaining()) {
+            pending.put(input.get());
+        }
+    }
+
+    /**
+     * Intermediate state, only available at a block boundary (a multiple of 16 bytes consumed)
+     *
+     * @throws IllegalStateException if bytes of an incomplete block are pending
+     */
+    public State state() {
+        if (pending.position() > 0) {
+            throw new IllegalStateException("State is only available at a 16 byte boundary, length=" + length);
+        }
+        return new State(h1, h2, length);
+    }
+
+    public Fingerprint finish() {
+        int tailLength = pending.position();
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (pending.get(i) & 0xffL);
+        }
+        for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (pending.get(i) & 0xffL);
+        }
+        if (tailLength > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (tailLength > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2);
+    }
+
+    private void mixBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public record State(long h1, long h2, long length) {}
+}
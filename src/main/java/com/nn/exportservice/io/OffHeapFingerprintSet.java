@@ -0,0 +1,225 @@
+package com.nn.exportservice.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persistent set of content fingerprints backed by a memory-mapped file.
+ * Open addressing with linear probing over fixed 24 byte slots (high, low, recordedAt),
+ * so the set never touches the Java heap regardless of the number of entries.
+ * Entries older than the retention window are treated as absent and their slots are reused.
+ * When a probe window is full the oldest entry in it is evicted.
+ */
+public class OffHeapFingerprintSet implements Closeable {
+
+    private static final long MAGIC = 0x4e4e2d4650534554L;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 24;
+    private static final int SLOTS_PER_SEGMENT = 1 << 25;
+    private static final int MAX_PROBES = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int ENTRIES_OFFSET = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private final long mask;
+    private final long retentionMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private OffHeapFingerprintSet(FileChannel channel, long capacity, Duration retention) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.retentionMillis = retention == null || retention.isZero() ? Long.MAX_VALUE : retention.toMillis();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        int segmentCount = (int) ((capacity + SLOTS_PER_SEGMENT - 1) / SLOTS_PER_SEGMENT);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long firstSlot = (long) i * SLOTS_PER_SEGMENT;
+            long slots = Math.min(SLOTS_PER_SEGMENT, capacity - firstSlot);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + firstSlot * SLOT_SIZE, slots * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * Opens the set stored in the given file, creating it if it does not exist.
+     * The capacity of an existing file is kept, the requested capacity only applies to new files.
+     *
+     * @param file the backing file
+     * @param requestedCapacity number of slots, rounded up to a power of two
+     * @param retention how long a fingerprint is remembered, zero or null to keep forever
+     * @return the opened set
+     * @throws IOException if the file cannot be opened or is not a fingerprint set
+     */
+    public static OffHeapFingerprintSet open(Path file, long requestedCapacity, Duration retention) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long capacity;
+            if (exists) {
+                MappedByteBuffer existingHeader = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (existingHeader.getLong(MAGIC_OFFSET) != MAGIC || existingHeader.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException("Not a fingerprint set file: " + file);
+                }
+                capacity = existingHeader.getLong(CAPACITY_OFFSET);
+            } else {
+                capacity = roundUpToPowerOfTwo(requestedCapacity);
+            }
+
+            OffHeapFingerprintSet set = new OffHeapFingerprintSet(channel, capacity, retention);
+            if (!exists) {
+                set.header.putLong(MAGIC_OFFSET, MAGIC);
+                set.header.putInt(VERSION_OFFSET, VERSION);
+                set.header.putLong(CAPACITY_OFFSET, capacity);
+                set.header.putLong(ENTRIES_OFFSET, 0);
+            }
+            return set;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the fingerprint was recorded within the retention window
+     */
+    public boolean contains(Fingerprint fingerprint, long nowMillis) {
+        lock.lock();
+        try {
+            long start = fingerprint.low() & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long slot = (start + probe) & mask;
+                long recordedAt = recordedAt(slot);
+                if (recordedAt == 0) {
+                    return false;
+                }
+                if (matches(slot, fingerprint)) {
+                    return !isExpired(recordedAt, nowMillis);
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the fingerprint, refreshing its timestamp if it is already present
+     */
+    public void add(Fingerprint fingerprint, long nowMillis) {
+        long timestamp = Math.max(nowMillis, 1);
+        lock.lock();
+        try {
+            long start = fingerprint.low() & mask;
+            long reusable = -1;
+            long oldest = start;
+            long oldestRecordedAt = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long slot = (start + probe) & mask;
+                long recordedAt = recordedAt(slot);
+                if (recordedAt == 0) {
+                    write(reusable >= 0 ? reusable : slot, fingerprint, timestamp);
+                    if (reusable < 0) {
+                        header.putLong(ENTRIES_OFFSET, header.getLong(ENTRIES_OFFSET) + 1);
+                    }
+                    return;
+                }
+                if (matches(slot, fingerprint)) {
+                    write(slot, fingerprint, timestamp);
+                    return;
+                }
+                if (reusable < 0 && isExpired(recordedAt, nowMillis)) {
+                    reusable = slot;
+                }
+                if (recordedAt < oldestRecordedAt) {
+                    oldestRecordedAt = recordedAt;
+                    oldest = slot;
+                }
+            }
+            write(reusable >= 0 ? reusable : oldest, fingerprint, timestamp);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of occupied slots, including expired entries not yet reused
+     */
+    public long size() {
+        return header.getLong(ENTRIES_OFFSET);
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Flushes all mapped pages to the backing file
+     */
+    public void force() {
+        lock.lock();
+        try {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private boolean isExpired(long recordedAt, long nowMillis) {
+        return nowMillis - recordedAt > retentionMillis;
+    }
+
+    private boolean matches(long slot, Fingerprint fingerprint) {
+        MappedByteBuffer segment = segments[(int) (slot / SLOTS_PER_SEGMENT)];
+        int offset = (int) (slot % SLOTS_PER_SEGMENT) * SLOT_SIZE;
+        return segment.getLong(offset) == fingerprint.high() && segment.getLong(offset + 8) == fingerprint.low();
+    }
+
+    private long recordedAt(long slot) {
+        MappedByteBuffer segment = segments[(int) (slot / SLOTS_PER_SEGMENT)];
+        return segment.getLong((int) (slot % SLOTS_PER_SEGMENT) * SLOT_SIZE + 16);
+    }
+
+    private void write(long slot, Fingerprint fingerprint, long recordedAt) {
+        MappedByteBuffer segment = segments[(int) (slot / SLOTS_PER_SEGMENT)];
+        int offset = (int) (slot % SLOTS_PER_SEGMENT) * SLOT_SIZE;
+        segment.putLong(offset, fingerprint.high());
+        segment.putLong(offset + 8, fingerprint.low());
+        segment.putLong(offset + 16, recordedAt);
+    }
+
+    private static long roundUpToPowerOfTwo(long value) {
+        if (value <= 1) {
+            return 1;
+        }
+        return Long.highestOneBit(value - 1) << 1;
+    }
+}
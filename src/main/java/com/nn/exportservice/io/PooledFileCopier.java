@@ -0,0 +1,117 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.util.Set;
+
+/**
+ * Copies files between file stores without allocating a buffer per file.
+ * A file that fits into one pooled direct buffer is read with a single read and written with a single write;
+ * larger files are handed to {@link FileChannel#transferTo}, which lets the kernel move the bytes.
+ * Between file system providers, where there is no kernel path, larger files stream through a pooled buffer.
+ * Like {@link Files#move}, an existing target is deleted first, which is much cheaper than truncating it,
+ * and the copy keeps the modification time of the source.
+ */
+public class PooledFileCopier {
+
+    private static final Set<OpenOption> READ = Set.of(StandardOpenOption.READ);
+    private static final Set<OpenOption> WRITE_NEW = Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+    private static final FileAttribute<?>[] NO_ATTRIBUTES = new FileAttribute<?>[0];
+
+    private final BufferPool bufferPool;
+
+    public PooledFileCopier(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Copies the source to the target, leaving the source in place.
+     * A partially written target is removed if the copy fails.
+     *
+     * @return number of bytes copied
+     */
+    public long copy(Path source, Path target) throws IOException {
+        long size;
+        try (FileChannel in = FileChannel.open(source, READ, NO_ATTRIBUTES)) {
+            size = in.size();
+            Files.deleteIfExists(target);
+            try (FileChannel out = FileChannel.open(target, WRITE_NEW, NO_ATTRIBUTES)) {
+                if (size <= bufferPool.bufferSize()) {
+                    copySmall(in, out, size);
+                } else if (source.getFileSystem().provider() == target.getFileSystem().provider()) {
+                    copyLarge(in, out, size);
+                } else {
+                    copyStreaming(in, out, size);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+        return size;
+    }
+
+    private void copySmall(FileChannel in, FileChannel out, long size) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            // positional reads and writes skip the channels' position monitor, which would pin a virtual thread
+            buffer.limit((int) size);
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                int read = in.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+            buffer.flip();
+            writeFully(out, buffer, 0);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private void copyStreaming(FileChannel in, FileChannel out, long size) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            long position = 0;
+            while (position < size) {
+                buffer.clear();
+                int read = in.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                writeFully(out, buffer, position);
+                position += read;
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += out.write(buffer, offset);
+        }
+    }
+
+    private static void copyLarge(FileChannel in, FileChannel out, long size) throws IOException {
+        long position = 0;
+        while (position < size) {
+            long transferred = in.transferTo(position, size - position, out);
+            if (transferred <= 0 && position >= in.size()) {
+                break;
+            }
+            position += transferred;
+        }
+    }
+}
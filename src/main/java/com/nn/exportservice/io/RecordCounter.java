@@ -0,0 +1,226 @@
+package com.nn.exportservice.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the records of a line-based file and reads the timestamp of its first and last record.
+ * Line feeds are counted eight bytes at a time: every word is compared against a word of line feeds with
+ * branch-free bit arithmetic that marks each matching byte, so the loop has no per-byte branches and the JIT
+ * can unroll it. The file is memory-mapped where the file system allows it, otherwise read in blocks;
+ * only the lines holding the timestamps are decoded.
+ */
+public class RecordCounter {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final long LINE_FEEDS = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final int MAX_REGION = 1 << 30;
+    private static final int READ_BLOCK = 1 << 20;
+    private static final int LINE_WINDOW = 8 * 1024;
+
+    private final int headerLines;
+    private final int trailerLines;
+    private final int timestampColumn;
+    private final byte delimiter;
+
+    /**
+     * @param headerLines lines before the first record
+     * @param trailerLines lines after the last record
+     * @param timestampColumn column holding the record timestamp, counted from 1, 0 for none
+     */
+    public RecordCounter(int headerLines, int trailerLines, int timestampColumn, char delimiter) {
+        this.headerLines = Math.max(0, headerLines);
+        this.trailerLines = Math.max(0, trailerLines);
+        this.timestampColumn = timestampColumn;
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * @param records lines of the file without header and trailer lines
+     * @param firstTimestamp timestamp field of the first record, null without records or timestamp column
+     * @param lastTimestamp timestamp field of the last record, null without records or timestamp column
+     */
+    public record Counts(long records, long bytes, String firstTimestamp, String lastTimestamp) {}
+
+    public Counts count(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Counts(0, 0, null, null);
+            }
+            long lineFeeds = countLineFeeds(channel, 0, size);
+            boolean terminated = byteAt(channel, size - 1) == LF;
+            long lines = lineFeeds + (terminated ? 0 : 1);
+            long records = Math.max(0, lines - headerLines - trailerLines);
+            if (records == 0 || timestampColumn <= 0) {
+                return new Counts(records, size, null, null);
+            }
+            long firstRecord = lineStartAfter(channel, 0, headerLines, size);
+            long lastLineStart = lastLineStart(channel, terminated ? size - 1 : size);
+            long lastRecord = lastLineStart;
+            for (int i = 0; i < trailerLines; i++) {
+                lastRecord = lastLineStart(channel, lastRecord - 1);
+            }
+            return new Counts(records, size, timestamp(readLine(channel, firstRecord, size)),
+                    timestamp(readLine(channel, lastRecord, size)));
+        }
+    }
+
+    /**
+     * Counts of a file whose lines were already scanned elsewhere, by the validator of its type for one
+     *
+     * @param lines lines of the file, including header and trailer lines
+     * @param firstRecord the first record line, only read with a timestamp column
+     * @param lastRecord the last record line, only read with a timestamp column
+     */
+    Counts counts(long lines, long bytes, String firstRecord, String lastRecord) {
+        long records = Math.max(0, lines - headerLines - trailerLines);
+        if (records == 0 || timestampColumn <= 0) {
+            return new Counts(records, bytes, null, null);
+        }
+        return new Counts(records, bytes, timestamp(firstRecord), timestamp(lastRecord));
+    }
+
+    int headerLines() {
+        return headerLines;
+    }
+
+    int trailerLines() {
+        return trailerLines;
+    }
+
+    boolean readsTimestamps() {
+        return timestampColumn > 0;
+    }
+
+    /**
+     * Number of line feeds in the buffer, eight bytes per step
+     */
+    static long countLineFeeds(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        long count = 0;
+        int i = 0;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = bytes.getLong(i) ^ LINE_FEEDS;
+            // the high bit of every byte that was a line feed, and only of those
+            count += Long.bitCount(~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS));
+        }
+        for (; i < limit; i++) {
+            if (bytes.get(i) == LF) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of line feeds between the offsets, mapped in regions of up to 1 GB
+     */
+    static long countLineFeeds(FileChannel channel, long start, long end) throws IOException {
+        long count = 0;
+        ByteBuffer block = null;
+        for (long position = start; position < end; ) {
+            int length = (int) Math.min(MAX_REGION, end - position);
+            ByteBuffer region;
+            try {
+                region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (UnsupportedOperationException e) {
+                // not mappable, read in blocks instead
+                block = block != null ? block.clear() : ByteBuffer.allocate(READ_BLOCK);
+                block.limit((int) Math.min(READ_BLOCK, end - position));
+                int read = channel.read(block, position);
+                if (read <= 0) {
+                    break;
+                }
+                region = block.flip();
+                length = read;
+            }
+            count += countLineFeeds(region);
+            position += length;
+        }
+        return count;
+    }
+
+    /**
+     * @return the offset after the given number of line feeds from the start offset
+     */
+    static long lineStartAfter(FileChannel channel, long start, int lines, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(LINE_WINDOW);
+        long position = start;
+        int remaining = lines;
+        while (remaining > 0 && position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read && remaining > 0; i++) {
+                if (window.get(i) == LF) {
+                    remaining--;
+                    if (remaining == 0) {
+                        return position + i + 1;
+                    }
+                }
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    /**
+     * @return the start of the line that ends before the given offset
+     */
+    private static long lastLineStart(FileChannel channel, long end) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(LINE_WINDOW);
+        long windowEnd = end;
+        while (windowEnd > 0) {
+            long windowStart = Math.max(0, windowEnd - LINE_WINDOW);
+            window.clear().limit((int) (windowEnd - windowStart));
+            channel.read(window, windowStart);
+            for (int i = (int) (windowEnd - windowStart) - 1; i >= 0; i--) {
+                if (window.get(i) == LF) {
+                    return windowStart + i + 1;
+                }
+            }
+            windowEnd = windowStart;
+        }
+        return 0;
+    }
+
+    private static String readLine(FileChannel channel, long start, long size) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        ByteBuffer window = ByteBuffer.allocate(LINE_WINDOW);
+        long position = start;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; i++) {
+                byte b = window.get(i);
+                if (b == LF) {
+                    return line.toString(StandardCharsets.UTF_8);
+                }
+                if (b != CR) {
+                    line.write(b);
+                }
+            }
+            position += read;
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private String timestamp(String line) {
+        String[] fields = line.split(Pattern.quote(String.valueOf((char) delimiter)), -1);
+        return timestampColumn <= fields.length ? fields[timestampColumn - 1].trim() : null;
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer single = ByteBuffer.allocate(1);
+        channel.read(single, position);
+        return single.get(0);
+    }
+}
@@ -0,0 +1,255 @@
+package com.nn.exportservice.io;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+
+/**
+ * Chunked copy for large files across file stores that survives restarts and transient errors.
+ * Data is written to a staging file ({@code <target>.part}) beside the target. After every chunk the
+ * staging file is forced to disk and a checkpoint ({@code <target>.part.ckpt}) records the committed offset
+ * and the hash state of the bytes up to it. A later copy of the same, unchanged source verifies the staged
+ * prefix against the checkpoint and continues from the offset instead of byte zero.
+ * The target only appears, by rename, once the copy is complete.
+ */
+@Slf4j
+public class ResumableFileCopier {
+
+    public static final String PART_SUFFIX = ".part";
+    public static final String CHECKPOINT_SUFFIX = ".part.ckpt";
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final int chunkSize;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final ChunkListener chunkListener;
+
+    /**
+     * @param chunkSize bytes copied between checkpoints, rounded up to a multiple of 16
+     * @param maxRetries attempts after a failed one before giving up
+     * @param retryBackoff wait before the first retry, doubled for every further retry
+     * @param chunkListener told about every chunk committed to the staging file
+     */
+    public ResumableFileCopier(int chunkSize, int maxRetries, Duration retryBackoff, ChunkListener chunkListener) {
+        this.chunkSize = Math.max(BLOCK_SIZE, (chunkSize + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE);
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.chunkListener = chunkListener;
+    }
+
+    /**
+     * Copies the source to the target, resuming a previous partial copy when possible.
+     * The source is left in place.
+     *
+     * @return fingerprint of the copied content
+     * @throws IOException if the copy still fails after all retries
+     */
+    public Fingerprint copy(Path source, Path target) throws IOException {
+        int attempt = 0;
+        while (true) {
+            try {
+                return copyOnce(source, target);
+            } catch (NoSuchFileException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                long backoffMillis = retryBackoff.toMillis() << attempt;
+                attempt++;
+                log.warn("copy failed, resuming from last checkpoint source={} attempt={} backoffMs={} error={}",
+                        source, attempt, backoffMillis, e.getMessage());
+                sleep(backoffMillis);
+            }
+        }
+    }
+
+    public static Path partFile(Path target) {
+        return target.resolveSibling(target.getFileName() + PART_SUFFIX);
+    }
+
+    public static Path checkpointFile(Path target) {
+        return target.resolveSibling(target.getFileName() + CHECKPOINT_SUFFIX);
+    }
+
+    private Fingerprint copyOnce(Path source, Path target) throws IOException {
+        Path part = partFile(target);
+        Path checkpointFile = checkpointFile(target);
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        Murmur3Hasher hasher;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+            Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+            long offset;
+            if (checkpoint != null && checkpoint.matches(size, modified) && isStagedPrefixIntact(out, checkpoint, buffer)) {
+                offset = checkpoint.offset();
+                hasher = Murmur3Hasher.resume(checkpoint.hashState());
+                log.info("resuming copy source={} offset={} size={}", source, offset, size);
+            } else {
+                offset = 0;
+                hasher = new Murmur3Hasher();
+            }
+            out.truncate(offset);
+
+            while (offset < size) {
+                buffer.clear();
+                buffer.limit((int) Math.min(chunkSize, size - offset));
+                readFully(in, buffer, offset, source);
+                buffer.flip();
+                hasher.update(buffer.duplicate());
+                writeFully(out, buffer, offset);
+                offset += buffer.limit();
+                out.force(false);
+                chunkListener.chunkCommitted(offset);
+                if (offset < size) {
+                    new Checkpoint(size, modified, offset, hasher.state()).write(checkpointFile);
+                }
+            }
+            out.force(true);
+        }
+
+        publish(part, target);
+        Files.deleteIfExists(checkpointFile);
+        return hasher.finish();
+    }
+
+    private boolean isStagedPrefixIntact(FileChannel staged, Checkpoint checkpoint, ByteBuffer buffer) throws IOException {
+        if (staged.size() < checkpoint.offset()) {
+            return false;
+        }
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        long position = 0;
+        while (position < checkpoint.offset()) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), checkpoint.offset() - position));
+            int read = staged.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+            buffer.flip();
+            hasher.update(buffer);
+        }
+        return hasher.state().equals(checkpoint.hashState());
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long offset, Path source) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Source shrank while copying: " + source);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    private static void publish(Path part, Path target) throws IOException {
+        try {
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry copy");
+        }
+    }
+
+    /**
+     * Called after each chunk is durable in the staging file, before its checkpoint is written
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        ChunkListener NONE = offset -> { };
+
+        void chunkCommitted(long offset) throws IOException;
+    }
+
+    /**
+     * Committed progress of a copy, tied to the size and modification time of its source
+     */
+    record Checkpoint(long sourceSize, long sourceModified, long offset, Murmur3Hasher.State hashState) {
+
+        private static final long MAGIC = 0x4e4e2d434b505431L;
+        private static final int SIZE = 7 * Long.BYTES;
+
+        boolean matches(long size, long modified) {
+            return sourceSize == size && sourceModified == modified && offset <= size;
+        }
+
+        /**
+         * @return the checkpoint, null if there is none or it is unreadable
+         */
+        static Checkpoint read(Path file) {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+                if (buffer.remaining() != SIZE || buffer.getLong() != MAGIC) {
+                    return null;
+                }
+                long sourceSize = buffer.getLong();
+                long sourceModified = buffer.getLong();
+                long offset = buffer.getLong();
+                Murmur3Hasher.State state = new Murmur3Hasher.State(buffer.getLong(), buffer.getLong(), buffer.getLong());
+                return state.length() == offset ? new Checkpoint(sourceSize, sourceModified, offset, state) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Replaces the checkpoint file atomically, so a crash leaves either the old or the new checkpoint
+         */
+        void write(Path file) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                    .putLong(MAGIC)
+                    .putLong(sourceSize)
+                    .putLong(sourceModified)
+                    .putLong(offset)
+                    .putLong(hashState.h1())
+                    .putLong(hashState.h2())
+                    .putLong(hashState.length())
+                    .flip();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, buffer, 0);
+                channel.force(true);
+            }
+            publish(tmp, file);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.nn.exportservice.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory channel between two stages. The writing stage fills chunks that the reading stage takes
+ * in order; once all chunks are in flight the writer waits, so a slow stage holds back the ones before it
+ * instead of buffering the file. Full chunks are handed back for reuse. Either side can abort the pipe,
+ * which fails the other side's next read or write rather than leaving it blocked.
+ * Uses locks rather than monitors, so stages on virtual threads do not pin their carrier while waiting.
+ */
+final class StagePipe {
+
+    static final String ABORTED = "Stage pipeline aborted";
+
+    private static final byte[] END = new byte[0];
+    private static final long POLL_MILLIS = 100;
+
+    private final int chunkSize;
+    private final BlockingQueue<byte[]> chunks;
+    private final BlockingQueue<byte[]> free;
+    private volatile boolean aborted;
+
+    StagePipe(int chunkSize, int chunkCount) {
+        this.chunkSize = chunkSize;
+        this.chunks = new ArrayBlockingQueue<>(chunkCount + 1);
+        this.free = new ArrayBlockingQueue<>(chunkCount + 1);
+    }
+
+    /**
+     * Fails both ends, called when either stage fails
+     */
+    void abort() {
+        aborted = true;
+        chunks.clear();
+    }
+
+    OutputStream output() {
+        return new Output();
+    }
+
+    InputStream input() {
+        return new Input();
+    }
+
+    private void send(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkOpen();
+            }
+            checkOpen();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while passing data to the next stage");
+        }
+    }
+
+    private byte[] receive() throws IOException {
+        try {
+            byte[] chunk;
+            while ((chunk = chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkOpen();
+            }
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the previous stage");
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (aborted) {
+            throw new IOException(ABORTED);
+        }
+    }
+
+    private final class Output extends OutputStream {
+
+        private byte[] chunk;
+        private int used;
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stage output closed");
+            }
+            while (length > 0) {
+                if (chunk == null) {
+                    byte[] reused = free.poll();
+                    chunk = reused != null ? reused : new byte[chunkSize];
+                    used = 0;
+                }
+                int copied = Math.min(length, chunkSize - used);
+                System.arraycopy(bytes, offset, chunk, used, copied);
+                used += copied;
+                offset += copied;
+                length -= copied;
+                if (used == chunkSize) {
+                    send(chunk);
+                    chunk = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (chunk != null && used > 0) {
+                send(Arrays.copyOf(chunk, used));
+            }
+            chunk = null;
+            send(END);
+        }
+    }
+
+    private final class Input extends InputStream {
+
+        private byte[] chunk;
+        private int position;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (chunk == null || position == chunk.length) {
+                if (ended) {
+                    return -1;
+                }
+                if (chunk != null && chunk.length == chunkSize) {
+                    free.offer(chunk);
+                }
+                chunk = receive();
+                position = 0;
+                if (chunk == END) {
+                    ended = true;
+                }
+            }
+            int copied = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, bytes, offset, copied);
+            position += copied;
+            return copied;
+        }
+
+        @Override
+        public void close() {
+            if (!ended) {
+                abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.nn.exportservice.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Runs a file through a chain of {@link ExportStage}s. Every stage runs on its own thread, connected to the
+ * next by a bounded in-memory pipe, so the stages work on different parts of the file at the same time and
+ * nothing between them is written to disk. The last stage writes {@code <target>.part}, which replaces the
+ * target once every stage has succeeded; a failed stage aborts the others and leaves no target behind.
+ * So does a stage that returns before the end of its input.
+ */
+public class StagePipeline {
+
+    private static final int CHUNKS_PER_PIPE = 4;
+
+    private final ExecutorService stageExecutor;
+    private final int chunkSize;
+
+    /**
+     * @param stageExecutor runs the stages, one task per stage and file
+     * @param chunkSize bytes passed between stages at a time
+     */
+    public StagePipeline(ExecutorService stageExecutor, int chunkSize) {
+        this.stageExecutor = stageExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the name of the file the stages write for the given input name
+     */
+    public static String targetName(List<ExportStage> stages, String fileName) {
+        String name = fileName;
+        for (ExportStage stage : stages) {
+            name = stage.targetName(name);
+        }
+        return name;
+    }
+
+    /**
+     * Processes the source into the target, leaving the source in place. The target keeps the
+     * modification time of the source.
+     *
+     * @param stageTimes receives the name of every stage that succeeded and the nanoseconds it ran
+     * @throws IOException the failure of the stage that failed first
+     */
+    public void run(Path source, Path target, List<ExportStage> stages, ObjLongConsumer<String> stageTimes)
+            throws IOException {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("No stages to run");
+        }
+        Path part = ResumableFileCopier.partFile(target);
+        List<StagePipe> pipes = new ArrayList<>();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), chunkSize)) {
+            InputStream input = in;
+            for (int i = 0; i < stages.size(); i++) {
+                boolean last = i == stages.size() - 1;
+                StagePipe pipe = last ? null : new StagePipe(chunkSize, CHUNKS_PER_PIPE);
+                if (pipe != null) {
+                    pipes.add(pipe);
+                }
+                ExportStage stage = stages.get(i);
+                InputStream stageInput = input;
+                OutputStream stageOutput = last ? out : pipe.output();
+                running.add(CompletableFuture.runAsync(
+                        () -> runStage(stage, stageInput, stageOutput, !last, stageTimes), stageExecutor));
+                input = last ? null : pipe.input();
+            }
+            await(running, pipes);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        Files.setLastModifiedTime(part, Files.getLastModifiedTime(source));
+        try {
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void runStage(ExportStage stage, InputStream input, OutputStream output, boolean closeOutput,
+                                 ObjLongConsumer<String> stageTimes) {
+        long started = System.nanoTime();
+        try {
+            try {
+                stage.process(input, output);
+            } finally {
+                // a stage that stopped reading early aborts its input pipe, so the stage before it fails
+                // instead of waiting for room forever
+                input.close();
+            }
+            if (closeOutput) {
+                output.close();
+            } else {
+                output.flush();
+            }
+            stageTimes.accept(stage.name(), System.nanoTime() - started);
+        } catch (IOException e) {
+            throw new UncheckedIOException(new IOException("Stage " + stage.name() + " failed: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Waits for every stage. The first failure aborts all pipes, so stages blocked on their neighbours fail too.
+     */
+    private static void await(List<CompletableFuture<Void>> running, List<StagePipe> pipes) throws IOException {
+        running.forEach(stage -> stage.whenComplete((ignored, error) -> {
+            if (error != null) {
+                pipes.forEach(StagePipe::abort);
+            }
+        }));
+        try {
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // report the stage that failed first rather than one aborted by it
+            for (CompletableFuture<Void> stage : running) {
+                Throwable cause = stage.handle((ignored, error) -> error).join();
+                cause = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+                if (cause instanceof UncheckedIOException unchecked) {
+                    if (!isAbort(unchecked.getCause())) {
+                        throw unchecked.getCause();
+                    }
+                } else if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+            }
+            throw new IOException("Stage pipeline aborted", e.getCause());
+        }
+    }
+
+    private static boolean isAbort(IOException e) {
+        return e.getCause() instanceof IOException cause && StagePipe.ABORTED.equals(cause.getMessage());
+    }
+}
@@ -0,0 +1,79 @@
+package com.nn.exportservice.logging;
+
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.model.FileOperationResult;
+import org.slf4j.Logger;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-batch file logging. In DETAILED mode every file is logged, in SAMPLED mode only
+ * 1 in N successful moves, the first failures with stack trace, 1 in N later failures
+ * without stack trace, and an aggregate line when the batch completes.
+ */
+public class BatchLogger {
+
+    private final Logger log;
+    private final ExportLoggingProperties properties;
+    private final boolean sampled;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Map<String, LongAdder> failuresByCause = new ConcurrentHashMap<>();
+
+    public BatchLogger(Logger log, ExportLoggingProperties properties) {
+        this.log = log;
+        this.properties = properties;
+        this.sampled = properties.mode() == ExportLoggingProperties.Mode.SAMPLED;
+    }
+
+    public void fileMoved(String fileName, Path from, Path to) {
+        long count = successes.incrementAndGet();
+        if (!sampled) {
+            log.info("filename={} from={} to={}", fileName, from, to);
+        } else if (isSampled(count, properties.successSampleRate())) {
+            log.info("filename={} from={} to={} sample={}", fileName, from, to, count);
+        }
+    }
+
+    public void fileFailed(String fileName, Exception e) {
+        long count = failures.incrementAndGet();
+        if (!sampled) {
+            log.error("failed to move file filename={} error={}", fileName, e.getMessage(), e);
+            return;
+        }
+        failuresByCause.computeIfAbsent(e.getClass().getSimpleName(), cause -> new LongAdder()).increment();
+        if (count <= properties.failureDetailLimit()) {
+            log.error("failed to move file filename={} error={}", fileName, e.getMessage(), e);
+        } else if (isSampled(count - properties.failureDetailLimit(), properties.failureSampleRate())) {
+            log.error("failed to move file filename={} error={} sample={}", fileName, e.getMessage(), count);
+        }
+    }
+
+    /**
+     * Logs the batch aggregate
+     */
+    public void completed(FileOperationResult result) {
+        if (!sampled) {
+            log.info("moved {} files, {} errors, {} duplicates",
+                    result.getSuccessCount(), result.getErrorCount(), result.getDuplicateCount());
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long filesPerSecond = elapsedMillis == 0 ? result.getSuccessCount() : result.getSuccessCount() * 1000L / elapsedMillis;
+        Map<String, Long> causes = new TreeMap<>();
+        failuresByCause.forEach((cause, counter) -> causes.put(cause, counter.sum()));
+        log.info("moved {} files, {} errors, {} duplicates elapsedMs={} filesPerSecond={} failureCauses={}",
+                result.getSuccessCount(), result.getErrorCount(), result.getDuplicateCount(),
+                elapsedMillis, filesPerSecond, causes);
+    }
+
+    private static boolean isSampled(long count, int rate) {
+        return rate > 0 && (count - 1) % rate == 0;
+    }
+}
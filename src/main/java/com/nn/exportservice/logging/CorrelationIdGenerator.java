@@ -0,0 +1,33 @@
+package com.nn.exportservice.logging;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered correlation ids in UUID version 7 layout without touching SecureRandom.
+ * The 48 bit millisecond timestamp never goes backwards and the 62 bit counter is shared by all
+ * threads, so ids are unique and monotonic within the process.
+ * The counter and the 12 bit instance tag are seeded once from ThreadLocalRandom to keep ids of
+ * different instances apart.
+ */
+public final class CorrelationIdGenerator {
+
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+    private static final long COUNTER_MASK = 0x3fffffffffffffffL;
+
+    private static final long INSTANCE_TAG = ThreadLocalRandom.current().nextLong() & 0x0fffL;
+    private static final AtomicLong COUNTER = new AtomicLong(ThreadLocalRandom.current().nextLong() & (COUNTER_MASK >>> 1));
+    private static final AtomicLong LAST_MILLIS = new AtomicLong();
+
+    private CorrelationIdGenerator() {
+    }
+
+    public static String next() {
+        long millis = LAST_MILLIS.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        long mostSignificantBits = (millis << 16) | VERSION_7 | INSTANCE_TAG;
+        long leastSignificantBits = VARIANT_IETF | (COUNTER.incrementAndGet() & COUNTER_MASK);
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
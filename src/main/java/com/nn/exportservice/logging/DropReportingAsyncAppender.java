@@ -0,0 +1,98 @@
+package com.nn.exportservice.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Non-blocking async appender with a bounded queue. Events that do not fit into the queue are
+ * dropped and counted, and the number of dropped events is reported as a WARN line once the queue
+ * has room again, or when the appender stops. Use with neverBlock=true and discardingThreshold=0.
+ * <p>
+ * Events are prepared for the worker (message formatting, MDC copy, caller data) on the logging thread
+ * without any lock. Only the capacity check and the offer itself are done one producer at a time, so the
+ * only other party touching the queue is the worker, which only ever frees room. Free room seen before an
+ * offer therefore guarantees the offer succeeds, and an event is counted as dropped exactly when it was
+ * not enqueued. The section under the lock is about as short as the queue's own locked offer.
+ */
+public class DropReportingAsyncAppender extends AsyncAppender {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong pendingDropped = new AtomicLong();
+    private final AtomicLong totalDropped = new AtomicLong();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // the expensive part, cached on the event so the preprocess in super.append is a lookup
+        preprocess(event);
+        lock.lock();
+        try {
+            int remaining = getRemainingCapacity();
+            if (remaining == 0) {
+                pendingDropped.incrementAndGet();
+                totalDropped.incrementAndGet();
+                return;
+            }
+            long dropped = pendingDropped.get();
+            if (dropped > 0 && remaining > 1) {
+                pendingDropped.set(0);
+                super.append(droppedEventsReport(dropped));
+            }
+            super.append(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports drops not reported yet before the worker drains the queue, waiting up to the max flush
+     * time for room in a full queue
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        lock.lock();
+        try {
+            long dropped = pendingDropped.getAndSet(0);
+            if (dropped > 0) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getMaxFlushTime());
+                while (getRemainingCapacity() == 0 && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                if (getRemainingCapacity() > 0) {
+                    super.append(droppedEventsReport(dropped));
+                } else {
+                    addWarn("Dropped " + dropped + " log events, " + totalDropped.get()
+                            + " in total, and the queue stayed full while stopping");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        super.stop();
+    }
+
+    public long getTotalDropped() {
+        return totalDropped.get();
+    }
+
+    private ILoggingEvent droppedEventsReport(long dropped) {
+        LoggerContext loggerContext = (LoggerContext) getContext();
+        return new LoggingEvent(
+                DropReportingAsyncAppender.class.getName(),
+                loggerContext.getLogger(DropReportingAsyncAppender.class),
+                Level.WARN,
+                "async appender [{}] dropped {} log events because its queue was full, {} dropped in total",
+                null,
+                new Object[]{getName(), dropped, totalDropped.get()});
+    }
+}
@@ -0,0 +1,97 @@
+package com.nn.exportservice.logging;
+
+import com.nn.exportservice.config.TracingProperties;
+import com.nn.exportservice.model.FileType;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Observations of an export: an {@code export.batch} span per manual or scheduled export carrying the
+ * correlation id of its {@link LoggingContext}, {@code export.scan} and {@code export.move} child spans,
+ * and an {@code export.file} span for a sample of the moved files.
+ * File spans run on the destination workers, so their parent is captured when the move is queued.
+ */
+@Component
+public class ExportTracing {
+
+    public static final String BATCH = "export.batch";
+    public static final String SCAN = "export.scan";
+    public static final String MOVE = "export.move";
+    public static final String DIRECTORY = "export.directory";
+    public static final String FILE = "export.file";
+
+    private final ObservationRegistry observationRegistry;
+    private final int fileSampleRate;
+    private final AtomicLong files = new AtomicLong();
+
+    public ExportTracing(ObservationRegistry observationRegistry, TracingProperties tracingProperties) {
+        this.observationRegistry = observationRegistry;
+        this.fileSampleRate = tracingProperties.fileSampleRate();
+    }
+
+    /**
+     * Tracing that records nothing
+     */
+    public static ExportTracing disabled() {
+        return new ExportTracing(ObservationRegistry.NOOP, new TracingProperties(0));
+    }
+
+    /**
+     * @param trigger what started the export, e.g. {@code manual} or {@code scheduled}
+     */
+    public <T> T batch(String trigger, FileType fileType, Supplier<T> body) {
+        String correlationId = LoggingContext.getCorrelationId();
+        return Observation.createNotStarted(BATCH, observationRegistry)
+                .contextualName("export " + fileType.id())
+                .lowCardinalityKeyValue("file.type", fileType.id())
+                .lowCardinalityKeyValue("trigger", trigger)
+                .highCardinalityKeyValue("correlation.id", correlationId == null ? "none" : correlationId)
+                .observe(body);
+    }
+
+    /**
+     * Child span of the current observation, e.g. {@link #SCAN} or {@link #MOVE}
+     */
+    public <T> T span(String name, FileType fileType, Supplier<T> body) {
+        return Observation.createNotStarted(name, observationRegistry)
+                .lowCardinalityKeyValue("file.type", fileType == null ? "none" : fileType.id())
+                .observe(body);
+    }
+
+    /**
+     * @return the observation in scope on this thread, null if none
+     */
+    public Observation current() {
+        return observationRegistry.getCurrentObservation();
+    }
+
+    /**
+     * Runs the task with the given observation in scope, so spans it starts become its children
+     */
+    public void runWithin(Observation parent, Runnable task) {
+        if (parent == null) {
+            task.run();
+            return;
+        }
+        parent.scoped(task);
+    }
+
+    /**
+     * Wraps the move of one file in an {@link #FILE} span under the given parent, for 1 in N files
+     */
+    public Runnable file(Observation parent, FileType fileType, String fileName, String destination, Runnable move) {
+        if (fileSampleRate <= 0 || observationRegistry.isNoop() || files.getAndIncrement() % fileSampleRate != 0) {
+            return move;
+        }
+        Observation observation = Observation.createNotStarted(FILE, observationRegistry)
+                .parentObservation(parent)
+                .lowCardinalityKeyValue("file.type", fileType == null ? "none" : fileType.id())
+                .lowCardinalityKeyValue("destination", destination)
+                .highCardinalityKeyValue("file.name", fileName);
+        return () -> observation.observe(move);
+    }
+}
@@ -2,7 +2,8 @@ package com.nn.exportservice.logging;
 
 import org.slf4j.MDC;
 
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class LoggingContext {
 
@@ -36,7 +37,59 @@ public class LoggingContext {
         MDC.put(FILE_TYPE, fileType);
     }
 
+    /**
+     * @return a copy of the current thread's logging context, null if empty
+     */
+    public static Map<String, String> capture() {
+        return MDC.getCopyOfContextMap();
+    }
+
+    /**
+     * Runs the task with the given logging context and restores the previous one afterwards
+     */
+    public static void runWith(Map<String, String> context, Runnable task) {
+        Map<String, String> previous = capture();
+        restore(context);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Binds the caller's logging context to a task that may run on another thread
+     */
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = capture();
+        return () -> runWith(context, task);
+    }
+
+    /**
+     * Binds the caller's logging context to a task that may run on another thread
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Map<String, String> context = capture();
+        return () -> {
+            Map<String, String> previous = capture();
+            restore(context);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
     private static String generateCorrelationId() {
-        return UUID.randomUUID().toString();
+        return CorrelationIdGenerator.next();
     }
 }
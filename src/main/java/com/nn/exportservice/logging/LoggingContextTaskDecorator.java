@@ -0,0 +1,17 @@
+package com.nn.exportservice.logging;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's logging context (correlation id, operation, file type)
+ * into tasks run by Spring managed executors, including virtual thread executors
+ */
+@Component
+public class LoggingContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return LoggingContext.wrap(runnable);
+    }
+}
@@ -2,6 +2,7 @@ package com.nn.exportservice.mapper;
 
 import com.nn.exportservice.dto.ErrorDetail;
 import com.nn.exportservice.dto.FileExportResponse;
+import com.nn.exportservice.dto.FileStatistics;
 import com.nn.exportservice.model.FileOperationResult;
 import com.nn.exportservice.model.FileType;
 import org.springframework.stereotype.Component;
@@ -15,12 +16,18 @@ public class FileExportMapper {
         List<ErrorDetail> errors = result.getErrors().stream()
                 .map(error -> new ErrorDetail(error.fileName(), error.errorMessage()))
                 .toList();
+        List<FileStatistics> statistics = result.getStatistics().stream()
+                .map(file -> new FileStatistics(file.fileName(), file.exportedFileName(), file.records(), file.bytes(),
+                        file.firstTimestamp(), file.lastTimestamp()))
+                .toList();
 
         return new FileExportResponse(
                 fileType.name(),
                 result.getSuccessCount(),
                 result.getSuccessfulFiles(),
-                errors
+                errors,
+                result.getDuplicateFiles(),
+                statistics
         );
     }
 }
@@ -1,18 +1,25 @@
 package com.nn.exportservice.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Result of file operation containing successful and failed file names
+ * Result of file operation containing successful, failed and duplicate file names,
+ * and the record statistics of exported files whose type counts them.
+ * Thread-safe, moves of one batch may complete on the workers of several destinations.
  */
 public class FileOperationResult {
     private final List<String> successfulFiles;
     private final List<FileOperationError> errors;
+    private final List<String> duplicateFiles;
+    private final List<FileStatistics> statistics;
 
     public FileOperationResult() {
-        this.successfulFiles = new ArrayList<>();
-        this.errors = new ArrayList<>();
+        this.successfulFiles = Collections.synchronizedList(new ArrayList<>());
+        this.errors = Collections.synchronizedList(new ArrayList<>());
+        this.duplicateFiles = Collections.synchronizedList(new ArrayList<>());
+        this.statistics = Collections.synchronizedList(new ArrayList<>());
     }
 
     public void addSuccess(String fileName) {
@@ -23,6 +30,14 @@ public class FileOperationResult {
         errors.add(new FileOperationError(fileName, errorMessage));
     }
 
+    public void addDuplicate(String fileName) {
+        duplicateFiles.add(fileName);
+    }
+
+    public void addStatistics(FileStatistics fileStatistics) {
+        statistics.add(fileStatistics);
+    }
+
     public List<String> getSuccessfulFiles() {
         return new ArrayList<>(successfulFiles);
     }
@@ -31,6 +46,14 @@ public class FileOperationResult {
         return new ArrayList<>(errors);
     }
 
+    public List<String> getDuplicateFiles() {
+        return new ArrayList<>(duplicateFiles);
+    }
+
+    public List<FileStatistics> getStatistics() {
+        return new ArrayList<>(statistics);
+    }
+
     public int getSuccessCount() {
         return successfulFiles.size();
     }
@@ -39,6 +62,10 @@ public class FileOperationResult {
         return errors.size();
     }
 
+    public int getDuplicateCount() {
+        return duplicateFiles.size();
+    }
+
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
@@ -48,4 +75,12 @@ public class FileOperationResult {
     }
 
     public record FileOperationError(String fileName, String errorMessage) {}
+
+    /**
+     * @param exportedFileName name of the file in the export folder, differs from the file name if stages rename it
+     * @param records records of the file as it arrived, without header and trailer lines
+     * @param bytes size of the file as it arrived
+     */
+    public record FileStatistics(String fileName, String exportedFileName, long records, long bytes,
+                                 String firstTimestamp, String lastTimestamp) {}
 }
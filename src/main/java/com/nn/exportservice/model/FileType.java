@@ -1,20 +1,157 @@
 package com.nn.exportservice.model;
 
+import lombok.Builder;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
 /**
- * Enum representing different file types with their corresponding prefix patterns
+ * A configured feed: files whose name matches the pattern are exported to the export folder of the type
+ * on its cron schedule, or at an adaptive interval. Priority breaks dispatch ties (lower is more urgent) and the target latency
+ * is the time allowed from arrival to export. Components left out of the builder are null, or empty for the lists.
+ *
+ * @param id lower-case name used in configuration, the REST path and the CLI, e.g. {@code own-and-ben}
+ * @param pattern file name prefix, or a glob when it contains {@code *} or {@code ?}
+ * @param cron Spring cron expression, blank or {@code -} for manual exports only
+ * @param exportFolder export folder of the type, null for the default export folder
+ * @param polling adaptive scan interval used instead of the cron expression, null to scan on the cron
+ * @param fanOutFolders further folders every file of the type is published to besides its export folder
+ * @param stages names of the export stages every file of the type runs through, in order, empty to move files as they are
+ * @param validation content checks a file has to pass to be exported, null to export files unchecked
+ * @param statistics how records of the type are counted during export, null to not count them
+ * @param split how large files of the type are split into parts on export, null to export them whole
  */
-public enum FileType {
-    REDEMPTION("redemption"),
-    OUTPAY("outpay"),
-    OWN_AND_BEN("own_and_ben");
+@Builder(toBuilder = true)
+public record FileType(
+    String id,
+    String pattern,
+    int priority,
+    Duration targetLatency,
+    String cron,
+    String exportFolder,
+    AdaptivePolling polling,
+    List<String> fanOutFolders,
+    List<String> stages,
+    Validation validation,
+    Statistics statistics,
+    Split split
+) {
+
+    private static final String CRON_DISABLED = "-";
+
+    public FileType {
+        fanOutFolders = fanOutFolders == null ? List.of() : List.copyOf(fanOutFolders);
+        stages = stages == null ? List.of() : List.copyOf(stages);
+    }
+
+    /**
+     * Upper-case name used in responses and the logging context, e.g. {@code OWN_AND_BEN}
+     */
+    public String name() {
+        return id.replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * The pattern as a glob matching whole file names
+     */
+    public String glob() {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 ? pattern : pattern + "*";
+    }
+
+    /**
+     * @param arrivalMillis epoch millis the file arrived, its last modified time
+     * @return epoch millis the file should be exported by
+     */
+    public long deadline(long arrivalMillis) {
+        return arrivalMillis + targetLatency.toMillis();
+    }
+
+    public boolean isScheduled() {
+        return cron != null && !cron.isBlank() && !CRON_DISABLED.equals(cron.trim());
+    }
+
+    public boolean isAdaptive() {
+        return polling != null;
+    }
 
-    private final String prefixPattern;
+    public boolean isFanOut() {
+        return !fanOutFolders.isEmpty();
+    }
+
+    public boolean isProcessed() {
+        return !stages.isEmpty();
+    }
+
+    public boolean isValidated() {
+        return validation != null;
+    }
+
+    public boolean isCounted() {
+        return statistics != null;
+    }
 
-    FileType(String prefixPattern) {
-        this.prefixPattern = prefixPattern;
+    public boolean isSplit() {
+        return split != null;
     }
 
-    public String getPrefixPattern() {
-        return prefixPattern;
+    /**
+     * Bounds of a scan interval that follows the arrival rate of the files
+     */
+    public record AdaptivePolling(Duration minInterval, Duration maxInterval) {
+
+        public AdaptivePolling {
+            if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+                throw new IllegalArgumentException("Adaptive polling needs 0 < min-interval <= max-interval");
+            }
+        }
+    }
+
+    /**
+     * Expected layout of a delimited text file. Files that do not match are moved to the reject folder
+     * instead of being exported.
+     *
+     * @param header expected first line, null for none
+     * @param columns expected columns per record, 0 to not check them
+     * @param trailer true if the last line holds the number of records in its last field
+     * @param rejectFolder folder invalid files are moved to, each with a {@code <name>.reason} file
+     */
+    public record Validation(Charset encoding, String header, char delimiter, int columns, boolean trailer,
+                             String rejectFolder) {
+
+        public Validation {
+            if (rejectFolder == null || rejectFolder.isBlank()) {
+                throw new IllegalArgumentException("Validation needs a reject-folder");
+            }
+            encoding = encoding == null ? StandardCharsets.UTF_8 : encoding;
+        }
+    }
+
+    /**
+     * Layout used to count the records of a file as it is exported
+     *
+     * @param headerLines lines before the first record
+     * @param trailerLines lines after the last record
+     * @param timestampColumn column holding the record timestamp, counted from 1, 0 for none
+     * @param manifest true to write a manifest of every batch into the export folder
+     */
+    public record Statistics(int headerLines, int trailerLines, int timestampColumn, char delimiter, boolean manifest) {}
+
+    /**
+     * Splitting of large files into parts at line boundaries, described by a {@code <name>.index} file
+     *
+     * @param threshold size in bytes above which a file is split
+     * @param parts number of parts a file is split into
+     * @param headerLines lines at the start of a file that are repeated at the start of every part
+     */
+    public record Split(long threshold, int parts, int headerLines) {
+
+        public Split {
+            if (parts < 2 || threshold < 0 || headerLines < 0) {
+                throw new IllegalArgumentException("Split needs parts >= 2, threshold >= 0 and header-lines >= 0");
+            }
+        }
     }
 }
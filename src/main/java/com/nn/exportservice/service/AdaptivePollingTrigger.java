@@ -0,0 +1,75 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.model.FileType;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Scan schedule of a file type that follows its arrival rate between the configured min and max interval.
+ * Every scan updates an exponentially weighted estimate of files arriving per second. A scan that found
+ * files halves the interval, and shortens it further to the expected gap between arrivals. An empty scan
+ * doubles it, but not beyond the expected gap while the estimate still sees files coming, so the back-off
+ * follows the decaying estimate. The first scan runs after the min interval.
+ */
+public class AdaptivePollingTrigger implements Trigger {
+
+    private static final double SMOOTHING = 0.5;
+
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private volatile long intervalMillis;
+    private double arrivalRate;
+    private Instant lastScan;
+
+    public AdaptivePollingTrigger(FileType.AdaptivePolling polling) {
+        this.minIntervalMillis = polling.minInterval().toMillis();
+        this.maxIntervalMillis = polling.maxInterval().toMillis();
+        this.intervalMillis = minIntervalMillis;
+    }
+
+    @Override
+    public Instant nextExecution(TriggerContext triggerContext) {
+        Instant lastCompletion = triggerContext.lastCompletion();
+        Instant base = lastCompletion != null ? lastCompletion : triggerContext.getClock().instant();
+        return base.plusMillis(intervalMillis);
+    }
+
+    /**
+     * @param filesFound number of files the scan that just ran found
+     */
+    public void recordScan(int filesFound) {
+        recordScan(filesFound, Instant.now());
+    }
+
+    synchronized void recordScan(int filesFound, Instant scannedAt) {
+        if (lastScan != null) {
+            double seconds = Math.max(1, Duration.between(lastScan, scannedAt).toMillis()) / 1000.0;
+            arrivalRate = SMOOTHING * (filesFound / seconds) + (1 - SMOOTHING) * arrivalRate;
+        }
+        lastScan = scannedAt;
+
+        long expectedGapMillis = arrivalRate > 0 ? (long) (1000 / arrivalRate) : Long.MAX_VALUE;
+        long next = filesFound > 0
+                ? Math.min(intervalMillis / 2, expectedGapMillis)
+                : Math.min(saturatedDouble(intervalMillis), Math.max(intervalMillis, expectedGapMillis));
+        intervalMillis = Math.clamp(next, minIntervalMillis, maxIntervalMillis);
+    }
+
+    public Duration getInterval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    /**
+     * @return estimated files arriving per second
+     */
+    public synchronized double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    private static long saturatedDouble(long value) {
+        return value > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : value * 2;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrency limit that follows the latency and error rate of the moves it admits (additive increase,
+ * multiplicative decrease). Moves are evaluated in windows of at least the current limit. The baseline is the
+ * lowest window latency seen, drifting slowly towards higher ones so a lasting change, such as larger files,
+ * does not pin the limit. A window whose latency stays within the tolerance of the baseline raises the limit
+ * by one, if the limit was reached during it; a window slower than that, or with too many failed moves,
+ * multiplies the limit by the decrease factor.
+ */
+@Slf4j
+public class AimdLimit {
+
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double decreaseFactor;
+    private final double maxErrorRate;
+    private final int window;
+    private final IntConsumer onChange;
+
+    private int limit;
+    private int inFlight;
+    private int maxInFlight;
+    private int samples;
+    private int errors;
+    private long latencyNanos;
+    private double baselineNanos;
+
+    /**
+     * @param initialLimit starting limit, clamped to the configured bounds
+     * @param onChange called with the new limit whenever it changes
+     */
+    public AimdLimit(String name, int initialLimit, ConcurrencyProperties properties, IntConsumer onChange) {
+        this.name = name;
+        this.minLimit = Math.max(1, properties.minLimit());
+        this.maxLimit = Math.max(minLimit, properties.maxLimit());
+        this.latencyTolerance = properties.latencyTolerance();
+        this.decreaseFactor = properties.decreaseFactor();
+        this.maxErrorRate = properties.maxErrorRate();
+        this.window = Math.max(1, properties.window());
+        this.onChange = onChange;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Called when a move starts running
+     */
+    public synchronized void started() {
+        inFlight++;
+        maxInFlight = Math.max(maxInFlight, inFlight);
+    }
+
+    /**
+     * Called when a move has finished
+     *
+     * @param latencyNanos time the move ran
+     * @param succeeded false if the move failed
+     */
+    public synchronized void finished(long latencyNanos, boolean succeeded) {
+        inFlight--;
+        samples++;
+        this.latencyNanos += latencyNanos;
+        if (!succeeded) {
+            errors++;
+        }
+        if (samples >= Math.max(window, limit)) {
+            evaluate();
+        }
+    }
+
+    private void evaluate() {
+        double latency = (double) latencyNanos / samples;
+        double errorRate = (double) errors / samples;
+        if (baselineNanos == 0 || latency < baselineNanos) {
+            baselineNanos = latency;
+        } else {
+            baselineNanos += (latency - baselineNanos) * BASELINE_DRIFT;
+        }
+
+        int next = limit;
+        if (errorRate > maxErrorRate || latency > baselineNanos * latencyTolerance) {
+            next = Math.max(minLimit, (int) (limit * decreaseFactor));
+        } else if (maxInFlight >= limit) {
+            next = Math.min(maxLimit, limit + 1);
+        }
+
+        samples = 0;
+        errors = 0;
+        latencyNanos = 0;
+        maxInFlight = inFlight;
+        if (next != limit) {
+            log.debug("concurrency limit changed name={} from={} to={} latencyMs={} baselineMs={} errorRate={}",
+                    name, limit, next, latency / 1e6, baselineNanos / 1e6, errorRate);
+            limit = next;
+            onChange.accept(next);
+        }
+    }
+}
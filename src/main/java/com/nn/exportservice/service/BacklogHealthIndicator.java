@@ -0,0 +1,94 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.BacklogProperties;
+import com.nn.exportservice.model.FileType;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports pending count, pending bytes and oldest pending file age per file type.
+ * A type turns the indicator DEGRADED when its count reaches {@code backlog.degraded-count} or its oldest
+ * file is older than {@code backlog.degraded-age-factor} times its target latency, and DOWN at
+ * {@code backlog.down-count} or {@code backlog.down-age-factor}. The worst type decides the status.
+ * Only the last background scan is read, the indicator is UNKNOWN until the first one has finished.
+ * It is DOWN once that scan is older than {@code backlog.stale-refreshes} refresh intervals, as the scans
+ * since then failed and the backlog is no longer known.
+ */
+@Component
+public class BacklogHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Files are waiting longer than their target latency");
+
+    private final BacklogMonitor backlogMonitor;
+    private final FileTypeRegistry fileTypeRegistry;
+    private final BacklogProperties properties;
+
+    public BacklogHealthIndicator(BacklogMonitor backlogMonitor, FileTypeRegistry fileTypeRegistry,
+                                  BacklogProperties properties) {
+        this.backlogMonitor = backlogMonitor;
+        this.fileTypeRegistry = fileTypeRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public Health health() {
+        BacklogMonitor.Snapshot snapshot = backlogMonitor.snapshot();
+        if (snapshot == null) {
+            return Health.unknown().withDetail("reason", "Backlog not scanned yet").build();
+        }
+        Duration age = Duration.between(snapshot.takenAt(), Instant.now());
+        if (age.compareTo(properties.refreshInterval().multipliedBy(properties.staleRefreshes())) > 0) {
+            return Health.down()
+                    .withDetail("reason", "Backlog not scanned since " + snapshot.takenAt())
+                    .withDetail("scannedAt", snapshot.takenAt().toString())
+                    .build();
+        }
+        Status status = Status.UP;
+        Health.Builder builder = new Health.Builder().withDetail("scannedAt", snapshot.takenAt().toString());
+        for (FileType fileType : fileTypeRegistry.getFileTypes()) {
+            BacklogMonitor.TypeBacklog backlog = snapshot.types().get(fileType.id());
+            if (backlog == null) {
+                continue;
+            }
+            Status typeStatus = statusOf(fileType, backlog);
+            status = worse(status, typeStatus);
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("status", typeStatus.getCode());
+            details.put("pending", backlog.count());
+            details.put("pendingBytes", backlog.bytes());
+            details.put("oldestAge", backlog.oldestAge().toString());
+            builder.withDetail(fileType.id(), details);
+        }
+        return builder.status(status).build();
+    }
+
+    private Status statusOf(FileType fileType, BacklogMonitor.TypeBacklog backlog) {
+        if (backlog.count() >= properties.downCount()
+                || exceeds(backlog.oldestAge(), fileType.targetLatency(), properties.downAgeFactor())) {
+            return Status.DOWN;
+        }
+        if (backlog.count() >= properties.degradedCount()
+                || exceeds(backlog.oldestAge(), fileType.targetLatency(), properties.degradedAgeFactor())) {
+            return DEGRADED;
+        }
+        return Status.UP;
+    }
+
+    private static boolean exceeds(Duration age, Duration targetLatency, double factor) {
+        return age.toMillis() > targetLatency.toMillis() * factor;
+    }
+
+    private static Status worse(Status current, Status candidate) {
+        if (current == Status.DOWN || candidate == Status.DOWN) {
+            return Status.DOWN;
+        }
+        return current == DEGRADED || candidate == DEGRADED ? DEGRADED : Status.UP;
+    }
+}
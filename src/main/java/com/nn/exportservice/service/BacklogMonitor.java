@@ -0,0 +1,160 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.BacklogProperties;
+import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.model.FileType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pending files in the tmp folder per file type. One pass over the folder reads the attributes of every
+ * file. Once started, a background thread repeats the pass every refresh interval and health probes only
+ * read the last result, so a slow or large tmp folder never holds up a probe.
+ */
+@Slf4j
+@Component
+public class BacklogMonitor {
+
+    private final FileSystemProperties fileSystemProperties;
+    private final FileTypeRegistry fileTypeRegistry;
+    private final Duration refreshInterval;
+    private final FileStoreRegistry fileStores;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService scanner;
+
+    public BacklogMonitor(FileSystemProperties fileSystemProperties, FileTypeRegistry fileTypeRegistry,
+                          BacklogProperties backlogProperties, FileStoreRegistry fileStores) {
+        this.fileSystemProperties = fileSystemProperties;
+        this.fileStores = fileStores;
+        this.fileTypeRegistry = fileTypeRegistry;
+        this.refreshInterval = backlogProperties.refreshInterval();
+    }
+
+    /**
+     * Scans the tmp folder now and every refresh interval after the previous scan ended
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (scanner != null) {
+            return;
+        }
+        scanner = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("export-backlog").daemon(true).factory());
+        scanner.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.warn("backlog scan failed, keeping the previous snapshot error={}", e.getMessage(), e);
+            }
+        }, 0, Math.max(1, refreshInterval.toMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (scanner != null) {
+            scanner.shutdownNow();
+            scanner = null;
+        }
+    }
+
+    /**
+     * @return the last scan, null until the first one has finished
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Scans the tmp folder on the calling thread and keeps the result as the snapshot
+     *
+     * @return the new snapshot
+     */
+    public Snapshot refresh() {
+        Snapshot scanned = scan(Instant.now());
+        snapshot = scanned;
+        return scanned;
+    }
+
+    private Snapshot scan(Instant now) {
+        Map<String, Accumulator> byType = new LinkedHashMap<>();
+        for (FileType fileType : fileTypeRegistry.getFileTypes()) {
+            byType.put(fileType.id(), new Accumulator());
+        }
+        Path tmpPath = fileStores.resolve(fileSystemProperties.tmpFolder());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpPath)) {
+            for (Path file : files) {
+                FileType fileType = fileTypeRegistry.classify(file.getFileName().toString());
+                if (fileType == null) {
+                    continue;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue; // exported while scanning
+                }
+                if (attributes.isRegularFile()) {
+                    byType.get(fileType.id()).add(attributes);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.warn("tmp folder does not exist path={}", tmpPath);
+        } catch (IOException e) {
+            throw new FileSystemException("Failed to scan backlog in " + tmpPath, e);
+        }
+
+        Map<String, TypeBacklog> types = new LinkedHashMap<>();
+        byType.forEach((id, accumulator) -> types.put(id, accumulator.toBacklog(now)));
+        long elapsed = Duration.between(now, Instant.now()).toMillis();
+        log.debug("backlog scanned durationMs={} types={}", elapsed, types);
+        return new Snapshot(now, types);
+    }
+
+    /**
+     * Backlog of all file types at one point in time, keyed by file type id
+     */
+    public record Snapshot(Instant takenAt, Map<String, TypeBacklog> types) {}
+
+    /**
+     * @param oldestAge age of the oldest pending file by modification time, zero when nothing is pending
+     */
+    public record TypeBacklog(long count, long bytes, Duration oldestAge) {}
+
+    private static final class Accumulator {
+
+        private long count;
+        private long bytes;
+        private Instant oldest;
+
+        void add(BasicFileAttributes attributes) {
+            count++;
+            bytes += attributes.size();
+            Instant modified = attributes.lastModifiedTime().toInstant();
+            if (oldest == null || modified.isBefore(oldest)) {
+                oldest = modified;
+            }
+        }
+
+        TypeBacklog toBacklog(Instant now) {
+            Duration oldestAge = oldest == null || oldest.isAfter(now) ? Duration.ZERO : Duration.between(oldest, now);
+            return new TypeBacklog(count, bytes, oldestAge);
+        }
+    }
+}
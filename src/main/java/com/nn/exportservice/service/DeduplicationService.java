@@ -0,0 +1,162 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.io.Fingerprint;
+import com.nn.exportservice.io.Murmur3Hasher;
+import com.nn.exportservice.io.OffHeapFingerprintSet;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects files whose content was already exported within the configured retention window.
+ * A file being exported holds a claim on its fingerprint until it is recorded or released, so identical
+ * files moved by parallel workers or dropped again before the first one is durable are still caught.
+ * Claims are kept in memory only, a crash mid-export never leaves a fingerprint that was not exported.
+ * Both folders are resolved through {@link FileStoreRegistry}. The duplicates folder may be in a memory store,
+ * while the fingerprint store is memory-mapped and has to be on the default file system.
+ */
+@Slf4j
+@Service
+public class DeduplicationService {
+
+    private final DeduplicationProperties properties;
+    private final Path duplicatesPath;
+    private final OffHeapFingerprintSet fingerprints;
+    private final Set<Fingerprint> claimed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @throws FileSystemException if a required location is missing, or the fingerprint store is not on the
+     *         default file system or cannot be opened
+     * @throws IllegalArgumentException if a location is in a zip store
+     */
+    public DeduplicationService(DeduplicationProperties properties, FileStoreRegistry fileStores) {
+        this.properties = properties;
+        this.duplicatesPath = properties.enabled() ? duplicatesPathOf(properties, fileStores) : null;
+        this.fingerprints = properties.enabled() ? openStore(properties, fileStores) : null;
+    }
+
+    public static DeduplicationService disabled() {
+        return new DeduplicationService(new DeduplicationProperties(false, null, null, null, 0, null),
+                FileStoreRegistry.defaultOnly());
+    }
+
+    public boolean isEnabled() {
+        return fingerprints != null;
+    }
+
+    /**
+     * Computes the content fingerprint of a file
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public Fingerprint fingerprint(Path file) throws IOException {
+        return Murmur3Hasher.hash(file);
+    }
+
+    /**
+     * Claims a fingerprint for a file about to be exported. Exactly one of several concurrent callers wins,
+     * the claim lasts until {@link #record} or {@link #release} is called for it.
+     *
+     * @return false if the fingerprint is already claimed or was exported within the retention window
+     */
+    public boolean claim(Fingerprint fingerprint) {
+        if (!claimed.add(fingerprint)) {
+            return false;
+        }
+        // checked after claiming, a concurrent record adds to the store before it drops its claim
+        if (fingerprints.contains(fingerprint, System.currentTimeMillis())) {
+            claimed.remove(fingerprint);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives up a claim after its file could not be exported, so the content can be exported again
+     */
+    public void release(Fingerprint fingerprint) {
+        claimed.remove(fingerprint);
+    }
+
+    /**
+     * Remembers a fingerprint after its file was exported successfully and drops its claim
+     */
+    public void record(Fingerprint fingerprint) {
+        fingerprints.add(fingerprint, System.currentTimeMillis());
+        claimed.remove(fingerprint);
+    }
+
+    /**
+     * Removes a duplicate from the tmp folder, either by deleting it or by moving it to the duplicates folder
+     *
+     * @throws IOException if the file cannot be deleted or moved
+     */
+    public void handleDuplicate(Path sourcePath, Fingerprint fingerprint) throws IOException {
+        String fileName = sourcePath.getFileName().toString();
+        if (properties.action() == DeduplicationProperties.DuplicateAction.ROUTE) {
+            Files.createDirectories(duplicatesPath);
+            Path destinationPath = duplicatesPath.resolve(fileName);
+            if (destinationPath.getFileSystem().provider() == sourcePath.getFileSystem().provider()) {
+                Files.move(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                // another file store, a duplicate needs no fsync before its source goes
+                Files.copy(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.delete(sourcePath);
+            }
+            log.info("duplicate routed filename={} fingerprint={} to={}", fileName, fingerprint.toHex(), destinationPath);
+        } else {
+            Files.delete(sourcePath);
+            log.info("duplicate skipped filename={} fingerprint={}", fileName, fingerprint.toHex());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (fingerprints == null) {
+            return;
+        }
+        try {
+            fingerprints.close();
+        } catch (IOException e) {
+            log.error("failed to close fingerprint store error={}", e.getMessage(), e);
+        }
+    }
+
+    private static Path duplicatesPathOf(DeduplicationProperties properties, FileStoreRegistry fileStores) {
+        if (properties.action() != DeduplicationProperties.DuplicateAction.ROUTE) {
+            return null;
+        }
+        if (properties.duplicatesFolder() == null) {
+            throw new FileSystemException("deduplication.duplicates-folder is required when action is ROUTE");
+        }
+        return fileStores.resolve(properties.duplicatesFolder());
+    }
+
+    private static OffHeapFingerprintSet openStore(DeduplicationProperties properties, FileStoreRegistry fileStores) {
+        if (properties.storeFile() == null) {
+            throw new FileSystemException("deduplication.store-file is required when deduplication is enabled");
+        }
+        Path storePath = fileStores.resolve(properties.storeFile());
+        if (storePath.getFileSystem() != FileSystems.getDefault()) {
+            throw new FileSystemException("deduplication.store-file is memory-mapped and has to be on the default"
+                    + " file system: " + properties.storeFile());
+        }
+        try {
+            OffHeapFingerprintSet set = OffHeapFingerprintSet.open(storePath, properties.capacity(), properties.retention());
+            log.info("opened fingerprint store path={} capacity={} entries={}", storePath, set.capacity(), set.size());
+            return set;
+        } catch (IOException e) {
+            throw new FileSystemException("Failed to open fingerprint store: " + storePath, e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.LaneProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Export root with its own worker pools and queues, so a slow mount only delays the files routed to it.
+ * Files at or above the large file threshold move in a separate lane, so small files keep flowing
+ * while a large cross-device copy runs. Each lane runs its queued moves earliest deadline first, ties broken by
+ * type priority and then by submission order, so files queued earlier for a less urgent type do not hold back
+ * an urgent file. A destination without workers moves files on the calling thread.
+ * With adaptive concurrency, the worker count of each lane follows an {@link AimdLimit} on the latency and
+ * failures of its moves, starting from the configured workers.
+ */
+@Slf4j
+public class ExportDestination {
+
+    static final String SMALL_LANE = "small";
+    static final String LARGE_LANE = "large";
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final String name;
+    private final Path root;
+    private final long largeFileThreshold;
+    private final Lane small;
+    private final Lane large;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ExportDestination(String name, Path root, int workers, LaneProperties laneProperties,
+                             ConcurrencyProperties concurrencyProperties, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.root = root;
+        this.largeFileThreshold = laneProperties.largeFileThreshold().toBytes();
+        this.small = new Lane(SMALL_LANE, workers, concurrencyProperties, meterRegistry);
+        this.large = new Lane(LARGE_LANE, workers > 0 ? laneProperties.largeWorkers() : 0, concurrencyProperties,
+                meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return moves queued or running on this destination
+     */
+    public int pendingCount() {
+        return small.pending.get() + large.pending.get();
+    }
+
+    /**
+     * @return current worker limit of the lane, {@link #SMALL_LANE} or {@link #LARGE_LANE}
+     */
+    int limit(String lane) {
+        return (SMALL_LANE.equals(lane) ? small : large).limit();
+    }
+
+    /**
+     * Queues a move without a deadline on the lane matching the file size, behind every move that has one
+     *
+     * @param size size of the file in bytes
+     * @return completes when the move has run
+     */
+    public CompletableFuture<Void> submit(Runnable move, long size) {
+        return submit(() -> {
+            move.run();
+            return true;
+        }, size, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Queues a move that reports whether it succeeded, failures lower the limit of an adaptive lane
+     *
+     * @param size size of the file in bytes
+     * @param deadline epoch millis the file should be exported by, see {@link com.nn.exportservice.model.FileType#deadline}
+     * @param priority priority of the file type, lower is more urgent
+     * @return completes when the move has run, exceptionally if the destination was closed before it ran
+     */
+    public CompletableFuture<Void> submit(BooleanSupplier move, long size, long deadline, int priority) {
+        return (size >= largeFileThreshold ? large : small).submit(move, deadline, priority);
+    }
+
+    /**
+     * Lets queued moves finish and stops the workers
+     */
+    public void close() {
+        small.close();
+        large.close();
+    }
+
+    private final class Lane {
+
+        private final String lane;
+        private final ThreadPoolExecutor executor;
+        private final AimdLimit limit;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Timer latency;
+
+        Lane(String lane, int workers, ConcurrencyProperties concurrencyProperties, MeterRegistry meterRegistry) {
+            this.lane = lane;
+            this.limit = workers > 0 && concurrencyProperties.adaptive()
+                    ? new AimdLimit(name + "-" + lane, workers, concurrencyProperties, this::resize)
+                    : null;
+            int threads = limit != null ? limit.getLimit() : workers;
+            this.executor = workers > 0
+                    ? new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                            Thread.ofPlatform().name("export-" + name + "-" + lane + "-", 1).daemon(true).factory())
+                    : null;
+            this.latency = Timer.builder("export.lane.latency")
+                    .description("Time from queuing a move to its completion")
+                    .tag("destination", name)
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("export.lane.pending", pending, AtomicInteger::get)
+                    .description("Moves queued or running")
+                    .tag("destination", name)
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("export.lane.limit", this, Lane::limit)
+                    .description("Workers the lane may run, adjusted to latency and failures when adaptive")
+                    .tag("destination", name)
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+
+        int limit() {
+            return executor == null ? 0 : executor.getMaximumPoolSize();
+        }
+
+        /**
+         * Grows the pool before raising its core size and lowers the core size first when shrinking,
+         * surplus workers exit once their current move is done
+         */
+        private void resize(int workers) {
+            if (workers > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(workers);
+                executor.setCorePoolSize(workers);
+            } else {
+                executor.setCorePoolSize(workers);
+                executor.setMaximumPoolSize(workers);
+            }
+        }
+
+        CompletableFuture<Void> submit(BooleanSupplier move, long deadline, int priority) {
+            long queuedAt = System.nanoTime();
+            pending.incrementAndGet();
+            Runnable timedMove = () -> {
+                long startedAt = System.nanoTime();
+                boolean succeeded = false;
+                if (limit != null) {
+                    limit.started();
+                }
+                try {
+                    succeeded = move.getAsBoolean();
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    if (limit != null) {
+                        limit.finished(finishedAt - startedAt, succeeded);
+                    }
+                    pending.decrementAndGet();
+                    latency.record(finishedAt - queuedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+            QueuedMove queued = new QueuedMove(timedMove, deadline, priority, sequence.getAndIncrement());
+            if (executor == null) {
+                queued.run();
+                return queued.done;
+            }
+            try {
+                executor.execute(queued);
+                return queued.done;
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        void close() {
+            if (executor == null) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("destination did not drain in time destination={} lane={} pending={}", name, lane, pending.get());
+                    cancel();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+            }
+        }
+
+        private void cancel() {
+            for (Runnable dropped : executor.shutdownNow()) {
+                pending.decrementAndGet();
+                ((QueuedMove) dropped).done.completeExceptionally(
+                        new CancellationException("Destination " + name + " closed before the move ran"));
+            }
+        }
+    }
+
+    /**
+     * A move waiting in a lane queue, ordered earliest deadline first, then by priority and submission order
+     */
+    private static final class QueuedMove implements Runnable, Comparable<QueuedMove> {
+
+        private static final Comparator<QueuedMove> ORDER = Comparator
+                .comparingLong((QueuedMove move) -> move.deadline)
+                .thenComparingInt(move -> move.priority)
+                .thenComparingLong(move -> move.sequence);
+
+        private final Runnable move;
+        private final long deadline;
+        private final int priority;
+        private final long sequence;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        QueuedMove(Runnable move, long deadline, int priority, long sequence) {
+            this.move = move;
+            this.deadline = deadline;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                move.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(QueuedMove other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
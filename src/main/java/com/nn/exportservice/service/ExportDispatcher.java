@@ -0,0 +1,193 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.logging.BatchLogger;
+import com.nn.exportservice.logging.ExportTracing;
+import com.nn.exportservice.logging.LoggingContext;
+import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.FileType;
+import io.micrometer.observation.Observation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared dispatcher that orders pending exports of all file types by deadline (earliest deadline first).
+ * The deadline of a file is its arrival time (last modified) plus the target latency of its type,
+ * ties are broken by type priority and then by submission order.
+ * Only one thread hands files to the destination workers at a time, so under contention the most urgent
+ * files are queued first regardless of which scheduled job found them. The lanes of each destination keep
+ * the same order, so files handed over earlier do not hold back a more urgent file handed over later.
+ * Each file is moved with the logging
+ * context and within the trace of the job that submitted it, into the destination its routing rule or type selects.
+ */
+@Slf4j
+@Service
+public class ExportDispatcher {
+
+    private static final long DRAIN_RETRY_MILLIS = 100;
+
+    private final FileSystemService fileSystemService;
+    private final ExportTracing exportTracing;
+    private final PriorityBlockingQueue<ExportTask> queue = new PriorityBlockingQueue<>();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ExportDispatcher(FileSystemService fileSystemService, ExportTracing exportTracing) {
+        this.fileSystemService = fileSystemService;
+        this.exportTracing = exportTracing;
+    }
+
+    /**
+     * Queues the files for export and blocks until all of them have been processed
+     *
+     * @param fileType the type the files belong to
+     * @param files files found in the tmp folder
+     * @return FileOperationResult for the submitted files only
+     * @throws com.nn.exportservice.exception.FileSystemException if unable to create export directory
+     *         or to write the archive of a zip store
+     */
+    public FileOperationResult dispatch(FileType fileType, List<Path> files) {
+        ExportBatch batch = submit(fileType, files);
+
+        try {
+            while (!batch.isDone()) {
+                if (drainLock.tryLock()) {
+                    try {
+                        drain();
+                    } finally {
+                        drainLock.unlock();
+                    }
+                }
+                batch.await(DRAIN_RETRY_MILLIS);
+            }
+            fileSystemService.writeManifest(fileType, batch.exportPath(), batch.result());
+        } finally {
+            fileSystemService.releaseExportDirectory(batch.exportPath());
+        }
+
+        batch.batchLogger().completed(batch.result());
+        return batch.result();
+    }
+
+    int pendingCount() {
+        return queue.size();
+    }
+
+    ExportBatch submit(FileType fileType, List<Path> files) {
+        Path exportPath = fileSystemService.ensureExportDirectory(fileType);
+        ExportBatch batch = new ExportBatch(files.size(), exportPath, fileSystemService.startBatch(),
+                exportTracing.current());
+        for (Path file : files) {
+            long deadline = fileType.deadline(arrivalTime(file));
+            queue.add(new ExportTask(file, fileType, deadline, sequence.getAndIncrement(), batch));
+        }
+        return batch;
+    }
+
+    void drain() {
+        ExportTask next;
+        while ((next = queue.poll()) != null) {
+            ExportTask task = next;
+            ExportBatch batch = task.batch();
+            try {
+                LoggingContext.runWith(batch.loggingContext(), () -> exportTracing.runWithin(batch.observation(), () ->
+                        fileSystemService.submitMove(task.fileType(), task.path(), batch.exportPath(), batch.result(),
+                                        batch.batchLogger())
+                                .whenComplete((ignored, error) -> batch.complete())));
+            } catch (RuntimeException e) {
+                log.error("failed to submit file path={} error={}", task.path(), e.getMessage(), e);
+                batch.complete();
+            }
+        }
+    }
+
+    private static long arrivalTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return System.currentTimeMillis();
+        }
+    }
+
+    record ExportTask(Path path, FileType fileType, long deadline, long sequence, ExportBatch batch)
+            implements Comparable<ExportTask> {
+
+        private static final Comparator<ExportTask> ORDER = Comparator
+                .comparingLong(ExportTask::deadline)
+                .thenComparingInt(task -> task.fileType().priority())
+                .thenComparingLong(ExportTask::sequence);
+
+        @Override
+        public int compareTo(ExportTask other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    static final class ExportBatch {
+
+        private final FileOperationResult result = new FileOperationResult();
+        private final CountDownLatch remaining;
+        private final Path exportPath;
+        private final BatchLogger batchLogger;
+        private final Map<String, String> loggingContext = LoggingContext.capture();
+        private final Observation observation;
+
+        ExportBatch(int size, Path exportPath, BatchLogger batchLogger, Observation observation) {
+            this.remaining = new CountDownLatch(size);
+            this.exportPath = exportPath;
+            this.batchLogger = batchLogger;
+            this.observation = observation;
+        }
+
+        /**
+         * @return the observation the batch was submitted in, parent of its file spans, null if none
+         */
+        Observation observation() {
+            return observation;
+        }
+
+        void complete() {
+            remaining.countDown();
+        }
+
+        boolean isDone() {
+            return remaining.getCount() == 0;
+        }
+
+        FileOperationResult result() {
+            return result;
+        }
+
+        Path exportPath() {
+            return exportPath;
+        }
+
+        BatchLogger batchLogger() {
+            return batchLogger;
+        }
+
+        Map<String, String> loggingContext() {
+            return loggingContext;
+        }
+
+        private void await(long millis) {
+            try {
+                remaining.await(millis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for export dispatch", e);
+            }
+        }
+    }
+}
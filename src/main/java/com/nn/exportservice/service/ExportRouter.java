@@ -0,0 +1,138 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.LaneProperties;
+import com.nn.exportservice.config.RoutingProperties;
+import com.nn.exportservice.io.FileNameMatcher;
+import com.nn.exportservice.model.FileType;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the export destination of a file from the ordered routing rules.
+ * Files no rule matches go to the default export folder of their type, which gets its own destination too.
+ * The rules that apply to a file type are compiled into one {@link FileNameMatcher} on first use.
+ */
+@Slf4j
+@Component
+public class ExportRouter {
+
+    private static final String ANY_TYPE = "";
+
+    private final RoutingProperties properties;
+    private final LaneProperties laneProperties;
+    private final ConcurrencyProperties concurrencyProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ExportDestination> destinations = new LinkedHashMap<>();
+    private final Map<String, ExportDestination> defaultDestinations = new ConcurrentHashMap<>();
+    private final Map<String, CompiledRules> rulesByType = new ConcurrentHashMap<>();
+    private final AtomicInteger defaultSequence = new AtomicInteger();
+
+    /**
+     * @param fileStores resolves destination paths, which may be in memory stores but not in zip stores
+     * @param concurrencyProperties whether the worker count of each lane adapts to its move latency
+     */
+    public ExportRouter(RoutingProperties properties, LaneProperties laneProperties, MeterRegistry meterRegistry,
+                        FileStoreRegistry fileStores, ConcurrencyProperties concurrencyProperties) {
+        this.properties = properties;
+        this.laneProperties = laneProperties;
+        this.concurrencyProperties = concurrencyProperties;
+        this.meterRegistry = meterRegistry;
+        properties.destinations().forEach((name, destination) -> {
+            Path root = fileStores.resolve(destination.path());
+            createRoot(name, root);
+            destinations.put(name, new ExportDestination(name, root, destination.workers(), laneProperties,
+                    concurrencyProperties, meterRegistry));
+            log.info("export destination name={} root={} workers={}", name, root, destination.workers());
+        });
+        for (RoutingProperties.Rule rule : properties.rules()) {
+            if (!destinations.containsKey(rule.destination())) {
+                throw new IllegalArgumentException("Routing rule refers to unknown destination: " + rule.destination());
+            }
+        }
+    }
+
+    /**
+     * @param fileType type of the file, null to apply only rules without a file type
+     * @param fileName name of the file
+     * @param defaultRoot export folder used when no rule matches
+     */
+    public ExportDestination route(FileType fileType, String fileName, Path defaultRoot) {
+        String typeId = fileType == null ? ANY_TYPE : fileType.id();
+        CompiledRules rules = rulesByType.computeIfAbsent(typeId, this::compile);
+        int index = rules.matcher().match(fileName);
+        if (index != FileNameMatcher.NO_MATCH) {
+            return rules.destinations().get(index);
+        }
+        return defaultDestinations.computeIfAbsent(keyOf(defaultRoot),
+                key -> new ExportDestination("default-" + defaultSequence.getAndIncrement(), defaultRoot,
+                        properties.defaultWorkers(), laneProperties, concurrencyProperties, meterRegistry));
+    }
+
+    /**
+     * @return configured destinations followed by the default export folders in use
+     */
+    public List<ExportDestination> getDestinations() {
+        List<ExportDestination> all = new ArrayList<>(destinations.values());
+        all.addAll(defaultDestinations.values());
+        return all;
+    }
+
+    @PreDestroy
+    public void close() {
+        closeAll(destinations.values());
+        closeAll(defaultDestinations.values());
+    }
+
+    private CompiledRules compile(String typeId) {
+        List<String> patterns = new ArrayList<>();
+        List<ExportDestination> ruleDestinations = new ArrayList<>();
+        for (RoutingProperties.Rule rule : properties.rules()) {
+            if (rule.fileType() == null || rule.fileType().isBlank() || normalize(rule.fileType()).equals(typeId)) {
+                patterns.add(rule.pattern() == null || rule.pattern().isBlank() ? "*" : rule.pattern());
+                ruleDestinations.add(destinations.get(rule.destination()));
+            }
+        }
+        return new CompiledRules(new FileNameMatcher(patterns), ruleDestinations);
+    }
+
+    /**
+     * Folders of a zip store are resolved again for every batch, their URI identifies them across batches
+     */
+    private static String keyOf(Path root) {
+        String uri = root.toAbsolutePath().normalize().toUri().toString();
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+
+    private static String normalize(String id) {
+        return id.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static void createRoot(String name, Path root) {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            log.warn("export destination not available name={} root={} error={}", name, root, e.getMessage());
+        }
+    }
+
+    private static void closeAll(Collection<ExportDestination> destinations) {
+        destinations.forEach(ExportDestination::close);
+    }
+
+    private record CompiledRules(FileNameMatcher matcher, List<ExportDestination> destinations) {}
+}
@@ -0,0 +1,59 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.io.ExportStage;
+import com.nn.exportservice.io.GzipStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Export stages by name: the built-in {@code gzip} stage and every {@link ExportStage} bean of the application.
+ * A bean replaces a built-in stage of the same name.
+ */
+@Slf4j
+@Component
+public class ExportStageRegistry {
+
+    private final Map<String, ExportStage> stages = new LinkedHashMap<>();
+
+    /**
+     * @param customStages the {@link ExportStage} beans in their order, empty when the application defines none
+     */
+    public ExportStageRegistry(List<ExportStage> customStages) {
+        Stream.concat(builtInStages().stream(), customStages.stream())
+                .forEach(stage -> stages.put(stage.name(), stage));
+        log.info("export stages registered names={}", stages.keySet());
+    }
+
+    /**
+     * Registry of the built-in stages only
+     */
+    public static ExportStageRegistry builtIn() {
+        return new ExportStageRegistry(List.of());
+    }
+
+    /**
+     * @return the stages in the given order
+     * @throws IllegalArgumentException if a name is not registered
+     */
+    public List<ExportStage> resolve(List<String> names) {
+        List<ExportStage> resolved = new ArrayList<>(names.size());
+        for (String name : names) {
+            ExportStage stage = stages.get(name);
+            if (stage == null) {
+                throw new IllegalArgumentException("Unknown export stage: " + name + ", registered: " + stages.keySet());
+            }
+            resolved.add(stage);
+        }
+        return resolved;
+    }
+
+    private static List<ExportStage> builtInStages() {
+        return List.of(new GzipStage());
+    }
+}
@@ -0,0 +1,296 @@
+package com.nn.exportservice.service;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import com.nn.exportservice.config.FileStoreProperties;
+import com.nn.exportservice.exception.FileSystemException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named file systems folders can live in. A location {@code <store>:<path>} resolves to the path in the
+ * configured store, any other location to a path on the default file system.
+ * Memory stores live as long as the service. A zip store only writes its archive when its file system is
+ * closed, so batches exporting into it hold it open with {@link #open(String)} and {@link #release(Path)};
+ * the archive is written when the last of them releases it. Files copied into the archive are deleted from
+ * their source only after the archive has been written, so a failed write leaves them to be exported again.
+ * Anything else that must wait for the archive, like remembering the content as exported, registers with
+ * {@link #whenWritten(Path, Runnable, Runnable)}.
+ */
+@Slf4j
+@Component
+public class FileStoreRegistry {
+
+    private static final char STORE_SEPARATOR = ':';
+
+    private final Map<String, FileSystem> memoryStores = new LinkedHashMap<>();
+    private final Map<String, ZipStore> zipStores = new LinkedHashMap<>();
+
+    public FileStoreRegistry(FileStoreProperties properties) {
+        properties.stores().forEach((name, store) -> {
+            if (store.type() == null) {
+                throw new IllegalArgumentException("File store " + name + " has no type");
+            }
+            switch (store.type()) {
+                case MEMORY -> memoryStores.put(name, Jimfs.newFileSystem(Configuration.unix()));
+                case ZIP -> {
+                    if (store.path() == null || store.path().isBlank()) {
+                        throw new IllegalArgumentException("Zip store " + name + " has no path");
+                    }
+                    zipStores.put(name, new ZipStore(name, Paths.get(store.path()).toAbsolutePath()));
+                }
+            }
+            log.info("file store name={} type={} path={}", name, store.type(), store.path());
+        });
+    }
+
+    /**
+     * Registry without stores, every location is on the default file system
+     */
+    public static FileStoreRegistry defaultOnly() {
+        return new FileStoreRegistry(FileStoreProperties.defaults());
+    }
+
+    /**
+     * Resolves a location on the default file system or in a memory store
+     *
+     * @throws IllegalArgumentException if the location is in a zip store, those are reached through {@link #open(String)}
+     */
+    public Path resolve(String location) {
+        String store = storeOf(location);
+        if (store == null) {
+            return Paths.get(location);
+        }
+        if (zipStores.containsKey(store)) {
+            throw new IllegalArgumentException("Zip store locations can only be export folders: " + location);
+        }
+        return memoryStores.get(store).getPath(pathIn(location));
+    }
+
+    /**
+     * Resolves a location, opening its zip store until the matching {@link #release(Path)}
+     *
+     * @throws FileSystemException if the archive cannot be opened
+     */
+    public Path open(String location) {
+        String store = storeOf(location);
+        ZipStore zipStore = store == null ? null : zipStores.get(store);
+        if (zipStore == null) {
+            return resolve(location);
+        }
+        return zipStore.open().getPath(pathIn(location));
+    }
+
+    /**
+     * Ends the use of a path returned by {@link #open(String)}. When it was the last user of a zip store,
+     * the archive is written and the sources of the files copied into it are deleted.
+     *
+     * @throws FileSystemException if the archive cannot be written, its sources are then left in place
+     */
+    public void release(Path path) {
+        ZipStore zipStore = zipStoreOf(path);
+        if (zipStore != null) {
+            zipStore.release();
+        }
+    }
+
+    /**
+     * @return the path on the open file system of its store, for a path resolved in an earlier use of a zip store
+     */
+    public Path current(Path path) {
+        if (path.getFileSystem().isOpen()) {
+            return path;
+        }
+        ZipStore zipStore = zipStoreOf(path);
+        FileSystem fileSystem = zipStore == null ? null : zipStore.fileSystem();
+        if (fileSystem == null) {
+            throw new FileSystemException("File store of " + path.toUri() + " is closed");
+        }
+        return fileSystem.getPath(path.toString());
+    }
+
+    /**
+     * Defers deleting the source of a copy into a zip store until its archive has been written
+     *
+     * @return false if the target is not in a zip store and the caller deletes the source itself
+     */
+    public boolean deleteWhenWritten(Path source, Path target) {
+        ZipStore zipStore = zipStoreOf(target);
+        return zipStore != null && zipStore.deleteWhenWritten(source);
+    }
+
+    /**
+     * Defers an action until the archive holding the target has been written
+     *
+     * @param written runs once the archive has been written
+     * @param failed runs if writing the archive fails
+     * @return false if the target is not in a zip store and nothing was deferred
+     */
+    public boolean whenWritten(Path target, Runnable written, Runnable failed) {
+        ZipStore zipStore = zipStoreOf(target);
+        return zipStore != null && zipStore.whenWritten(written, failed);
+    }
+
+    @PreDestroy
+    public void close() {
+        zipStores.values().forEach(ZipStore::closeAll);
+        for (FileSystem fileSystem : memoryStores.values()) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                log.warn("failed to close memory store error={}", e.getMessage());
+            }
+        }
+    }
+
+    private String storeOf(String location) {
+        int separator = location.indexOf(STORE_SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        String store = location.substring(0, separator);
+        return memoryStores.containsKey(store) || zipStores.containsKey(store) ? store : null;
+    }
+
+    private static String pathIn(String location) {
+        String path = location.substring(location.indexOf(STORE_SEPARATOR) + 1);
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    private ZipStore zipStoreOf(Path path) {
+        if (zipStores.isEmpty() || path.getFileSystem() == FileSystems.getDefault()) {
+            return null;
+        }
+        String uri = path.toUri().toString();
+        for (ZipStore zipStore : zipStores.values()) {
+            if (zipStore.contains(uri)) {
+                return zipStore;
+            }
+        }
+        return null;
+    }
+
+    private static final class ZipStore {
+
+        private final String name;
+        private final Path archive;
+        private final List<Path> writtenSources = new ArrayList<>();
+        private final List<Runnable> onWritten = new ArrayList<>();
+        private final List<Runnable> onFailed = new ArrayList<>();
+        private volatile String uriPrefix;
+        private FileSystem fileSystem;
+        private int users;
+
+        ZipStore(String name, Path archive) {
+            this.name = name;
+            this.archive = archive;
+        }
+
+        boolean contains(String uri) {
+            String prefix = uriPrefix;
+            return prefix != null && uri.startsWith(prefix);
+        }
+
+        synchronized FileSystem fileSystem() {
+            return fileSystem;
+        }
+
+        synchronized FileSystem open() {
+            if (fileSystem == null) {
+                try {
+                    Files.createDirectories(archive.getParent());
+                    // entries go to temporary files instead of the heap until the archive is written
+                    fileSystem = FileSystems.newFileSystem(archive,
+                            Map.of("create", "true", "useTempFile", Boolean.TRUE));
+                    uriPrefix = fileSystem.getPath("/").toUri().toString();
+                } catch (IOException e) {
+                    throw new FileSystemException("Failed to open zip store " + name + ": " + archive, e);
+                }
+            }
+            users++;
+            return fileSystem;
+        }
+
+        synchronized boolean deleteWhenWritten(Path source) {
+            if (fileSystem == null) {
+                return false;
+            }
+            writtenSources.add(source);
+            return true;
+        }
+
+        synchronized boolean whenWritten(Runnable written, Runnable failed) {
+            if (fileSystem == null) {
+                return false;
+            }
+            onWritten.add(written);
+            onFailed.add(failed);
+            return true;
+        }
+
+        synchronized void release() {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+            List<Path> sources = List.copyOf(writtenSources);
+            List<Runnable> written = List.copyOf(onWritten);
+            List<Runnable> failed = List.copyOf(onFailed);
+            writtenSources.clear();
+            onWritten.clear();
+            onFailed.clear();
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                log.error("failed to write zip store name={} archive={} files={} error={}", name, archive,
+                        sources.size(), e.getMessage(), e);
+                failed.forEach(ZipStore::runQuietly);
+                throw new FileSystemException("Failed to write zip store " + name + ": " + archive, e);
+            } finally {
+                fileSystem = null;
+            }
+            written.forEach(ZipStore::runQuietly);
+            for (Path source : sources) {
+                try {
+                    Files.delete(source);
+                } catch (NoSuchFileException e) {
+                    // removed in the meantime, nothing left to clean up
+                } catch (IOException e) {
+                    log.warn("failed to delete exported file path={} error={}", source, e.getMessage());
+                }
+            }
+            log.info("zip store written name={} archive={} files={}", name, archive, sources.size());
+        }
+
+        private static void runQuietly(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.warn("zip store callback failed error={}", e.getMessage(), e);
+            }
+        }
+
+        synchronized void closeAll() {
+            if (fileSystem != null) {
+                users = 1;
+                try {
+                    release();
+                } catch (FileSystemException e) {
+                    // logged by release, the sources stay for the next run
+                }
+            }
+        }
+    }
+}
@@ -1,14 +1,55 @@
 package com.nn.exportservice.service;
 
+import com.nn.exportservice.config.CopyProperties;
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.config.DurabilityProperties;
 import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.config.PipelineProperties;
 import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.io.BufferPool;
+import com.nn.exportservice.io.DelimitedFileValidator;
+import com.nn.exportservice.io.ExportStage;
+import com.nn.exportservice.io.FanOutPublisher;
+import com.nn.exportservice.io.FileSplitter;
+import com.nn.exportservice.io.FileSyncer;
+import com.nn.exportservice.io.Fingerprint;
+import com.nn.exportservice.io.PooledFileCopier;
+import com.nn.exportservice.io.RecordCounter;
+import com.nn.exportservice.io.ResumableFileCopier;
+import com.nn.exportservice.io.StagePipeline;
+import com.nn.exportservice.logging.BatchLogger;
+import com.nn.exportservice.logging.ExportTracing;
+import com.nn.exportservice.logging.LoggingContext;
 import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.FileType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -16,10 +57,121 @@ import java.util.stream.Stream;
 @Service
 public class FileSystemService {
 
+    /**
+     * Suffix of the file beside a rejected file that holds the reason it was rejected
+     */
+    public static final String REASON_SUFFIX = ".reason";
+
+    private static final DateTimeFormatter MANIFEST_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS").withZone(ZoneOffset.UTC);
+    private static final String MANIFEST_HEADER = "file,exported_file,records,bytes,first_timestamp,last_timestamp";
+
     private final FileSystemProperties fileSystemProperties;
+    private final DeduplicationService deduplicationService;
+    private final ExportLoggingProperties exportLoggingProperties;
+    private final FileTypeRegistry fileTypeRegistry;
+    private final ExportRouter exportRouter;
+    private final long resumableThreshold;
+    private final ResumableFileCopier resumableFileCopier;
+    private final PooledFileCopier pooledFileCopier;
+    private final MeterRegistry meterRegistry;
+    private final ExportTracing exportTracing;
+    private final FileStoreRegistry fileStores;
+    private final FileSyncer fileSyncer;
+    private final PipelineProperties pipelineProperties;
+    private final ExecutorService fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final FanOutPublisher fanOutPublisher;
+    private final Counter fanOutLinks;
+    private final Counter fanOutCopies;
+    private final ExportStageRegistry exportStages;
+    private final ExecutorService stageExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final StagePipeline stagePipeline;
+    private final FileSplitter fileSplitter;
+    private final Map<String, Timer> fileAgeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedCounters = new ConcurrentHashMap<>();
+    private final Map<FileType.Validation, DelimitedFileValidator> validators = new ConcurrentHashMap<>();
+    private final Map<FileType.Statistics, RecordCounter> recordCounters = new ConcurrentHashMap<>();
 
-    public FileSystemService(FileSystemProperties fileSystemProperties) {
+    /**
+     * @throws IllegalArgumentException if a file type lists a stage that is not registered, has validation
+     *         rules that cannot be checked or is split as well as processed by stages
+     */
+    public FileSystemService(FileSystemProperties fileSystemProperties, DeduplicationService deduplicationService,
+                             ExportLoggingProperties exportLoggingProperties, FileTypeRegistry fileTypeRegistry,
+                             ExportRouter exportRouter, CopyProperties copyProperties, MeterRegistry meterRegistry,
+                             ExportTracing exportTracing, FileStoreRegistry fileStores,
+                             DurabilityProperties durabilityProperties, PipelineProperties pipelineProperties,
+                             ExportStageRegistry exportStages) {
         this.fileSystemProperties = fileSystemProperties;
+        this.deduplicationService = deduplicationService;
+        this.exportLoggingProperties = exportLoggingProperties;
+        this.fileTypeRegistry = fileTypeRegistry;
+        this.exportRouter = exportRouter;
+        this.resumableThreshold = copyProperties.resumableThreshold().toBytes();
+        this.resumableFileCopier = new ResumableFileCopier((int) copyProperties.chunkSize().toBytes(),
+                copyProperties.maxRetries(), copyProperties.retryBackoff(), ResumableFileCopier.ChunkListener.NONE);
+        this.pooledFileCopier = new PooledFileCopier(
+                new BufferPool((int) copyProperties.bufferSize().toBytes(), copyProperties.bufferPoolSize()));
+        this.fanOutPublisher = new FanOutPublisher(pooledFileCopier, fanOutExecutor);
+        this.meterRegistry = meterRegistry;
+        this.fanOutLinks = fanOutCounter(meterRegistry, "link");
+        this.fanOutCopies = fanOutCounter(meterRegistry, "copy");
+        this.exportTracing = exportTracing;
+        this.fileStores = fileStores;
+        this.fileSyncer = switch (durabilityProperties.level()) {
+            case NONE -> FileSyncer.none();
+            case PER_FILE -> FileSyncer.perFile();
+            case GROUP_COMMIT -> FileSyncer.groupCommit(durabilityProperties.groupCommitWindow(),
+                    durabilityProperties.groupCommitMaxFiles());
+        };
+        this.pipelineProperties = pipelineProperties;
+        this.exportStages = exportStages;
+        this.stagePipeline = new StagePipeline(stageExecutor, (int) copyProperties.bufferSize().toBytes());
+        this.fileSplitter = new FileSplitter(stageExecutor);
+        for (FileType fileType : fileTypeRegistry.getFileTypes()) {
+            exportStages.resolve(fileType.stages());
+            if (fileType.isSplit() && fileType.isProcessed()) {
+                throw new IllegalArgumentException("File type " + fileType.id() + " cannot both split and run stages");
+            }
+            if (fileType.isValidated()) {
+                validatorOf(fileType.validation());
+            }
+        }
+    }
+
+    /**
+     * Drains the destination lanes, waits for running stages and fan-out copies and then syncs moves still
+     * waiting for their group commit. The router is closed here rather than after this service, which
+     * depends on it and so is destroyed first: queued moves still need the stage executor and the syncer.
+     */
+    @PreDestroy
+    public void close() {
+        exportRouter.close();
+        stageExecutor.close();
+        fanOutExecutor.close();
+        fileSyncer.close();
+    }
+
+    private static Counter fanOutCounter(MeterRegistry meterRegistry, String method) {
+        return Counter.builder("export.fanout.published")
+                .description("Files published to fan-out targets, by hard link or by copy")
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lists files in the tmp folder belonging to the given file type.
+     * Every file name is classified once against the patterns of all registered types,
+     * so a file matching several patterns is only listed for the type it belongs to.
+     *
+     * @param fileType a registered file type
+     * @return list of file paths of the type
+     * @throws FileSystemException if unable to list files
+     */
+    public List<Path> listFiles(FileType fileType) {
+        return exportTracing.span(ExportTracing.SCAN, fileType, () ->
+                listFiles("fileType=" + fileType.name(), fileName -> fileType.equals(fileTypeRegistry.classify(fileName))));
     }
 
     /**
@@ -30,45 +182,310 @@ public class FileSystemService {
      * @throws FileSystemException if unable to list files
      */
     public List<Path> listFilesByPrefix(String prefixPattern) {
-        try {
-            Path tmpPath = Paths.get(fileSystemProperties.tmpFolder());
+        return listFiles("prefix=" + prefixPattern, fileName -> fileName.startsWith(prefixPattern));
+    }
 
-            if (!Files.exists(tmpPath)) {
-                log.warn("tmp folder does not exist path={}", tmpPath);
+    private List<Path> listFiles(String filter, Predicate<String> fileNameFilter) {
+        try {
+            Path tmpPath = tmpDirectory(filter);
+            if (tmpPath == null) {
                 return List.of();
             }
 
-            if (!Files.isDirectory(tmpPath)) {
-                throw new FileSystemException("Failed to list files with prefix: " + prefixPattern + " - path is not a directory: " + tmpPath);
-            }
-
             try (Stream<Path> stream = Files.walk(tmpPath, 1)) {
                 List<Path> matchingFiles = stream
                         .filter(Files::isRegularFile)
-                        .filter(path -> path.getFileName().toString().startsWith(prefixPattern))
+                        .filter(path -> fileNameFilter.test(path.getFileName().toString()))
                         .collect(Collectors.toList());
                 
-                log.info("prefix={} count={}", prefixPattern, matchingFiles.size());
+                log.info("{} count={}", filter, matchingFiles.size());
                 return matchingFiles;
             }
         } catch (IOException e) {
-            log.error("failed to list files prefix={} error={}", prefixPattern, e.getMessage(), e);
-            throw new FileSystemException("Failed to list files with prefix: " + prefixPattern, e);
+            log.error("failed to list files {} error={}", filter, e.getMessage(), e);
+            throw new FileSystemException("Failed to list files with " + filter, e);
         }
     }
 
     /**
-     * Moves files from tmp folder to export folder
+     * @return the tmp folder, null if it does not exist
+     * @throws FileSystemException if it is not a directory
+     */
+    private Path tmpDirectory(String filter) {
+        Path tmpPath = fileStores.resolve(fileSystemProperties.tmpFolder());
+
+        if (!Files.exists(tmpPath)) {
+            log.warn("tmp folder does not exist path={}", tmpPath);
+            return null;
+        }
+
+        if (!Files.isDirectory(tmpPath)) {
+            throw new FileSystemException("Failed to list files with " + filter + " - path is not a directory: " + tmpPath);
+        }
+        return tmpPath;
+    }
+
+    /**
+     * @return true if exports of a type should use {@link #exportPipelined(FileType)}
+     */
+    public boolean isPipelined() {
+        return pipelineProperties.enabled();
+    }
+
+    /**
+     * Exports every file of the given type while the tmp folder is still being scanned. The scan hands each
+     * file it finds to the workers of its destination right away, with at most {@code queue-capacity} moves
+     * queued or running; the scan waits for a free slot when they are. The first file is exported before the
+     * scan ends and no list of the pending files is held, however large the backlog.
+     * Otherwise like {@link #moveFiles(FileType, List)} on the result of {@link #listFiles(FileType)}.
+     *
+     * @param fileType a registered file type
+     * @return FileOperationResult containing successful files and errors
+     * @throws FileSystemException if unable to list files or to create export directory
+     */
+    public FileOperationResult exportPipelined(FileType fileType) {
+        return exportTracing.span(ExportTracing.MOVE, fileType, () ->
+                exportPipelined(fileType, ensureExportDirectory(fileType)));
+    }
+
+    private FileOperationResult exportPipelined(FileType fileType, Path exportPath) {
+        String filter = "fileType=" + fileType.name();
+        FileOperationResult result = new FileOperationResult();
+        BatchLogger batchLogger = startBatch();
+        int capacity = Math.max(1, pipelineProperties.queueCapacity());
+        Semaphore slots = new Semaphore(capacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int submitted = 0;
+
+        try {
+            Path tmpPath = tmpDirectory(filter);
+            if (tmpPath != null) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(tmpPath)) {
+                    for (Path sourcePath : entries) {
+                        if (failure.get() != null) {
+                            break;
+                        }
+                        if (!Files.isRegularFile(sourcePath)
+                                || !fileType.equals(fileTypeRegistry.classify(sourcePath.getFileName().toString()))) {
+                            continue;
+                        }
+                        slots.acquire();
+                        CompletableFuture<Void> move;
+                        try {
+                            move = submitMove(fileType, sourcePath, exportPath, result, batchLogger);
+                        } catch (RuntimeException e) {
+                            // not queued, e.g. the destination is closing, so nothing else gives the slot back
+                            slots.release();
+                            failure.compareAndSet(null, e);
+                            break;
+                        }
+                        submitted++;
+                        move.whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                            slots.release();
+                        });
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    log.error("failed to list files {} error={}", filter, e.getMessage(), e);
+                    throw new FileSystemException("Failed to list files with " + filter, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FileSystemException("Interrupted while listing files with " + filter, e);
+                }
+                log.info("{} count={}", filter, submitted);
+            }
+        } finally {
+            // every submitted move gives its slot back once done
+            slots.acquireUninterruptibly(capacity);
+            try {
+                writeManifest(fileType, exportPath, result);
+            } finally {
+                releaseExportDirectory(exportPath);
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(cause);
+        }
+
+        batchLogger.completed(result);
+        return result;
+    }
+
+    /**
+     * Moves files from tmp folder to export folder, or to the destination of the first matching routing rule.
+     * Moves run on the worker pool of their destination and this method waits for all of them,
+     * including the sync to disk the durability level asks for.
      * Individual file failures are recorded in the result, but don't stop the operation
+     * When deduplication is enabled, files whose content was already exported are recorded as duplicates instead
      *
      * @param filePaths list of file paths to move
      * @return FileOperationResult containing successful files and errors
      * @throws FileSystemException if unable to create export directory
      */
     public FileOperationResult moveFiles(List<Path> filePaths) {
+        return moveFiles(null, filePaths, ensureExportDirectory());
+    }
+
+    /**
+     * Moves files of the given type to its export folder, see {@link #moveFiles(List)}
+     *
+     * @throws FileSystemException if unable to create export directory
+     */
+    public FileOperationResult moveFiles(FileType fileType, List<Path> filePaths) {
+        return exportTracing.span(ExportTracing.MOVE, fileType, () ->
+                moveFiles(fileType, filePaths, ensureExportDirectory(fileType)));
+    }
+
+    private FileOperationResult moveFiles(FileType fileType, List<Path> filePaths, Path exportPath) {
         FileOperationResult result = new FileOperationResult();
-        Path exportPath = Paths.get(fileSystemProperties.exportFolder());
+        BatchLogger batchLogger = startBatch();
+
+        try {
+            CompletableFuture<?>[] moves = filePaths.stream()
+                    .map(sourcePath -> submitMove(fileType, sourcePath, exportPath, result, batchLogger))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(moves).join();
+            writeManifest(fileType, exportPath, result);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            releaseExportDirectory(exportPath);
+        }
+
+        batchLogger.completed(result);
+        return result;
+    }
+
+    /**
+     * Routes a file to its destination and queues the move on the destination's small or large file lane
+     * with the caller's logging context. The lane orders it by the deadline and priority of its type, a file
+     * of no known type queues behind those with one. A file whose size cannot be read goes to the small file
+     * lane, its move then records the failure
+     *
+     * @param fileType type of the file, null if unknown
+     * @param defaultExportPath export folder used when no routing rule matches
+     * @return completes when the file has been moved or its failure recorded
+     */
+    public CompletableFuture<Void> submitMove(FileType fileType, Path sourcePath, Path defaultExportPath,
+                                              FileOperationResult result, BatchLogger batchLogger) {
+        ExportDestination destination = exportRouter.route(fileType, sourcePath.getFileName().toString(), defaultExportPath);
+        BasicFileAttributes attributes = attributesOf(sourcePath);
+        long size = attributes == null ? 0 : attributes.size();
+        Instant arrivedAt = attributes == null ? null : attributes.lastModifiedTime().toInstant();
+        FileType urgency = fileType != null ? fileType : fileTypeRegistry.classify(sourcePath.getFileName().toString());
+        long deadline = urgency == null ? Long.MAX_VALUE
+                : urgency.deadline(arrivedAt != null ? arrivedAt.toEpochMilli() : System.currentTimeMillis());
+        int priority = urgency == null ? Integer.MAX_VALUE : urgency.priority();
+        CompletableFuture<Void> recorded = new CompletableFuture<>();
+        AtomicBoolean moved = new AtomicBoolean();
+        Runnable move = LoggingContext.wrap(exportTracing.file(exportTracing.current(), fileType,
+                sourcePath.getFileName().toString(), destination.getName(), () -> {
+                    CompletableFuture<Boolean> outcome = moveFile(fileType, sourcePath,
+                            fileStores.current(destination.getRoot()), result, batchLogger, arrivedAt);
+                    outcome.whenComplete((succeeded, error) -> recorded.complete(null));
+                    // a move still waiting for its sync has been transferred
+                    moved.set(outcome.getNow(true));
+                }));
+        return destination.submit(() -> {
+            move.run();
+            return moved.get();
+        }, size, deadline, priority).thenCompose(ignored -> recorded);
+    }
+
+    /**
+     * Records the time from arrival in the tmp folder to export, the end-to-end latency of the file
+     */
+    private void recordFileAge(FileType fileType, Instant arrivedAt) {
+        String typeName = fileType == null ? "UNKNOWN" : fileType.name();
+        Timer timer = fileAgeTimers.computeIfAbsent(typeName, name -> Timer.builder("export.file.age")
+                .description("Time from the modification time of a file to its export")
+                .tag("fileType", name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(7))
+                .register(meterRegistry));
+        timer.record(Duration.between(arrivedAt, Instant.now()));
+    }
+
+    private static BasicFileAttributes attributesOf(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts per-file logging for a new batch according to the configured logging mode
+     */
+    public BatchLogger startBatch() {
+        return new BatchLogger(log, exportLoggingProperties);
+    }
+
+    /**
+     * Creates the export folder if it does not exist yet. A batch exporting into it ends with
+     * {@link #releaseExportDirectory(Path)}, which writes the archive of a zip store.
+     *
+     * @return the export folder path
+     * @throws FileSystemException if unable to create export directory
+     */
+    public Path ensureExportDirectory() {
+        return openExportDirectory(fileSystemProperties.exportFolder());
+    }
+
+    /**
+     * Creates the export folder of the file type if it does not exist yet,
+     * types without their own export folder use the default one. See {@link #ensureExportDirectory()}
+     *
+     * @return the export folder path of the type
+     * @throws FileSystemException if unable to create export directory
+     */
+    public Path ensureExportDirectory(FileType fileType) {
+        String exportFolder = fileType.exportFolder() != null && !fileType.exportFolder().isBlank()
+                ? fileType.exportFolder()
+                : fileSystemProperties.exportFolder();
+        return exportTracing.span(ExportTracing.DIRECTORY, fileType, () -> openExportDirectory(exportFolder));
+    }
+
+    /**
+     * Ends a batch exporting into a folder returned by {@link #ensureExportDirectory()}.
+     * When no other batch is exporting into the same zip store, its archive is written
+     * and the exported files are removed from the tmp folder.
+     *
+     * @throws FileSystemException if the archive cannot be written, the files then stay in the tmp folder
+     */
+    public void releaseExportDirectory(Path exportPath) {
+        fileStores.release(exportPath);
+    }
+
+    private Path openExportDirectory(String exportFolder) {
+        Path exportPath = fileStores.open(exportFolder);
+        try {
+            return ensureExportDirectory(exportPath);
+        } catch (RuntimeException e) {
+            fileStores.release(exportPath);
+            throw e;
+        }
+    }
 
+    /**
+     * Creates the given export folder if it does not exist yet
+     *
+     * @return the export folder path
+     * @throws FileSystemException if unable to create export directory
+     */
+    public Path ensureExportDirectory(Path exportPath) {
         try {
             if (!Files.exists(exportPath)) {
                 Files.createDirectories(exportPath);
@@ -78,23 +495,359 @@ public class FileSystemService {
             log.error("failed to create directory path={} error={}", exportPath, e.getMessage(), e);
             throw new FileSystemException("Failed to create export directory: " + exportPath, e);
         }
+        return exportPath;
+    }
 
-        for (Path sourcePath : filePaths) {
-            String fileName = sourcePath.getFileName().toString();
-            Path destinationPath = exportPath.resolve(fileName);
+    /**
+     * Moves a single file into an existing export folder, recording the outcome in the result
+     *
+     * @param sourcePath the file to move
+     * @param exportPath the export folder, see {@link #ensureExportDirectory()}
+     * @param result the result to record success, error or duplicate in
+     * @param batchLogger per-file logging of the batch, see {@link #startBatch()}
+     */
+    public void moveFile(Path sourcePath, Path exportPath, FileOperationResult result, BatchLogger batchLogger) {
+        moveFile(null, sourcePath, exportPath, result, batchLogger, null).join();
+    }
 
+    /**
+     * Moves the file and records it as exported once it is durable, a failed sync is recorded as an error
+     *
+     * @param arrivedAt modification time of the source read when the move was queued, null to read it here
+     * @return completes when the outcome has been recorded, with false if the file could not be exported
+     */
+    private CompletableFuture<Boolean> moveFile(FileType fileType, Path sourcePath, Path exportPath, FileOperationResult result,
+                                             BatchLogger batchLogger, Instant arrivedAt) {
+        String fileName = sourcePath.getFileName().toString();
+        List<ExportStage> stages = fileType == null ? List.of() : exportStages.resolve(fileType.stages());
+        Path destinationPath = exportPath.resolve(StagePipeline.targetName(stages, fileName));
+
+        Fingerprint fingerprint = null;
+        try {
+            if (deduplicationService.isEnabled()) {
+                Fingerprint content = deduplicationService.fingerprint(sourcePath);
+                if (!deduplicationService.claim(content)) {
+                    deduplicationService.handleDuplicate(sourcePath, content);
+                    result.addDuplicate(fileName);
+                    return CompletableFuture.completedFuture(true);
+                }
+                fingerprint = content;
+            }
+
+            RecordCounter counter = fileType != null && fileType.isCounted()
+                    ? recordCounterOf(fileType.statistics())
+                    : null;
+            RecordCounter.Counts counts = null;
+            if (fileType != null && fileType.isValidated()) {
+                // counted in the same scan, the file is read once
+                DelimitedFileValidator.Result validation = validatorOf(fileType.validation())
+                        .validate(sourcePath, counter);
+                String reason = validation.reason();
+                counts = validation.counts();
+                if (reason != null) {
+                    release(fingerprint);
+                    CompletableFuture<Void> rejected = reject(fileType, sourcePath, reason);
+                    result.addError(fileName, "Rejected: " + reason);
+                    return rejected.handle((ignored, error) -> {
+                        if (error != null) {
+                            log.warn("failed to remove rejected file fileName={} error={}", fileName, error.getMessage());
+                        }
+                        // handled as intended, not a failed move
+                        return true;
+                    });
+                }
+            } else if (counter != null) {
+                counts = counter.count(sourcePath);
+            }
+            RecordCounter.Counts statistics = counts;
+            Instant arrival = arrivedAt != null ? arrivedAt : Files.getLastModifiedTime(sourcePath).toInstant();
+            boolean split = fileType != null && fileType.isSplit() && stages.isEmpty()
+                    && Files.size(sourcePath) > fileType.split().threshold();
+            Path exportedPath = split ? exportPath.resolve(fileName + FileSplitter.INDEX_SUFFIX) : destinationPath;
+            List<Path> targets;
+            boolean renamed = false;
+            if (split) {
+                targets = split(fileType, sourcePath, exportPath);
+            } else {
+                targets = fanOutTargets(fileType, destinationPath);
+                if (!stages.isEmpty()) {
+                    process(fileType, stages, sourcePath, targets);
+                } else if (targets.size() == 1) {
+                    renamed = transfer(sourcePath, destinationPath);
+                } else {
+                    publish(sourcePath, targets);
+                }
+            }
+            Fingerprint exported = fingerprint;
+            Map<String, String> loggingContext = LoggingContext.capture();
+            return sync(sourcePath, targets, renamed).handle((ignored, error) -> {
+                LoggingContext.runWith(loggingContext, () -> {
+                    if (error != null) {
+                        release(exported);
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        Exception failure = cause instanceof Exception exception ? exception : new IOException(cause);
+                        result.addError(fileName, "Failed to complete export: " + failure.getMessage());
+                        batchLogger.fileFailed(fileName, failure);
+                        return;
+                    }
+                    recordFileAge(fileType != null ? fileType : fileTypeRegistry.classify(fileName), arrival);
+                    result.addSuccess(fileName);
+                    if (statistics != null) {
+                        result.addStatistics(new FileOperationResult.FileStatistics(fileName,
+                                exportedPath.getFileName().toString(), statistics.records(), statistics.bytes(),
+                                statistics.firstTimestamp(), statistics.lastTimestamp()));
+                    }
+                    batchLogger.fileMoved(fileName, sourcePath, exportedPath);
+                    // in a zip store the content is only exported once its archive has been written
+                    if (exported != null && !fileStores.whenWritten(exportedPath,
+                            () -> deduplicationService.record(exported), () -> deduplicationService.release(exported))) {
+                        deduplicationService.record(exported);
+                    }
+                });
+                return error == null;
+            });
+        } catch (IOException e) {
+            release(fingerprint);
+            result.addError(fileName, e.getMessage());
+            batchLogger.fileFailed(fileName, e);
+            return CompletableFuture.completedFuture(false);
+        } catch (RuntimeException e) {
+            release(fingerprint);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives up the dedupe claim of a file that was not exported, null when deduplication is off
+     */
+    private void release(Fingerprint fingerprint) {
+        if (fingerprint != null) {
+            deduplicationService.release(fingerprint);
+        }
+    }
+
+    /**
+     * @return the destination followed by the file in every fan-out folder of the type, whose folders are created
+     */
+    private List<Path> fanOutTargets(FileType fileType, Path destinationPath) throws IOException {
+        if (fileType == null || !fileType.isFanOut()) {
+            return List.of(destinationPath);
+        }
+        List<Path> targets = new ArrayList<>(fileType.fanOutFolders().size() + 1);
+        targets.add(destinationPath);
+        for (String folder : fileType.fanOutFolders()) {
+            targets.add(Files.createDirectories(fileStores.resolve(folder)).resolve(destinationPath.getFileName().toString()));
+        }
+        return targets;
+    }
+
+    /**
+     * Publishes the file to all targets, hard linked where they share a file store. The source stays until
+     * the targets are synced.
+     */
+    private void publish(Path sourcePath, List<Path> targets) throws IOException {
+        int copied = fanOutPublisher.publish(sourcePath, targets);
+        fanOutCopies.increment(copied);
+        fanOutLinks.increment(targets.size() - copied);
+    }
+
+    /**
+     * Splits the file into parts with their index in the export folder and publishes each of them to the
+     * fan-out folders of the type. The source stays until all of them are synced.
+     *
+     * @return every file written, in all folders
+     */
+    private List<Path> split(FileType fileType, Path sourcePath, Path exportPath) throws IOException {
+        FileType.Split split = fileType.split();
+        FileSplitter.Result parts = fileSplitter.split(sourcePath, exportPath, split.parts(), split.headerLines());
+        List<Path> files = new ArrayList<>(parts.parts().size() + 1);
+        parts.parts().forEach(part -> files.add(part.file()));
+        files.add(parts.index());
+        List<Path> written = new ArrayList<>(files);
+        try {
+            for (Path file : files) {
+                List<Path> targets = fanOutTargets(fileType, file);
+                if (targets.size() > 1) {
+                    List<Path> fanOut = targets.subList(1, targets.size());
+                    int copied = fanOutPublisher.publish(file, fanOut);
+                    fanOutCopies.increment(copied);
+                    fanOutLinks.increment(fanOut.size() - copied);
+                    written.addAll(fanOut);
+                }
+            }
+        } catch (IOException e) {
+            for (Path file : written) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        log.info("file split fileName={} parts={}", sourcePath.getFileName(), parts.parts().size());
+        return written;
+    }
+
+    private RecordCounter recordCounterOf(FileType.Statistics statistics) {
+        return recordCounters.computeIfAbsent(statistics, layout -> new RecordCounter(layout.headerLines(),
+                layout.trailerLines(), layout.timestampColumn(), layout.delimiter()));
+    }
+
+    /**
+     * Writes the manifest of a batch into its export folder if the type asks for one: a CSV line with the
+     * record statistics of every exported file. Called before the export folder is released, a manifest
+     * that cannot be written is recorded as an error of the batch.
+     */
+    public void writeManifest(FileType fileType, Path exportPath, FileOperationResult result) {
+        if (fileType == null || !fileType.isCounted() || !fileType.statistics().manifest()) {
+            return;
+        }
+        List<FileOperationResult.FileStatistics> statistics = result.getStatistics();
+        if (statistics.isEmpty()) {
+            return;
+        }
+        String name = "manifest_" + fileType.id() + "_" + MANIFEST_TIMESTAMP.format(Instant.now()) + ".csv";
+        StringBuilder content = new StringBuilder(MANIFEST_HEADER).append('\n');
+        for (FileOperationResult.FileStatistics file : statistics) {
+            content.append(csv(file.fileName())).append(',')
+                    .append(csv(file.exportedFileName())).append(',')
+                    .append(file.records()).append(',')
+                    .append(file.bytes()).append(',')
+                    .append(csv(file.firstTimestamp())).append(',')
+                    .append(csv(file.lastTimestamp())).append('\n');
+        }
+        try {
+            Path manifest = fileStores.current(exportPath).resolve(name);
+            Path part = ResumableFileCopier.partFile(manifest);
+            Files.writeString(part, content);
+            Files.move(part, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("manifest written path={} files={}", manifest, statistics.size());
+        } catch (IOException e) {
+            log.error("failed to write manifest name={} error={}", name, e.getMessage(), e);
+            result.addError(name, "Failed to write manifest: " + e.getMessage());
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private DelimitedFileValidator validatorOf(FileType.Validation validation) {
+        return validators.computeIfAbsent(validation, rules -> new DelimitedFileValidator(rules.encoding(),
+                rules.header(), rules.delimiter(), rules.columns(), rules.trailer(), ForkJoinPool.commonPool(),
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Moves an invalid file to the reject folder of its type and writes the reason beside it
+     *
+     * @return completes once the move is durable, see {@link #sync(Path, List, boolean)}
+     */
+    private CompletableFuture<Void> reject(FileType fileType, Path sourcePath, String reason) throws IOException {
+        String fileName = sourcePath.getFileName().toString();
+        Path rejectFolder = Files.createDirectories(fileStores.resolve(fileType.validation().rejectFolder()));
+        Path rejectedPath = rejectFolder.resolve(fileName);
+        boolean renamed = transfer(sourcePath, rejectedPath);
+        Files.writeString(rejectFolder.resolve(fileName + REASON_SUFFIX), reason + System.lineSeparator());
+        rejectedCounters.computeIfAbsent(fileType.name(), name -> Counter.builder("export.validation.rejected")
+                .description("Files moved to the reject folder because their content is invalid")
+                .tag("fileType", name)
+                .register(meterRegistry))
+                .increment();
+        log.warn("file rejected fileName={} reason={}", fileName, reason);
+        return sync(sourcePath, List.of(rejectedPath), renamed);
+    }
+
+    /**
+     * Runs the file through the stages of its type into the first target and publishes the result to the
+     * other targets. The source stays until all of them are synced.
+     */
+    private void process(FileType fileType, List<ExportStage> stages, Path sourcePath, List<Path> targets)
+            throws IOException {
+        Path processed = targets.getFirst();
+        stagePipeline.run(sourcePath, processed, stages,
+                (stage, nanos) -> stageTimer(fileType, stage).record(nanos, TimeUnit.NANOSECONDS));
+        if (targets.size() > 1) {
             try {
-                Files.move(sourcePath, destinationPath, StandardCopyOption.REPLACE_EXISTING);
-                result.addSuccess(fileName);
-                log.info("filename={} from={} to={}", fileName, sourcePath, destinationPath);
+                int copied = fanOutPublisher.publish(processed, targets.subList(1, targets.size()));
+                fanOutCopies.increment(copied);
+                fanOutLinks.increment(targets.size() - 1 - copied);
             } catch (IOException e) {
-                result.addError(fileName, e.getMessage());
-                log.error("failed to move file filename={} error={}", fileName, e.getMessage(), e);
+                Files.deleteIfExists(processed);
+                throw e;
             }
         }
+    }
 
-        log.info("moved {} files, {} errors", result.getSuccessCount(), result.getErrorCount());
-        return result;
+    private Timer stageTimer(FileType fileType, String stage) {
+        return stageTimers.computeIfAbsent(fileType.name() + '/' + stage, key -> Timer.builder("export.stage.duration")
+                .description("Time an export stage took to process a file")
+                .tag("fileType", fileType.name())
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Makes an export durable. A renamed file is synced with both of its directories. A copied source is
+     * deleted only once every target and its directory are on disk, and its directory is synced after that,
+     * so a power loss at any point leaves at least one complete copy.
+     *
+     * @param renamed true if the source was renamed to the only target, false if it is still in place
+     */
+    private CompletableFuture<Void> sync(Path sourcePath, List<Path> targets, boolean renamed) {
+        if (renamed) {
+            return fileSyncer.sync(sourcePath, targets.getFirst());
+        }
+        CompletableFuture<Void> copied = targets.size() == 1
+                ? fileSyncer.syncCopy(targets.getFirst())
+                : CompletableFuture.allOf(targets.stream().map(fileSyncer::syncCopy).toArray(CompletableFuture[]::new));
+        return copied.thenCompose(ignored -> removeSource(sourcePath, targets.getFirst()));
+    }
+
+    /**
+     * Deletes the source of a copy, or leaves it to the zip store of the target, and syncs its directory
+     */
+    private CompletableFuture<Void> removeSource(Path sourcePath, Path target) {
+        if (fileStores.deleteWhenWritten(sourcePath, target)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            Files.delete(sourcePath);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return fileSyncer.syncRemoval(sourcePath);
     }
 
+    /**
+     * Renames the file when source and destination share a file store. Across file stores of the default
+     * file system large files are copied in resumable chunks and published when complete, everything else,
+     * including copies between file system providers, streams through pooled buffers.
+     * The source of a copy stays in place, it is deleted once the copy is durable.
+     *
+     * @return true if the file was renamed, false if it was copied
+     */
+    private boolean transfer(Path sourcePath, Path destinationPath) throws IOException {
+        try {
+            Files.move(sourcePath, destinationPath, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (AtomicMoveNotSupportedException e) {
+            // different file store, fall through to a copy
+        }
+
+        if (isDefault(sourcePath) && isDefault(destinationPath) && Files.size(sourcePath) >= resumableThreshold) {
+            resumableFileCopier.copy(sourcePath, destinationPath);
+        } else {
+            pooledFileCopier.copy(sourcePath, destinationPath);
+        }
+        return false;
+    }
+
+    private static boolean isDefault(Path path) {
+        return path.getFileSystem() == FileSystems.getDefault();
+    }
 }
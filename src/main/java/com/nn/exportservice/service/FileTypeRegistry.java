@@ -0,0 +1,134 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.FileTypeProperties;
+import com.nn.exportservice.exception.UnknownFileTypeException;
+import com.nn.exportservice.io.FileNameMatcher;
+import com.nn.exportservice.model.FileType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * File types loaded from configuration. All patterns are compiled into a single {@link FileNameMatcher},
+ * so classifying a file name costs the same however many types are configured.
+ * A file matching several patterns belongs to the most urgent type (lowest priority, then id).
+ * The application's registry is created by {@link com.nn.exportservice.config.FileTypeConfiguration}.
+ */
+@Slf4j
+public class FileTypeRegistry {
+
+    private final List<FileType> fileTypes;
+    private final Map<String, FileType> fileTypesById = new LinkedHashMap<>();
+    private final FileNameMatcher matcher;
+
+    public FileTypeRegistry(List<FileType> fileTypes) {
+        this.fileTypes = fileTypes.stream()
+                .sorted(Comparator.comparingInt(FileType::priority).thenComparing(FileType::id))
+                .toList();
+        for (FileType fileType : this.fileTypes) {
+            if (fileType.pattern() == null || fileType.pattern().isBlank()) {
+                throw new IllegalArgumentException("File type " + fileType.id() + " has no pattern");
+            }
+            if (fileTypesById.putIfAbsent(normalize(fileType.id()), fileType) != null) {
+                throw new IllegalArgumentException("Duplicate file type: " + fileType.id());
+            }
+        }
+        this.matcher = new FileNameMatcher(this.fileTypes.stream().map(FileType::glob).toList());
+    }
+
+    /**
+     * Registry of the file types configured under {@code file-types}
+     */
+    public static FileTypeRegistry from(FileTypeProperties fileTypeProperties) {
+        FileTypeRegistry registry = new FileTypeRegistry(toFileTypes(fileTypeProperties));
+        log.info("file types registered count={} ids={}", registry.fileTypes.size(), registry.fileTypesById.keySet());
+        return registry;
+    }
+
+    /**
+     * @return all file types, most urgent first
+     */
+    public List<FileType> getFileTypes() {
+        return fileTypes;
+    }
+
+    /**
+     * Looks up a file type by id, ignoring case and treating {@code _} as {@code -}
+     */
+    public Optional<FileType> find(String id) {
+        return Optional.ofNullable(fileTypesById.get(normalize(id)));
+    }
+
+    /**
+     * @throws UnknownFileTypeException if no file type has the given id
+     */
+    public FileType get(String id) {
+        return find(id).orElseThrow(() -> new UnknownFileTypeException(id));
+    }
+
+    /**
+     * @return the file type the file name belongs to, or null if it matches no pattern
+     */
+    public FileType classify(String fileName) {
+        int index = matcher.match(fileName);
+        return index == FileNameMatcher.NO_MATCH ? null : fileTypes.get(index);
+    }
+
+    private static String normalize(String id) {
+        return id.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static List<FileType> toFileTypes(FileTypeProperties properties) {
+        return properties.types().entrySet().stream()
+                .map(entry -> {
+                    FileTypeProperties.Definition definition = entry.getValue();
+                    FileTypeProperties.Adaptive adaptive = definition.adaptive();
+                    FileType.AdaptivePolling polling = adaptive != null && adaptive.enabled()
+                            ? new FileType.AdaptivePolling(adaptive.minInterval(), adaptive.maxInterval())
+                            : null;
+                    FileTypeProperties.Validation checks = definition.validation();
+                    FileType.Validation validation = checks != null && checks.enabled()
+                            ? new FileType.Validation(checks.encoding(), checks.header(),
+                                    delimiterOf(checks.delimiter()), checks.columns(), checks.trailer(),
+                                    checks.rejectFolder())
+                            : null;
+                    FileTypeProperties.Statistics counting = definition.statistics();
+                    FileType.Statistics statistics = counting != null && counting.enabled()
+                            ? new FileType.Statistics(counting.headerLines(), counting.trailerLines(),
+                                    counting.timestampColumn(), delimiterOf(counting.delimiter()), counting.manifest())
+                            : null;
+                    FileTypeProperties.Split splitting = definition.split();
+                    FileType.Split split = splitting != null && splitting.enabled()
+                            ? new FileType.Split(splitting.threshold().toBytes(), splitting.parts(),
+                                    splitting.headerLines())
+                            : null;
+                    return FileType.builder()
+                            .id(normalize(entry.getKey()))
+                            .pattern(definition.pattern())
+                            .priority(definition.priority())
+                            .targetLatency(definition.targetLatency())
+                            .cron(definition.cron())
+                            .exportFolder(definition.exportFolder())
+                            .polling(polling)
+                            .fanOutFolders(definition.fanOut())
+                            .stages(definition.stages())
+                            .validation(validation)
+                            .statistics(statistics)
+                            .split(split)
+                            .build();
+                })
+                .toList();
+    }
+
+    private static char delimiterOf(String delimiter) {
+        if (delimiter == null || delimiter.length() != 1) {
+            throw new IllegalArgumentException("Delimiter must be a single character: " + delimiter);
+        }
+        return delimiter.charAt(0);
+    }
+}
@@ -1,67 +1,138 @@
 package com.nn.exportservice.service;
 
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.logging.ExportTracing;
 import com.nn.exportservice.logging.LoggingContext;
 import com.nn.exportservice.model.FileOperationResult;
 import com.nn.exportservice.model.FileType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Registers one scheduled task per configured file type: an {@link AdaptivePollingTrigger} for types with
+ * adaptive polling, otherwise a cron task when the type has a cron expression.
+ * The current adaptive interval is published as the {@code export.polling.interval} gauge.
+ */
 @Slf4j
 @Service
-public class ScheduledFileProcessor {
+public class ScheduledFileProcessor implements SchedulingConfigurer {
 
     private final FileSystemService fileSystemService;
+    private final ExportDispatcher exportDispatcher;
+    private final FileTypeRegistry fileTypeRegistry;
+    private final ExportLoggingProperties exportLoggingProperties;
+    private final MeterRegistry meterRegistry;
+    private final ExportTracing exportTracing;
+    private final Map<String, AdaptivePollingTrigger> adaptiveTriggers = new ConcurrentHashMap<>();
 
-    public ScheduledFileProcessor(FileSystemService fileSystemService) {
+    public ScheduledFileProcessor(FileSystemService fileSystemService, ExportDispatcher exportDispatcher,
+                                  FileTypeRegistry fileTypeRegistry, ExportLoggingProperties exportLoggingProperties,
+                                  MeterRegistry meterRegistry, ExportTracing exportTracing) {
         this.fileSystemService = fileSystemService;
+        this.exportDispatcher = exportDispatcher;
+        this.fileTypeRegistry = fileTypeRegistry;
+        this.exportLoggingProperties = exportLoggingProperties;
+        this.meterRegistry = meterRegistry;
+        this.exportTracing = exportTracing;
     }
 
-    @Scheduled(cron = "${scheduling.redemption-cron}")
-    public void processRedemptionFiles() {
-        processFilesByType(FileType.REDEMPTION);
-    }
-
-    @Scheduled(cron = "${scheduling.outpay-cron}")
-    public void processOutpayFiles() {
-        processFilesByType(FileType.OUTPAY);
-    }
-
-    @Scheduled(cron = "${scheduling.own-and-ben-cron}")
-    public void processOwnAndBenFiles() {
-        processFilesByType(FileType.OWN_AND_BEN);
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        for (FileType fileType : fileTypeRegistry.getFileTypes()) {
+            if (fileType.isAdaptive()) {
+                AdaptivePollingTrigger trigger = new AdaptivePollingTrigger(fileType.polling());
+                adaptiveTriggers.put(fileType.id(), trigger);
+                TimeGauge.builder("export.polling.interval", trigger, TimeUnit.MILLISECONDS,
+                                t -> t.getInterval().toMillis())
+                        .description("Current adaptive scan interval")
+                        .tag("fileType", fileType.name())
+                        .register(meterRegistry);
+                taskRegistrar.addTriggerTask(() -> processFilesByType(fileType), trigger);
+                log.info("scheduled fileType={} adaptive minInterval={} maxInterval={}", fileType.name(),
+                        fileType.polling().minInterval(), fileType.polling().maxInterval());
+            } else if (fileType.isScheduled()) {
+                taskRegistrar.addCronTask(() -> processFilesByType(fileType), fileType.cron());
+                log.info("scheduled fileType={} cron={}", fileType.name(), fileType.cron());
+            }
+        }
     }
 
-    private void processFilesByType(FileType fileType) {
+    public void processFilesByType(FileType fileType) {
         LoggingContext.setOperation("EXPORT_" + fileType.name());
         LoggingContext.setFileType(fileType.name());
         try {
-            log.info("Starting scheduled processing");
-            
-            List<Path> files = fileSystemService.listFilesByPrefix(fileType.getPrefixPattern());
-            
-            if (files.isEmpty()) {
-                log.info("No files found");
-                return;
-            }
-            
-            FileOperationResult result = fileSystemService.moveFiles(files);
-            
-            log.info("Completed scheduled processing successful={} errors={}", 
-                    result.getSuccessCount(), result.getErrorCount());
-                    
-            if (result.hasErrors()) {
-                result.getErrors().forEach(error -> 
-                    log.warn("File move error: fileName={} error={}", error.fileName(), error.errorMessage())
-                );
-            }
+            exportTracing.batch("scheduled", fileType, () -> export(fileType));
         } catch (Exception e) {
             log.error("Failed scheduled processing error={}", e.getMessage(), e);
         } finally {
             LoggingContext.clear();
         }
     }
+
+    /**
+     * @return the result of the export, null if no files were found
+     */
+    private FileOperationResult export(FileType fileType) {
+        log.info("Starting scheduled processing");
+
+        FileOperationResult result;
+        if (fileSystemService.isPipelined()) {
+            // files are moved as the scan finds them, in directory order rather than by deadline
+            result = fileSystemService.exportPipelined(fileType);
+            int found = result.getSuccessCount() + result.getErrorCount() + result.getDuplicateCount();
+            recordScan(fileType, found);
+            if (found == 0) {
+                log.info("No files found");
+                return null;
+            }
+        } else {
+            List<Path> files = fileSystemService.listFiles(fileType);
+            recordScan(fileType, files.size());
+            if (files.isEmpty()) {
+                log.info("No files found");
+                return null;
+            }
+            result = exportTracing.span(ExportTracing.MOVE, fileType,
+                    () -> exportDispatcher.dispatch(fileType, files));
+        }
+
+        log.info("Completed scheduled processing successful={} errors={}",
+                result.getSuccessCount(), result.getErrorCount());
+
+        if (result.hasErrors()) {
+            logErrors(result);
+        }
+        return result;
+    }
+
+    private void recordScan(FileType fileType, int found) {
+        AdaptivePollingTrigger trigger = adaptiveTriggers.get(fileType.id());
+        if (trigger != null) {
+            trigger.recordScan(found);
+            log.debug("next scan in interval={}", trigger.getInterval());
+        }
+    }
+
+    private void logErrors(FileOperationResult result) {
+        List<FileOperationResult.FileOperationError> errors = result.getErrors();
+        int limit = exportLoggingProperties.mode() == ExportLoggingProperties.Mode.SAMPLED
+                ? Math.min(errors.size(), exportLoggingProperties.failureDetailLimit())
+                : errors.size();
+        errors.subList(0, limit).forEach(error ->
+            log.warn("File move error: fileName={} error={}", error.fileName(), error.errorMessage())
+        );
+        if (limit < errors.size()) {
+            log.warn("{} more file move errors not listed", errors.size() - limit);
+        }
+    }
 }
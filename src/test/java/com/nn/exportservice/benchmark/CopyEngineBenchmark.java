@@ -0,0 +1,133 @@
+package com.nn.exportservice.benchmark;
+
+import com.nn.exportservice.io.BufferPool;
+import com.nn.exportservice.io.PooledFileCopier;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the pooled copier with {@link Files#copy} and a stream copy that allocates a buffer per file,
+ * with the JMH GC profiler reporting bytes allocated per copied file ({@code gc.alloc.rate.norm}).
+ * Run with: mvn -Pbenchmark test -Dtest=CopyEngineBenchmark
+ * Tunables: -Dbenchmark.iterations, -Dbenchmark.iteration-seconds
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CopyEngineBenchmark {
+
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    @Param({"1024", "65536", "4194304"})
+    public int fileSize;
+
+    private Path directory;
+    private Path source;
+    private Path target;
+    private PooledFileCopier pooledFileCopier;
+
+    @Setup(Level.Trial)
+    public void createSource() throws IOException {
+        directory = Files.createTempDirectory("copy-benchmark");
+        byte[] content = new byte[fileSize];
+        new Random(fileSize).nextBytes(content);
+        source = Files.write(directory.resolve("source.txt"), content);
+        target = directory.resolve("target.txt");
+        pooledFileCopier = new PooledFileCopier(new BufferPool(BUFFER_SIZE, 4));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long pooledCopy() throws IOException {
+        return pooledFileCopier.copy(source, target);
+    }
+
+    @Benchmark
+    public Path filesCopy() throws IOException {
+        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Benchmark
+    public long streamCopy() throws IOException {
+        try (InputStream in = Files.newInputStream(source); OutputStream out = Files.newOutputStream(target)) {
+            return in.transferTo(out);
+        }
+    }
+
+    @Test
+    void compareCopyEngines() throws Exception {
+        int iterations = Integer.getInteger("benchmark.iterations", 5);
+        int iterationSeconds = Integer.getInteger("benchmark.iteration-seconds", 1);
+        Options options = new OptionsBuilder()
+                .include(CopyEngineBenchmark.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(iterations)
+                .warmupTime(TimeValue.seconds(iterationSeconds))
+                .measurementIterations(iterations)
+                .measurementTime(TimeValue.seconds(iterationSeconds))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-12s %10s %12s %16s%n",
+                "engine", "bytes", "us/op", "alloc B/op"));
+        for (RunResult result : results) {
+            String engine = result.getParams().getBenchmark().substring(CopyEngineBenchmark.class.getName().length() + 1);
+            int size = Integer.parseInt(result.getParams().getParam("fileSize"));
+            double allocated = allocatedPerOp(result);
+            report.append(String.format(Locale.ROOT, "%-12s %10d %12.2f %16.1f%n",
+                    engine, size, result.getPrimaryResult().getScore(), allocated));
+            if (engine.equals("pooledCopy")) {
+                assertTrue(allocated < 4096, "pooled copy allocated " + allocated + " bytes per file of " + size);
+            }
+        }
+        System.out.print(report);
+        Path reportFile = Path.of("target/benchmark/copy-engine.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+    }
+
+    private static double allocatedPerOp(RunResult result) {
+        Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+        return allocation == null ? Double.NaN : allocation.getScore();
+    }
+}
@@ -0,0 +1,112 @@
+package com.nn.exportservice.benchmark;
+
+import com.nn.exportservice.config.DurabilityProperties;
+import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.TestFileTypes;
+import com.nn.exportservice.service.ExportRouter;
+import com.nn.exportservice.service.ExportRouterBuilder;
+import com.nn.exportservice.service.FileSystemService;
+import com.nn.exportservice.service.FileSystemServiceBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Export throughput for each durability level. Every round writes a batch of files into the tmp folder without
+ * syncing them, as a producer would, and times one export of the batch; the median round is reported.
+ * Works on the disk of the build directory, since a memory-backed tmp directory makes every fsync free.
+ * Run with: mvn -Pbenchmark test -Dtest=DurabilityBenchmark
+ * Tunables: -Dbenchmark.files, -Dbenchmark.file-size, -Dbenchmark.workers, -Dbenchmark.rounds,
+ * -Dbenchmark.group-commit-window
+ */
+class DurabilityBenchmark {
+
+    private final int files = Integer.getInteger("benchmark.files", 2000);
+    private final DataSize fileSize = DataSize.parse(System.getProperty("benchmark.file-size", "4KB"));
+    private final int workers = Integer.getInteger("benchmark.workers", 4);
+    private final int rounds = Integer.getInteger("benchmark.rounds", 3);
+    private final Duration window = DurationStyle.detectAndParse(
+            System.getProperty("benchmark.group-commit-window", "10ms"));
+
+    @Test
+    void compareDurabilityLevels() throws IOException {
+        Path root = Path.of("target/benchmark/durability-work").toAbsolutePath();
+        Map<DurabilityProperties.Level, Double> filesPerSecond = new EnumMap<>(DurabilityProperties.Level.class);
+        try {
+            for (DurabilityProperties.Level level : DurabilityProperties.Level.values()) {
+                filesPerSecond.put(level, measure(root.resolve(level.name().toLowerCase(Locale.ROOT)), level));
+            }
+        } finally {
+            delete(root);
+        }
+
+        double none = filesPerSecond.get(DurabilityProperties.Level.NONE);
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "files=%d size=%s workers=%d window=%dms%n%-14s %12s %12s%n",
+                files, fileSize, workers, window.toMillis(), "level", "files/s", "vs none"));
+        filesPerSecond.forEach((level, rate) -> report.append(String.format(Locale.ROOT, "%-14s %12.0f %11.1f%%%n",
+                level, rate, 100 * rate / none)));
+        System.out.print(report);
+        Path reportFile = Path.of("target/benchmark/durability.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+    }
+
+    private double measure(Path directory, DurabilityProperties.Level level) throws IOException {
+        Path tmp = Files.createDirectories(directory.resolve("tmp"));
+        Path export = directory.resolve("export");
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(workers).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmp, export)
+                .fileTypes(TestFileTypes.registry())
+                .router(router)
+                .durability(new DurabilityProperties(level, window, 1000))
+                .build();
+        byte[] content = new byte[(int) fileSize.toBytes()];
+        new Random(files).nextBytes(content);
+        double[] rates = new double[rounds];
+        try {
+            for (int round = 0; round < rounds; round++) {
+                List<Path> batch = new ArrayList<>(files);
+                for (int i = 0; i < files; i++) {
+                    batch.add(Files.write(tmp.resolve(String.format(Locale.ROOT, "outpay_%d_%06d.txt", round, i)), content));
+                }
+                long started = System.nanoTime();
+                FileOperationResult result = service.moveFiles(TestFileTypes.OUTPAY, batch);
+                rates[round] = files / ((System.nanoTime() - started) / 1e9);
+                assertEquals(files, result.getSuccessCount(), level + " round " + round);
+            }
+        } finally {
+            service.close();
+            router.close();
+        }
+        Arrays.sort(rates);
+        return rates[rounds / 2];
+    }
+
+    private static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
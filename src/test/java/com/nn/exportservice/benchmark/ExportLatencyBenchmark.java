@@ -0,0 +1,259 @@
+package com.nn.exportservice.benchmark;
+
+import com.nn.exportservice.ExportServiceApplication;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.service.FileTypeRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the application under sustained load and measures the latency of every file from its arrival in
+ * the tmp folder to its appearance in the export folder. One generator per file type drops files at a fixed
+ * rate with sizes drawn from a weighted distribution; files are written beside the tmp folder and renamed
+ * into it, so the service never sees a partial file. A watch service on the export folder timestamps arrivals.
+ * Reports throughput and p50, p99, p999 and max latency per file type and overall.
+ * Run with: mvn -Pbenchmark test -Dtest=ExportLatencyBenchmark
+ * Tunables: -Dbenchmark.duration-seconds, -Dbenchmark.rate (files per second and type),
+ * -Dbenchmark.sizes (size:weight list, e.g. 4KB:90,1MB:9,64MB:1), -Dbenchmark.min-interval, -Dbenchmark.max-interval
+ */
+class ExportLatencyBenchmark {
+
+    private static final String ALL = "all";
+
+    private final int durationSeconds = Integer.getInteger("benchmark.duration-seconds", 30);
+    private final int rate = Integer.getInteger("benchmark.rate", 50);
+    private final String sizes = System.getProperty("benchmark.sizes", "4KB:90,256KB:9,4MB:1");
+    private final String minInterval = System.getProperty("benchmark.min-interval", "200ms");
+    private final String maxInterval = System.getProperty("benchmark.max-interval", "5s");
+    private final long drainTimeoutSeconds = Long.getLong("benchmark.drain-timeout-seconds", 120);
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytesCreated = new AtomicLong();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void measureArrivalToExportLatency() throws Exception {
+        Path tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+        Path exportFolder = Files.createDirectories(tempDir.resolve("export"));
+        Path staging = Files.createDirectories(tempDir.resolve("staging"));
+        SizeDistribution distribution = SizeDistribution.parse(sizes);
+
+        try (ConfigurableApplicationContext context = start(tmpFolder, exportFolder);
+             WatchService watchService = exportFolder.getFileSystem().newWatchService();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            exportFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            executor.submit(() -> watch(watchService));
+
+            List<FileType> fileTypes = context.getBean(FileTypeRegistry.class).getFileTypes();
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+            List<java.util.concurrent.Future<Integer>> generators = new ArrayList<>();
+            for (int i = 0; i < fileTypes.size(); i++) {
+                FileType fileType = fileTypes.get(i);
+                Random random = new Random(i);
+                generators.add(executor.submit(() -> generate(fileType, distribution, random, staging, tmpFolder, start, end)));
+            }
+            int created = 0;
+            for (java.util.concurrent.Future<Integer> generator : generators) {
+                created += generator.get();
+            }
+
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds);
+            while (!pending.isEmpty() && System.nanoTime() < drainDeadline) {
+                sweep(exportFolder);
+                Thread.sleep(100);
+            }
+            long elapsed = lastArrival() - start;
+
+            String report = report(fileTypes, created, elapsed);
+            System.out.print(report);
+            Path reportFile = Path.of("target/benchmark/export-latency.txt");
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, report);
+
+            assertEquals(0, pending.size(), "files not exported within " + drainTimeoutSeconds + "s");
+        }
+    }
+
+    private ConfigurableApplicationContext start(Path tmpFolder, Path exportFolder) {
+        // command line arguments, so they take precedence over the test profile
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--filesystem.tmp-folder=" + tmpFolder,
+                "--filesystem.export-folder=" + exportFolder,
+                "--logging.level.com.nn.exportservice=WARN"));
+        for (String id : List.of("redemption", "outpay", "own-and-ben")) {
+            args.add("--export.types." + id + ".adaptive.enabled=true");
+            args.add("--export.types." + id + ".adaptive.min-interval=" + minInterval);
+            args.add("--export.types." + id + ".adaptive.max-interval=" + maxInterval);
+        }
+        return new SpringApplicationBuilder(ExportServiceApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Creates files of one type at the configured rate until the end of the run
+     *
+     * @return number of files created
+     */
+    private int generate(FileType fileType, SizeDistribution distribution, Random random, Path staging, Path tmpFolder,
+                         long start, long end) throws IOException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        int count = 0;
+        for (long next = start; next < end; next += periodNanos) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            String fileName = fileName(fileType, count);
+            byte[] content = distribution.content(random);
+            Path staged = Files.write(staging.resolve(fileName), content);
+            pending.put(fileName, new Pending(fileType.id(), System.nanoTime()));
+            Files.move(staged, tmpFolder.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+            bytesCreated.addAndGet(content.length);
+            count++;
+        }
+        return count;
+    }
+
+    private static String fileName(FileType fileType, int sequence) {
+        String pattern = fileType.pattern();
+        if (pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0) {
+            return pattern.replace("*", "load_" + sequence).replace('?', 'x');
+        }
+        return pattern + "_load_" + sequence + ".dat";
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                long now = System.nanoTime();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path path) {
+                        arrived(path.getFileName().toString(), now);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // run finished
+        }
+    }
+
+    /**
+     * Picks up exports the watch service missed, e.g. after an overflow
+     */
+    private void sweep(Path exportFolder) {
+        long now = System.nanoTime();
+        for (String fileName : pending.keySet()) {
+            if (Files.exists(exportFolder.resolve(fileName))) {
+                arrived(fileName, now);
+            }
+        }
+    }
+
+    private void arrived(String fileName, long arrivedAt) {
+        Pending file = pending.remove(fileName);
+        if (file != null) {
+            samples.add(new Sample(file.fileTypeId(), arrivedAt - file.createdAt(), arrivedAt));
+        }
+    }
+
+    private long lastArrival() {
+        return samples.stream().mapToLong(Sample::arrivedAt).max().orElse(System.nanoTime());
+    }
+
+    private String report(List<FileType> fileTypes, int created, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "duration=%ds rate=%d/s per type sizes=%s polling=%s..%s%n", durationSeconds, rate, sizes, minInterval, maxInterval));
+        report.append(String.format(Locale.ROOT, "created=%d exported=%d files/s=%.1f MB/s=%.1f%n",
+                created, samples.size(), samples.size() / seconds, bytesCreated.get() / seconds / 1e6));
+        report.append(String.format(Locale.ROOT, "%-12s %8s %10s %10s %10s %10s%n", "fileType", "files", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        List<String> rows = new ArrayList<>(fileTypes.stream().map(FileType::id).toList());
+        rows.add(ALL);
+        for (String row : rows) {
+            long[] latencies = samples.stream()
+                    .filter(sample -> row.equals(ALL) || row.equals(sample.fileTypeId()))
+                    .mapToLong(Sample::latencyNanos)
+                    .sorted()
+                    .toArray();
+            if (latencies.length == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "%-12s %8d %10.1f %10.1f %10.1f %10.1f%n", row, latencies.length,
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                    percentile(latencies, 0.999) / 1e6, latencies[latencies.length - 1] / 1e6));
+        }
+        return report.toString();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private record Pending(String fileTypeId, long createdAt) {}
+
+    private record Sample(String fileTypeId, long latencyNanos, long arrivedAt) {}
+
+    /**
+     * Weighted file sizes; the content of every size is generated once and shared by its files
+     */
+    private record SizeDistribution(List<byte[]> contents, int[] cumulativeWeights) {
+
+        static SizeDistribution parse(String spec) {
+            List<byte[]> contents = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            Random random = new Random(42);
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split(":");
+                byte[] content = new byte[(int) DataSize.parse(parts[0].trim()).toBytes()];
+                random.nextBytes(content);
+                contents.add(content);
+                total += parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+                cumulative.add(total);
+            }
+            return new SizeDistribution(contents, cumulative.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        byte[] content(Random random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return contents.get(i);
+                }
+            }
+            return contents.get(contents.size() - 1);
+        }
+    }
+}
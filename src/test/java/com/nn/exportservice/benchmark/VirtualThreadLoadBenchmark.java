@@ -0,0 +1,150 @@
+package com.nn.exportservice.benchmark;
+
+import com.nn.exportservice.ExportServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares throughput and latency of the export endpoints with Tomcat on platform threads and on virtual threads.
+ * The tmp folder holds a backlog of non-matching files, so every request walks a large directory on disk
+ * without changing state between runs.
+ * Run with: mvn -Pbenchmark test -Dtest=VirtualThreadLoadBenchmark
+ * Tunables: -Dbenchmark.concurrency, -Dbenchmark.requests, -Dbenchmark.backlog-files, -Dbenchmark.tomcat-threads
+ */
+class VirtualThreadLoadBenchmark {
+
+    private static final String[] ENDPOINTS = {"/v1/api/export/redemption", "/v1/api/export/outpay", "/v1/api/export/own-and-ben"};
+
+    private final int concurrency = Integer.getInteger("benchmark.concurrency", 200);
+    private final int requests = Integer.getInteger("benchmark.requests", 5000);
+    private final int backlogFiles = Integer.getInteger("benchmark.backlog-files", 2000);
+    private final int tomcatThreads = Integer.getInteger("benchmark.tomcat-threads", 50);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Path tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+        for (int i = 0; i < backlogFiles; i++) {
+            Files.writeString(tmpFolder.resolve("pending_" + i + ".txt"), "pending");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                runLoad(port, requests / 10);
+                results.add(runLoad(port, requests).named(virtual ? "virtual" : "platform"));
+            }
+        }
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "concurrency=%d requests=%d backlogFiles=%d tomcatThreads=%d%n", concurrency, requests, backlogFiles, tomcatThreads));
+        report.append(String.format(Locale.ROOT, "%-9s %12s %10s %10s %10s %8s%n", "threads", "req/s", "p50 ms", "p99 ms", "max ms", "errors"));
+        for (Result result : results) {
+            report.append(result.format());
+        }
+        System.out.print(report);
+        Path reportFile = Path.of("target/benchmark/virtual-threads.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+
+        results.forEach(result -> assertEquals(0, result.errors, result.name + " run had failed requests"));
+    }
+
+    private ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(ExportServiceApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "filesystem.tmp-folder=" + tempDir.resolve("tmp"),
+                        "filesystem.export-folder=" + tempDir.resolve("export"),
+                        "export.types.redemption.cron=-",
+                        "export.types.outpay.cron=-",
+                        "export.types.own-and-ben.cron=-",
+                        "logging.level.com.nn.exportservice=WARN")
+                .run();
+    }
+
+    private Result runLoad(int port, int total) throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[total];
+        int errors = 0;
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> futures = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                int index = i;
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + ENDPOINTS[index % ENDPOINTS.length]))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build();
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[index] = System.nanoTime() - sent;
+                        return response.statusCode() == 200;
+                    } catch (IOException e) {
+                        return false;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                if (!future.get()) {
+                    errors++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        client.close();
+
+        Arrays.sort(latencies);
+        return new Result(null, total * 1_000_000_000.0 / elapsed,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1], errors);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private record Result(String name, double throughput, long p50, long p99, long max, int errors) {
+
+        Result named(String newName) {
+            return new Result(newName, throughput, p50, p99, max, errors);
+        }
+
+        String format() {
+            return String.format(Locale.ROOT, "%-9s %12.1f %10.2f %10.2f %10.2f %8d%n",
+                    name, throughput, p50 / 1e6, p99 / 1e6, max / 1e6, errors);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.nn.exportservice.cli;
+
+import com.nn.exportservice.controller.FileExportController;
+import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.mapper.FileExportMapper;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
+import com.nn.exportservice.service.FileSystemService;
+import com.nn.exportservice.service.FileSystemServiceBuilder;
+import com.nn.exportservice.service.FileTypeRegistry;
+import com.nn.exportservice.service.ScheduledFileProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExportCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path tmpFolder;
+    private Path exportFolder;
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+        exportFolder = tempDir.resolve("export");
+        output = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void testIsRequested() {
+        assertTrue(ExportCli.isRequested(new String[]{"--spring.profiles.active=prod", "--export=redemption"}));
+        assertFalse(ExportCli.isRequested(new String[]{"--spring.profiles.active=prod"}));
+    }
+
+    @Test
+    void testParseFileTypes_OrdersByPriority() {
+        List<FileType> fileTypes = ExportCli.parseFileTypes(new String[]{"--export=own-and-ben,outpay,REDEMPTION,outpay"},
+                TestFileTypes.registry());
+
+        assertEquals(List.of(TestFileTypes.REDEMPTION, TestFileTypes.OUTPAY, TestFileTypes.OWN_AND_BEN), fileTypes);
+    }
+
+    @Test
+    void testParseFileTypes_RejectsUnknownType() {
+        assertThrows(IllegalArgumentException.class, () -> ExportCli.parseFileTypes(new String[]{"--export=unknown"}, TestFileTypes.registry()));
+        assertThrows(IllegalArgumentException.class, () -> ExportCli.parseFileTypes(new String[]{"--export="}, TestFileTypes.registry()));
+    }
+
+    @Test
+    void testRun_ReturnsUsageExitCodeForInvalidArguments() {
+        assertEquals(ExportCli.EXIT_USAGE, ExportCli.run(new String[]{"--spring.profiles.active=test", "--export=unknown"}));
+    }
+
+    @Test
+    void testExport_PrintsJsonAndReturnsOk() throws IOException {
+        Files.writeString(tmpFolder.resolve("redemption_01.txt"), "data");
+        Files.writeString(tmpFolder.resolve("outpay_01.txt"), "data");
+        ExportCli cli = new ExportCli(fileSystemService(), new FileExportMapper());
+
+        int exitCode = cli.export(List.of(TestFileTypes.REDEMPTION, TestFileTypes.OUTPAY), new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        assertEquals(ExportCli.EXIT_OK, exitCode);
+        String json = output.toString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"fileType\":\"REDEMPTION\""));
+        assertTrue(json.contains("\"successfulFiles\":[\"outpay_01.txt\"]"));
+        assertTrue(Files.exists(exportFolder.resolve("redemption_01.txt")));
+    }
+
+    @Test
+    void testExport_ReturnsFailureWhenExportFails() {
+        FileSystemService fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.listFiles(any())).thenThrow(new FileSystemException("Disk full"));
+        ExportCli cli = new ExportCli(fileSystemService, new FileExportMapper());
+
+        int exitCode = cli.export(List.of(TestFileTypes.OUTPAY), new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        assertEquals(ExportCli.EXIT_FAILURE, exitCode);
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Disk full"));
+    }
+
+    @Test
+    void testExport_ReturnsFailureWhenExportThrowsUnexpectedly() {
+        FileSystemService fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.listFiles(any())).thenThrow(new CompletionException(new IllegalStateException("Lane closed")));
+        ExportCli cli = new ExportCli(fileSystemService, new FileExportMapper());
+
+        int exitCode = cli.export(List.of(TestFileTypes.OUTPAY, TestFileTypes.REDEMPTION),
+                new PrintStream(output, true, StandardCharsets.UTF_8));
+
+        assertEquals(ExportCli.EXIT_FAILURE, exitCode);
+        String json = output.toString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"fileType\":\"OUTPAY\""), json);
+        assertTrue(json.contains("\"fileType\":\"REDEMPTION\""), json);
+        assertTrue(json.contains("Lane closed"), json);
+    }
+
+    @Test
+    void testRun_ReturnsFailureWithJsonWhenContextCannotStart() {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        int exitCode;
+        try {
+            exitCode = ExportCli.run(new String[]{"--spring.profiles.active=test", "--durability.level=SOMETIMES",
+                    "--export=redemption"});
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals(ExportCli.EXIT_FAILURE, exitCode);
+        String json = output.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("[{\"fileType\":\"redemption\""), json);
+        assertTrue(json.contains("\"system\""), json);
+    }
+
+    @Test
+    void testStart_CreatesMinimalNonWebContext() {
+        try (ConfigurableApplicationContext context = ExportCli.start(new String[]{
+                "--spring.profiles.active=test",
+                "--filesystem.tmp-folder=" + tmpFolder,
+                "--filesystem.export-folder=" + exportFolder,
+                "--export=redemption"})) {
+
+            assertNotNull(context.getBean(FileSystemService.class));
+            assertEquals(3, context.getBean(FileTypeRegistry.class).getFileTypes().size());
+            assertFalse(context instanceof WebServerApplicationContext);
+            assertTrue(context.getBeansOfType(FileExportController.class).isEmpty());
+            assertTrue(context.getBeansOfType(ScheduledFileProcessor.class).isEmpty());
+            assertTrue(context.getBeansOfType(TaskScheduler.class).isEmpty());
+        }
+    }
+
+    private FileSystemService fileSystemService() {
+        return FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .build();
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
@@ -174,6 +176,19 @@ class FileExportControllerIT {
                 });
     }
 
+    @Test
+    void testExportFiles_UnknownTypeReturnsNotFound() {
+        ResponseEntity<FileExportResponse> response = restClient.post()
+                .uri("/v1/api/export/unknown")
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, errorResponse) -> { })
+                .toEntity(FileExportResponse.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Unknown file type: unknown", response.getBody().errors().get(0).errorMessage());
+    }
+
     private void copyTestFilesToTmp(String... fileNames) throws IOException {
         for (String fileName : fileNames) {
             Path source = testResourcesFolder.resolve(fileName);
@@ -2,14 +2,15 @@ package com.nn.exportservice.controller;
 
 import com.nn.exportservice.dto.ErrorDetail;
 import com.nn.exportservice.dto.FileExportResponse;
+import com.nn.exportservice.exception.UnknownFileTypeException;
+import com.nn.exportservice.logging.ExportTracing;
 import com.nn.exportservice.mapper.FileExportMapper;
 import com.nn.exportservice.model.FileOperationResult;
-import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
 import com.nn.exportservice.service.FileSystemService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -33,7 +34,6 @@ class FileExportControllerTest {
     @Mock
     private FileExportMapper fileExportMapper;
 
-    @InjectMocks
     private FileExportController controller;
 
     private List<Path> mockFiles;
@@ -42,6 +42,9 @@ class FileExportControllerTest {
 
     @BeforeEach
     void setUp() {
+        controller = new FileExportController(fileSystemService, TestFileTypes.registry(), fileExportMapper,
+                ExportTracing.disabled());
+
         mockFiles = List.of(
                 Paths.get("/tmp/redemption_01.txt"),
                 Paths.get("/tmp/redemption_02.txt")
@@ -51,7 +54,7 @@ class FileExportControllerTest {
         mockResult.addSuccess("testfiles/redemption_01.txt");
         mockResult.addSuccess("testfiles/redemption_02.txt");
         
-        mockResponse = new FileExportResponse(
+        mockResponse = response(
                 "REDEMPTION",
                 2,
                 List.of("testfiles/redemption_01.txt", "testfiles/redemption_02.txt"),
@@ -61,11 +64,11 @@ class FileExportControllerTest {
 
     @Test
     void testExportRedemptionFiles_Success() {
-        when(fileSystemService.listFilesByPrefix("redemption")).thenReturn(mockFiles);
-        when(fileSystemService.moveFiles(mockFiles)).thenReturn(mockResult);
-        when(fileExportMapper.toResponse(FileType.REDEMPTION, mockResult)).thenReturn(mockResponse);
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenReturn(mockFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.REDEMPTION, mockFiles)).thenReturn(mockResult);
+        when(fileExportMapper.toResponse(TestFileTypes.REDEMPTION, mockResult)).thenReturn(mockResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportRedemptionFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("redemption");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -74,26 +77,26 @@ class FileExportControllerTest {
         assertEquals(2, response.getBody().filesProcessed());
         assertTrue(response.getBody().errors().isEmpty());
 
-        verify(fileSystemService).listFilesByPrefix("redemption");
-        verify(fileSystemService).moveFiles(mockFiles);
-        verify(fileExportMapper).toResponse(FileType.REDEMPTION, mockResult);
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(fileSystemService).moveFiles(TestFileTypes.REDEMPTION, mockFiles);
+        verify(fileExportMapper).toResponse(TestFileTypes.REDEMPTION, mockResult);
     }
 
     @Test
     void testExportRedemptionFiles_NoFiles() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse(
+        FileExportResponse emptyResponse = response(
                 "REDEMPTION",
                 0,
                 List.of(),
                 List.of()
         );
 
-        when(fileSystemService.listFilesByPrefix("redemption")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.REDEMPTION, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.REDEMPTION, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.REDEMPTION, emptyResult)).thenReturn(emptyResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportRedemptionFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("redemption");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -101,8 +104,8 @@ class FileExportControllerTest {
         assertEquals(0, response.getBody().filesProcessed());
         assertTrue(response.getBody().successfulFiles().isEmpty());
 
-        verify(fileSystemService).listFilesByPrefix("redemption");
-        verify(fileSystemService).moveFiles(List.of());
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(fileSystemService).moveFiles(TestFileTypes.REDEMPTION, List.of());
     }
 
     @Test
@@ -111,18 +114,18 @@ class FileExportControllerTest {
         resultWithErrors.addSuccess("testfiles/redemption_01.txt");
         resultWithErrors.addError("testfiles/redemption_02.txt", "Failed to move file");
 
-        FileExportResponse responseWithErrors = new FileExportResponse(
+        FileExportResponse responseWithErrors = response(
                 "REDEMPTION",
                 1,
                 List.of("testfiles/redemption_01.txt"),
                 List.of(new ErrorDetail("testfiles/redemption_02.txt", "Failed to move file"))
         );
 
-        when(fileSystemService.listFilesByPrefix("redemption")).thenReturn(mockFiles);
-        when(fileSystemService.moveFiles(mockFiles)).thenReturn(resultWithErrors);
-        when(fileExportMapper.toResponse(FileType.REDEMPTION, resultWithErrors)).thenReturn(responseWithErrors);
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenReturn(mockFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.REDEMPTION, mockFiles)).thenReturn(resultWithErrors);
+        when(fileExportMapper.toResponse(TestFileTypes.REDEMPTION, resultWithErrors)).thenReturn(responseWithErrors);
 
-        ResponseEntity<FileExportResponse> response = controller.exportRedemptionFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("redemption");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -131,8 +134,8 @@ class FileExportControllerTest {
         assertEquals(1, response.getBody().errors().size());
         assertEquals("testfiles/redemption_02.txt", response.getBody().errors().get(0).fileName());
 
-        verify(fileSystemService).listFilesByPrefix("redemption");
-        verify(fileSystemService).moveFiles(mockFiles);
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(fileSystemService).moveFiles(TestFileTypes.REDEMPTION, mockFiles);
     }
 
     @Test
@@ -146,18 +149,18 @@ class FileExportControllerTest {
         outpayResult.addSuccess("testfiles/outpay_01.txt");
         outpayResult.addSuccess("testfiles/outpay_02.txt");
 
-        FileExportResponse outpayResponse = new FileExportResponse(
+        FileExportResponse outpayResponse = response(
                 "OUTPAY",
                 2,
                 List.of("testfiles/outpay_01.txt", "testfiles/outpay_02.txt"),
                 List.of()
         );
 
-        when(fileSystemService.listFilesByPrefix("outpay")).thenReturn(outpayFiles);
-        when(fileSystemService.moveFiles(outpayFiles)).thenReturn(outpayResult);
-        when(fileExportMapper.toResponse(FileType.OUTPAY, outpayResult)).thenReturn(outpayResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY)).thenReturn(outpayFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.OUTPAY, outpayFiles)).thenReturn(outpayResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OUTPAY, outpayResult)).thenReturn(outpayResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportOutpayFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("outpay");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -165,32 +168,32 @@ class FileExportControllerTest {
         assertEquals("OUTPAY", response.getBody().fileType());
         assertEquals(2, response.getBody().filesProcessed());
 
-        verify(fileSystemService).listFilesByPrefix("outpay");
-        verify(fileSystemService).moveFiles(outpayFiles);
-        verify(fileExportMapper).toResponse(FileType.OUTPAY, outpayResult);
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
+        verify(fileSystemService).moveFiles(TestFileTypes.OUTPAY, outpayFiles);
+        verify(fileExportMapper).toResponse(TestFileTypes.OUTPAY, outpayResult);
     }
 
     @Test
     void testExportOutpayFiles_NoFiles() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse(
+        FileExportResponse emptyResponse = response(
                 "OUTPAY",
                 0,
                 List.of(),
                 List.of()
         );
 
-        when(fileSystemService.listFilesByPrefix("outpay")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.OUTPAY, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.OUTPAY, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OUTPAY, emptyResult)).thenReturn(emptyResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportOutpayFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("outpay");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(0, response.getBody().filesProcessed());
 
-        verify(fileSystemService).listFilesByPrefix("outpay");
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
     }
 
     @Test
@@ -204,18 +207,18 @@ class FileExportControllerTest {
         ownAndBenResult.addSuccess("testfiles/own_and_ben_01.txt");
         ownAndBenResult.addSuccess("testfiles/own_and_ben_02.txt");
 
-        FileExportResponse ownAndBenResponse = new FileExportResponse(
+        FileExportResponse ownAndBenResponse = response(
                 "OWN_AND_BEN",
                 2,
                 List.of("testfiles/own_and_ben_01.txt", "testfiles/own_and_ben_02.txt"),
                 List.of()
         );
 
-        when(fileSystemService.listFilesByPrefix("own_and_ben")).thenReturn(ownAndBenFiles);
-        when(fileSystemService.moveFiles(ownAndBenFiles)).thenReturn(ownAndBenResult);
-        when(fileExportMapper.toResponse(FileType.OWN_AND_BEN, ownAndBenResult)).thenReturn(ownAndBenResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenReturn(ownAndBenFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.OWN_AND_BEN, ownAndBenFiles)).thenReturn(ownAndBenResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OWN_AND_BEN, ownAndBenResult)).thenReturn(ownAndBenResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportOwnAndBenFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("own-and-ben");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -223,74 +226,74 @@ class FileExportControllerTest {
         assertEquals("OWN_AND_BEN", response.getBody().fileType());
         assertEquals(2, response.getBody().filesProcessed());
 
-        verify(fileSystemService).listFilesByPrefix("own_and_ben");
-        verify(fileSystemService).moveFiles(ownAndBenFiles);
-        verify(fileExportMapper).toResponse(FileType.OWN_AND_BEN, ownAndBenResult);
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+        verify(fileSystemService).moveFiles(TestFileTypes.OWN_AND_BEN, ownAndBenFiles);
+        verify(fileExportMapper).toResponse(TestFileTypes.OWN_AND_BEN, ownAndBenResult);
     }
 
     @Test
     void testExportOwnAndBenFiles_NoFiles() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse(
+        FileExportResponse emptyResponse = response(
                 "OWN_AND_BEN",
                 0,
                 List.of(),
                 List.of()
         );
 
-        when(fileSystemService.listFilesByPrefix("own_and_ben")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.OWN_AND_BEN, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.OWN_AND_BEN, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OWN_AND_BEN, emptyResult)).thenReturn(emptyResponse);
 
-        ResponseEntity<FileExportResponse> response = controller.exportOwnAndBenFiles();
+        ResponseEntity<FileExportResponse> response = controller.exportFiles("own-and-ben");
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(0, response.getBody().filesProcessed());
 
-        verify(fileSystemService).listFilesByPrefix("own_and_ben");
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
     }
 
     @Test
     void testExportRedemptionFiles_ServiceThrowsException() {
-        when(fileSystemService.listFilesByPrefix("redemption")).thenThrow(new RuntimeException("Service error"));
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenThrow(new RuntimeException("Service error"));
 
-        assertThrows(RuntimeException.class, () -> controller.exportRedemptionFiles());
+        assertThrows(RuntimeException.class, () -> controller.exportFiles("redemption"));
 
-        verify(fileSystemService).listFilesByPrefix("redemption");
-        verify(fileSystemService, never()).moveFiles(anyList());
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(fileSystemService, never()).moveFiles(any(), anyList());
         verify(fileExportMapper, never()).toResponse(any(), any());
     }
 
     @Test
     void testExportOutpayFiles_ServiceThrowsException() {
-        when(fileSystemService.listFilesByPrefix("outpay")).thenThrow(new RuntimeException("Service error"));
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY)).thenThrow(new RuntimeException("Service error"));
 
-        assertThrows(RuntimeException.class, () -> controller.exportOutpayFiles());
+        assertThrows(RuntimeException.class, () -> controller.exportFiles("outpay"));
 
-        verify(fileSystemService).listFilesByPrefix("outpay");
-        verify(fileSystemService, never()).moveFiles(anyList());
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
+        verify(fileSystemService, never()).moveFiles(any(), anyList());
     }
 
     @Test
     void testExportOwnAndBenFiles_ServiceThrowsException() {
-        when(fileSystemService.listFilesByPrefix("own_and_ben")).thenThrow(new RuntimeException("Service error"));
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenThrow(new RuntimeException("Service error"));
 
-        assertThrows(RuntimeException.class, () -> controller.exportOwnAndBenFiles());
+        assertThrows(RuntimeException.class, () -> controller.exportFiles("own-and-ben"));
 
-        verify(fileSystemService).listFilesByPrefix("own_and_ben");
-        verify(fileSystemService, never()).moveFiles(anyList());
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+        verify(fileSystemService, never()).moveFiles(any(), anyList());
     }
 
     @Test
     void testExportRedemptionFiles_VerifyCorrectFileTypePassedToMapper() {
-        when(fileSystemService.listFilesByPrefix("redemption")).thenReturn(mockFiles);
-        when(fileSystemService.moveFiles(mockFiles)).thenReturn(mockResult);
-        when(fileExportMapper.toResponse(FileType.REDEMPTION, mockResult)).thenReturn(mockResponse);
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenReturn(mockFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.REDEMPTION, mockFiles)).thenReturn(mockResult);
+        when(fileExportMapper.toResponse(TestFileTypes.REDEMPTION, mockResult)).thenReturn(mockResponse);
 
-        controller.exportRedemptionFiles();
+        controller.exportFiles("redemption");
         
-        verify(fileExportMapper).toResponse(FileType.REDEMPTION, mockResult);
+        verify(fileExportMapper).toResponse(TestFileTypes.REDEMPTION, mockResult);
         verifyNoMoreInteractions(fileExportMapper);
     }
 
@@ -299,15 +302,15 @@ class FileExportControllerTest {
         List<Path> outpayFiles = List.of(Paths.get("/tmp/outpay_01.txt"));
         FileOperationResult outpayResult = new FileOperationResult();
         outpayResult.addSuccess("testfiles/outpay_01.txt");
-        FileExportResponse outpayResponse = new FileExportResponse("OUTPAY", 1, List.of("testfiles/outpay_01.txt"), List.of());
+        FileExportResponse outpayResponse = response("OUTPAY", 1, List.of("testfiles/outpay_01.txt"), List.of());
 
-        when(fileSystemService.listFilesByPrefix("outpay")).thenReturn(outpayFiles);
-        when(fileSystemService.moveFiles(outpayFiles)).thenReturn(outpayResult);
-        when(fileExportMapper.toResponse(FileType.OUTPAY, outpayResult)).thenReturn(outpayResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY)).thenReturn(outpayFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.OUTPAY, outpayFiles)).thenReturn(outpayResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OUTPAY, outpayResult)).thenReturn(outpayResponse);
 
-        controller.exportOutpayFiles();
+        controller.exportFiles("outpay");
         
-        verify(fileExportMapper).toResponse(FileType.OUTPAY, outpayResult);
+        verify(fileExportMapper).toResponse(TestFileTypes.OUTPAY, outpayResult);
         verifyNoMoreInteractions(fileExportMapper);
     }
 
@@ -316,60 +319,86 @@ class FileExportControllerTest {
         List<Path> ownAndBenFiles = List.of(Paths.get("/tmp/own_and_ben_01.txt"));
         FileOperationResult ownAndBenResult = new FileOperationResult();
         ownAndBenResult.addSuccess("testfiles/own_and_ben_01.txt");
-        FileExportResponse ownAndBenResponse = new FileExportResponse("OWN_AND_BEN", 1, List.of("testfiles/own_and_ben_01.txt"), List.of());
+        FileExportResponse ownAndBenResponse = response("OWN_AND_BEN", 1, List.of("testfiles/own_and_ben_01.txt"), List.of());
 
-        when(fileSystemService.listFilesByPrefix("own_and_ben")).thenReturn(ownAndBenFiles);
-        when(fileSystemService.moveFiles(ownAndBenFiles)).thenReturn(ownAndBenResult);
-        when(fileExportMapper.toResponse(FileType.OWN_AND_BEN, ownAndBenResult)).thenReturn(ownAndBenResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenReturn(ownAndBenFiles);
+        when(fileSystemService.moveFiles(TestFileTypes.OWN_AND_BEN, ownAndBenFiles)).thenReturn(ownAndBenResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OWN_AND_BEN, ownAndBenResult)).thenReturn(ownAndBenResponse);
 
-        controller.exportOwnAndBenFiles();
+        controller.exportFiles("own-and-ben");
         
-        verify(fileExportMapper).toResponse(FileType.OWN_AND_BEN, ownAndBenResult);
+        verify(fileExportMapper).toResponse(TestFileTypes.OWN_AND_BEN, ownAndBenResult);
         verifyNoMoreInteractions(fileExportMapper);
     }
 
     @Test
     void testExportRedemptionFiles_VerifyCorrectPrefixUsed() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse("REDEMPTION", 0, List.of(), List.of());
+        FileExportResponse emptyResponse = response("REDEMPTION", 0, List.of(), List.of());
 
-        when(fileSystemService.listFilesByPrefix("redemption")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.REDEMPTION, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.REDEMPTION, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.REDEMPTION, emptyResult)).thenReturn(emptyResponse);
 
-        controller.exportRedemptionFiles();
+        controller.exportFiles("redemption");
         
-        verify(fileSystemService).listFilesByPrefix("redemption");
-        verify(fileSystemService, times(1)).listFilesByPrefix(anyString());
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(fileSystemService, times(1)).listFiles(any());
     }
 
     @Test
     void testExportOutpayFiles_VerifyCorrectPrefixUsed() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse("OUTPAY", 0, List.of(), List.of());
+        FileExportResponse emptyResponse = response("OUTPAY", 0, List.of(), List.of());
 
-        when(fileSystemService.listFilesByPrefix("outpay")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.OUTPAY, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.OUTPAY, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OUTPAY, emptyResult)).thenReturn(emptyResponse);
 
-        controller.exportOutpayFiles();
+        controller.exportFiles("outpay");
         
-        verify(fileSystemService).listFilesByPrefix("outpay");
-        verify(fileSystemService, times(1)).listFilesByPrefix(anyString());
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
+        verify(fileSystemService, times(1)).listFiles(any());
     }
 
     @Test
     void testExportOwnAndBenFiles_VerifyCorrectPrefixUsed() {
         FileOperationResult emptyResult = new FileOperationResult();
-        FileExportResponse emptyResponse = new FileExportResponse("OWN_AND_BEN", 0, List.of(), List.of());
+        FileExportResponse emptyResponse = response("OWN_AND_BEN", 0, List.of(), List.of());
 
-        when(fileSystemService.listFilesByPrefix("own_and_ben")).thenReturn(List.of());
-        when(fileSystemService.moveFiles(List.of())).thenReturn(emptyResult);
-        when(fileExportMapper.toResponse(FileType.OWN_AND_BEN, emptyResult)).thenReturn(emptyResponse);
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.OWN_AND_BEN, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OWN_AND_BEN, emptyResult)).thenReturn(emptyResponse);
 
-        controller.exportOwnAndBenFiles();
+        controller.exportFiles("own-and-ben");
         
-        verify(fileSystemService).listFilesByPrefix("own_and_ben");
-        verify(fileSystemService, times(1)).listFilesByPrefix(anyString());
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+        verify(fileSystemService, times(1)).listFiles(any());
+    }
+
+    @Test
+    void testExportFiles_ResolvesTypeIgnoringCaseAndSeparator() {
+        FileOperationResult emptyResult = new FileOperationResult();
+        FileExportResponse emptyResponse = response("OWN_AND_BEN", 0, List.of(), List.of());
+
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN)).thenReturn(List.of());
+        when(fileSystemService.moveFiles(TestFileTypes.OWN_AND_BEN, List.of())).thenReturn(emptyResult);
+        when(fileExportMapper.toResponse(TestFileTypes.OWN_AND_BEN, emptyResult)).thenReturn(emptyResponse);
+
+        controller.exportFiles("OWN_AND_BEN");
+
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+    }
+
+    @Test
+    void testExportFiles_UnknownType() {
+        assertThrows(UnknownFileTypeException.class, () -> controller.exportFiles("unknown"));
+
+        verifyNoInteractions(fileSystemService, fileExportMapper);
+    }
+
+    private static FileExportResponse response(String fileType, int filesProcessed, List<String> successfulFiles,
+                                               List<ErrorDetail> errors) {
+        return new FileExportResponse(fileType, filesProcessed, successfulFiles, errors, List.of(), List.of());
     }
 }
@@ -0,0 +1,109 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimitedFileValidatorTest {
+
+    private static final String HEADER = "id,amount,currency";
+
+    @TempDir
+    Path tempDir;
+
+    private final DelimitedFileValidator validator = new DelimitedFileValidator(StandardCharsets.UTF_8, HEADER, ',', 3,
+            true, ForkJoinPool.commonPool(), 8);
+
+    @Test
+    void testValidate_ValidFile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("redemption_001.csv"),
+                HEADER + "\r\n1,10.00,EUR\r\n2,5.50,HUF\r\nTRAILER,2\r\n");
+
+        assertNull(validator.validate(file));
+    }
+
+    @Test
+    void testValidate_ReportsFirstProblem() throws IOException {
+        assertEquals("Header is 'id,amount', expected '" + HEADER + "'", validator.validate(
+                Files.writeString(tempDir.resolve("header.csv"), "id,amount\n1,10.00,EUR\nTRAILER,1\n")));
+        assertEquals("Line 3 has 2 columns, expected 3", validator.validate(
+                Files.writeString(tempDir.resolve("columns.csv"), HEADER + "\n1,10.00,EUR\n2,5.50\nTRAILER,2\n")));
+        assertEquals("Trailer count '3' does not match 2 records", validator.validate(
+                Files.writeString(tempDir.resolve("trailer.csv"), HEADER + "\n1,10.00,EUR\n2,5.50,HUF\nTRAILER,3")));
+        assertEquals("File is empty", validator.validate(Files.createFile(tempDir.resolve("empty.csv"))));
+    }
+
+    @Test
+    void testValidate_InvalidEncoding() throws IOException {
+        Path file = tempDir.resolve("encoding.csv");
+        Files.writeString(file, HEADER + "\n1,10.00,EUR\n");
+        Files.write(file, new byte[]{'2', ',', (byte) 0xC3, (byte) 0x28, ',', 'E', '\n'}, StandardOpenOption.APPEND);
+        Files.writeString(file, "TRAILER,2\n", StandardOpenOption.APPEND);
+
+        assertEquals("Line 3 is not valid UTF-8", validator.validate(file));
+    }
+
+    @Test
+    void testValidate_LargeFileScannedInChunks() throws IOException {
+        // several chunks of at least 1 MB, the bad line is far into a later one
+        int records = 400_000;
+        int badRecord = 350_000;
+        Path file = tempDir.resolve("large.csv");
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write(HEADER + "\n");
+            for (int i = 1; i <= records; i++) {
+                writer.write(i == badRecord ? i + ",1.00\n" : i + ",1.00,EUR\n");
+            }
+            writer.write("TRAILER," + records + "\n");
+        }
+
+        assertEquals("Line " + (badRecord + 1) + " has 2 columns, expected 3", validator.validate(file));
+
+        Path valid = tempDir.resolve("valid.csv");
+        try (Writer writer = Files.newBufferedWriter(valid)) {
+            writer.write(HEADER + "\n");
+            for (int i = 1; i <= records; i++) {
+                writer.write(i + ",1.00,EUR\n");
+            }
+            writer.write("TRAILER," + records);
+        }
+        assertNull(validator.validate(valid));
+    }
+
+    @Test
+    void testValidate_CountsRecordsInTheSameScan() throws IOException {
+        int records = 400_000;
+        Path file = tempDir.resolve("counted.csv");
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write(HEADER + "\r\n");
+            for (int i = 1; i <= records; i++) {
+                writer.write(i + ",1.00,EUR\r\n");
+            }
+            writer.write("TRAILER," + records + "\r\n");
+        }
+        // the id column stands in for the timestamp
+        RecordCounter counter = new RecordCounter(1, 1, 1, ',');
+
+        DelimitedFileValidator.Result result = validator.validate(file, counter);
+
+        assertNull(result.reason());
+        assertEquals(new RecordCounter.Counts(records, Files.size(file), "1", String.valueOf(records)), result.counts());
+        assertEquals(counter.count(file), result.counts());
+        assertNull(validator.validate(Files.writeString(tempDir.resolve("invalid.csv"), "id\n"), counter).counts());
+    }
+
+    @Test
+    void testConstructor_RejectsMultiByteLineFeeds() {
+        assertThrows(IllegalArgumentException.class, () -> new DelimitedFileValidator(StandardCharsets.UTF_16, null,
+                ',', 0, false, ForkJoinPool.commonPool(), 1));
+    }
+}
@@ -0,0 +1,81 @@
+package com.nn.exportservice.io;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private FanOutPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        publisher = new FanOutPublisher(new PooledFileCopier(new BufferPool(1024, 2)), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testPublish_LinksTargetsOnSameFileStore() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+        Path payments = Files.createDirectories(tempDir.resolve("payments")).resolve("outpay_001.txt");
+        Path ledger = Files.createDirectories(tempDir.resolve("ledger")).resolve("outpay_001.txt");
+        Files.writeString(ledger, "previous export");
+
+        assertEquals(0, publisher.publish(source, List.of(payments, ledger)));
+
+        assertTrue(Files.isSameFile(source, payments));
+        assertTrue(Files.isSameFile(source, ledger));
+        assertEquals("content", Files.readString(ledger));
+    }
+
+    @Test
+    void testPublish_CopiesOncePerOtherFileStoreAndLinksTheRest() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+        Path local = Files.createDirectories(tempDir.resolve("payments")).resolve("outpay_001.txt");
+        try (FileSystem memory = Jimfs.newFileSystem(Configuration.unix())) {
+            Path first = Files.createDirectories(memory.getPath("/team-a")).resolve("outpay_001.txt");
+            Path second = Files.createDirectories(memory.getPath("/team-b")).resolve("outpay_001.txt");
+
+            assertEquals(1, publisher.publish(source, List.of(local, first, second)));
+
+            assertTrue(Files.isSameFile(source, local));
+            assertEquals("content", Files.readString(first));
+            assertTrue(Files.isSameFile(first, second));
+        }
+    }
+
+    @Test
+    void testPublish_RemovesPublishedTargetsWhenOneFails() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+        Path payments = Files.createDirectories(tempDir.resolve("payments")).resolve("outpay_001.txt");
+        Path missingFolder = tempDir.resolve("missing").resolve("outpay_001.txt");
+
+        assertThrows(NoSuchFileException.class, () -> publisher.publish(source, List.of(payments, missingFolder)));
+
+        assertTrue(Files.exists(source));
+        assertFalse(Files.exists(payments));
+    }
+}
@@ -0,0 +1,78 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileNameMatcherTest {
+
+    @Test
+    void testMatch_Prefixes() {
+        FileNameMatcher matcher = new FileNameMatcher(List.of("redemption*", "outpay*", "own_and_ben*"));
+
+        assertEquals(0, matcher.match("redemption_01.txt"));
+        assertEquals(1, matcher.match("outpay_01.txt"));
+        assertEquals(2, matcher.match("own_and_ben_01.txt"));
+        assertEquals(0, matcher.match("redemption"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("redemptio"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("other_01.txt"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match(""));
+    }
+
+    @Test
+    void testMatch_Globs() {
+        FileNameMatcher matcher = new FileNameMatcher(List.of("*.csv", "report_????.txt", "a*b*c"));
+
+        assertEquals(0, matcher.match("payments.csv"));
+        assertEquals(0, matcher.match(".csv"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("payments.csv.bak"));
+        assertEquals(1, matcher.match("report_2024.txt"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("report_24.txt"));
+        assertEquals(2, matcher.match("abc"));
+        assertEquals(2, matcher.match("axxbyybzc"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("axxbyy"));
+    }
+
+    @Test
+    void testMatch_FirstPatternWinsWhenSeveralMatch() {
+        FileNameMatcher matcher = new FileNameMatcher(List.of("outpay_urgent*", "outpay*", "*"));
+
+        assertEquals(0, matcher.match("outpay_urgent_01.txt"));
+        assertEquals(1, matcher.match("outpay_01.txt"));
+        assertEquals(2, matcher.match("redemption_01.txt"));
+    }
+
+    @Test
+    void testMatch_NonAsciiCharacters() {
+        FileNameMatcher matcher = new FileNameMatcher(List.of("zahlung_ä*", "?ß*"));
+
+        assertEquals(0, matcher.match("zahlung_ä.txt"));
+        assertEquals(1, matcher.match("éß.txt"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("zahlung_ö.txt"));
+    }
+
+    @Test
+    void testMatch_NoPatterns() {
+        FileNameMatcher matcher = new FileNameMatcher(List.of());
+
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("redemption_01.txt"));
+    }
+
+    @Test
+    void testMatch_ManyPrefixesShareOneAutomaton() {
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            patterns.add("feed" + i + "_*");
+        }
+        FileNameMatcher matcher = new FileNameMatcher(patterns);
+
+        assertEquals(0, matcher.match("feed0_01.txt"));
+        assertEquals(42, matcher.match("feed42_01.txt"));
+        assertEquals(299, matcher.match("feed299_01.txt"));
+        assertEquals(FileNameMatcher.NO_MATCH, matcher.match("feed300_01.txt"));
+        assertTrue(matcher.stateCount() < 2000);
+    }
+}
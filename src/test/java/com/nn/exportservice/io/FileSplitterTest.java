@@ -0,0 +1,112 @@
+package com.nn.exportservice.io;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSplitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSplit_CutsAtLineBoundariesAndRepeatsHeader() throws IOException {
+        StringBuilder content = new StringBuilder("id,amount\n");
+        for (int i = 1; i <= 1000; i++) {
+            content.append(i).append(',').append(i * 7 % 1000).append(".00\n");
+        }
+        Path source = Files.writeString(tempDir.resolve("outpay_001.csv"), content);
+        Path export = Files.createDirectory(tempDir.resolve("export"));
+
+        FileSplitter.Result result = split(source, export, 4, 1);
+
+        assertEquals(4, result.parts().size());
+        assertEquals(export.resolve("outpay_001.csv.index"), result.index());
+        StringBuilder joined = new StringBuilder("id,amount\n");
+        long records = 0;
+        for (FileSplitter.Part part : result.parts()) {
+            String partContent = Files.readString(part.file());
+            assertTrue(partContent.startsWith("id,amount\n"), part.file().toString());
+            assertTrue(partContent.endsWith("\n"), part.file().toString());
+            assertEquals("id,amount\n".length() + part.length(), partContent.length());
+            joined.append(partContent.substring("id,amount\n".length()));
+            records += part.records();
+        }
+        assertEquals(content.toString(), joined.toString());
+        assertEquals(1000, records);
+        assertTrue(Files.exists(source));
+
+        List<String> index = Files.readAllLines(result.index());
+        assertEquals("part,file,offset,length,records", index.getFirst());
+        FileSplitter.Part first = result.parts().getFirst();
+        assertEquals("1,outpay_001_part001.csv,10," + first.length() + "," + first.records(), index.get(1));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void testSplit_FewerLinesThanPartsAndUnterminatedLastLine() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_002.txt"), "a long first line\nb");
+
+        FileSplitter.Result result = split(source, tempDir, 4, 0);
+
+        assertEquals(List.of("a long first line\n", "b"), contents(result));
+        assertEquals(List.of(1L, 1L), result.parts().stream().map(FileSplitter.Part::records).toList());
+        assertEquals(List.of("outpay_002_part001.txt", "outpay_002_part002.txt"),
+                result.parts().stream().map(part -> part.file().getFileName().toString()).toList());
+    }
+
+    @Test
+    void testSplit_FileSystemWithoutMapping() throws IOException {
+        try (FileSystem memory = Jimfs.newFileSystem(Configuration.unix())) {
+            Path source = Files.writeString(memory.getPath("/outpay_003.csv"), "h\n1\n2\n3\n4\n");
+
+            FileSplitter.Result result = split(source, memory.getPath("/"), 2, 1);
+
+            assertEquals(List.of("h\n1\n2\n", "h\n3\n4\n"), contents(result));
+        }
+    }
+
+    @Test
+    void testSplit_RemovesPartsWhenDirectoryIsMissing() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_004.csv"), "1\n2\n3\n4\n");
+
+        assertThrows(IOException.class, () -> split(source, tempDir.resolve("missing"), 2, 0));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(source), files.toList());
+        }
+    }
+
+    @Test
+    void testPartName() {
+        assertEquals("outpay_001_part012.csv", FileSplitter.partName("outpay_001.csv", 12));
+        assertEquals("outpay_part001", FileSplitter.partName("outpay", 1));
+    }
+
+    private static FileSplitter.Result split(Path source, Path directory, int parts, int headerLines)
+            throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return new FileSplitter(executor).split(source, directory, parts, headerLines);
+        }
+    }
+
+    private static List<String> contents(FileSplitter.Result result) throws IOException {
+        List<String> contents = new ArrayList<>();
+        for (FileSplitter.Part part : result.parts()) {
+            contents.add(Files.readString(part.file()));
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,123 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSyncerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNone_CompletesImmediately() {
+        FileSyncer syncer = FileSyncer.none();
+
+        assertTrue(syncer.sync(tempDir.resolve("a.txt"), tempDir.resolve("missing").resolve("a.txt")).isDone());
+    }
+
+    @Test
+    void testPerFile_SyncsBeforeReturning() throws IOException {
+        FileSyncer syncer = FileSyncer.perFile();
+        Path target = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+
+        CompletableFuture<Void> synced = syncer.sync(tempDir.resolve("tmp").resolve("outpay_001.txt"), target);
+
+        assertTrue(synced.isDone());
+        assertFalse(synced.isCompletedExceptionally());
+    }
+
+    @Test
+    void testGroupCommit_CopyAndRemovalJoinTheOpenGroup() throws Exception {
+        FileSyncer syncer = FileSyncer.groupCommit(Duration.ofMinutes(10), 100);
+        try {
+            CompletableFuture<Void> copied = syncer.syncCopy(Files.createFile(tempDir.resolve("a.txt")));
+            CompletableFuture<Void> removed = syncer.syncRemoval(tempDir.resolve("tmp").resolve("a.txt"));
+
+            assertFalse(copied.isDone());
+            assertFalse(removed.isDone());
+            syncer.flush();
+            copied.get(5, TimeUnit.SECONDS);
+            removed.get(5, TimeUnit.SECONDS);
+        } finally {
+            syncer.close();
+        }
+    }
+
+    @Test
+    void testGroupCommit_SyncsOnCallingThreadOnceClosed() throws IOException {
+        FileSyncer syncer = FileSyncer.groupCommit(Duration.ofMinutes(10), 100);
+        syncer.close();
+
+        CompletableFuture<Void> synced = syncer.sync(tempDir.resolve("a"), Files.createFile(tempDir.resolve("a.txt")));
+
+        assertTrue(synced.isDone());
+        assertFalse(synced.isCompletedExceptionally());
+    }
+
+    @Test
+    void testPerFile_FailsWhenTargetCannotBeOpened() throws IOException {
+        FileSyncer syncer = FileSyncer.perFile();
+        Path notADirectory = Files.writeString(tempDir.resolve("file.txt"), "content");
+
+        CompletableFuture<Void> synced = syncer.sync(tempDir.resolve("a.txt"), notADirectory.resolve("a.txt"));
+
+        assertTrue(synced.isCompletedExceptionally());
+    }
+
+    @Test
+    void testGroupCommit_MovesWithinWindowShareOneCommit() throws Exception {
+        FileSyncer syncer = FileSyncer.groupCommit(Duration.ofMillis(200), 100);
+        try {
+            CompletableFuture<Void> first = syncer.sync(tempDir.resolve("a"), Files.createFile(tempDir.resolve("a.txt")));
+            CompletableFuture<Void> second = syncer.sync(tempDir.resolve("b"), Files.createFile(tempDir.resolve("b.txt")));
+
+            assertSame(first, second);
+            assertFalse(first.isDone());
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            syncer.close();
+        }
+    }
+
+    @Test
+    void testGroupCommit_FullGroupCommitsWithoutWaitingForWindow() throws Exception {
+        FileSyncer syncer = FileSyncer.groupCommit(Duration.ofMinutes(10), 2);
+        try {
+            CompletableFuture<Void> first = syncer.sync(tempDir.resolve("a"), Files.createFile(tempDir.resolve("a.txt")));
+            syncer.sync(tempDir.resolve("b"), Files.createFile(tempDir.resolve("b.txt")));
+            CompletableFuture<Void> next = syncer.sync(tempDir.resolve("c"), Files.createFile(tempDir.resolve("c.txt")));
+
+            first.get(5, TimeUnit.SECONDS);
+            assertNotSame(first, next);
+            assertFalse(next.isDone());
+
+            syncer.flush();
+            next.get(5, TimeUnit.SECONDS);
+        } finally {
+            syncer.close();
+        }
+    }
+
+    @Test
+    void testGroupCommit_FailedSyncFailsTheGroup() throws Exception {
+        FileSyncer syncer = FileSyncer.groupCommit(Duration.ofMillis(10), 100);
+        Path notADirectory = Files.writeString(tempDir.resolve("file.txt"), "content");
+        try {
+            CompletableFuture<Void> synced = syncer.sync(tempDir.resolve("a"), notADirectory.resolve("a.txt"));
+
+            assertThrows(ExecutionException.class, () -> synced.get(5, TimeUnit.SECONDS));
+        } finally {
+            syncer.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Murmur3HasherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHash_MatchesReferenceVector() {
+        Fingerprint fingerprint = Murmur3Hasher.hash("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", toReferenceHex(fingerprint));
+    }
+
+    @Test
+    void testHash_EmptyInput() {
+        Fingerprint fingerprint = Murmur3Hasher.hash(new byte[0]);
+
+        assertEquals(0L, fingerprint.high());
+        assertEquals(0L, fingerprint.low());
+    }
+
+    @Test
+    void testResume_FromStateMatchesUninterruptedHash() {
+        byte[] data = new byte[1000];
+        new Random(7).nextBytes(data);
+        Murmur3Hasher first = new Murmur3Hasher();
+        first.update(ByteBuffer.wrap(data, 0, 320));
+
+        Murmur3Hasher resumed = Murmur3Hasher.resume(first.state());
+        resumed.update(ByteBuffer.wrap(data, 320, data.length - 320));
+
+        assertEquals(Murmur3Hasher.hash(data), resumed.finish());
+    }
+
+    @Test
+    void testState_RequiresBlockBoundary() {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.update(ByteBuffer.wrap(new byte[20]));
+
+        assertThrows(IllegalStateException.class, hasher::state);
+    }
+
+    @Test
+    void testUpdate_ChunkedInputMatchesSingleUpdate() {
+        byte[] data = new byte[1000];
+        new Random(42).nextBytes(data);
+        Fingerprint expected = Murmur3Hasher.hash(data);
+
+        for (int chunkSize : new int[]{1, 7, 15, 16, 17, 333}) {
+            Murmur3Hasher hasher = new Murmur3Hasher();
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                hasher.update(ByteBuffer.wrap(data, offset, Math.min(chunkSize, data.length - offset)));
+            }
+            assertEquals(expected, hasher.finish(), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void testHash_FileMatchesByteArray() throws IOException {
+        byte[] data = new byte[200_003];
+        new Random(7).nextBytes(data);
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+
+        assertEquals(Murmur3Hasher.hash(data), Murmur3Hasher.hash(file));
+    }
+
+    @Test
+    void testHash_DifferentContentDifferentFingerprint() {
+        Fingerprint first = Murmur3Hasher.hash("redemption;1".getBytes(StandardCharsets.UTF_8));
+        Fingerprint second = Murmur3Hasher.hash("redemption;2".getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(first, second);
+    }
+
+    private static String toReferenceHex(Fingerprint fingerprint) {
+        // the reference implementation prints both halves as little-endian bytes
+        return String.format("%016x%016x", Long.reverseBytes(fingerprint.high()), Long.reverseBytes(fingerprint.low()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapFingerprintSetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAddAndContains() throws IOException {
+        try (OffHeapFingerprintSet set = OffHeapFingerprintSet.open(tempDir.resolve("fp.bin"), 1024, Duration.ofDays(1))) {
+            Fingerprint fingerprint = new Fingerprint(1L, 2L);
+
+            assertFalse(set.contains(fingerprint, 1000));
+            set.add(fingerprint, 1000);
+
+            assertTrue(set.contains(fingerprint, 2000));
+            assertFalse(set.contains(new Fingerprint(1L, 3L), 2000));
+            assertEquals(1, set.size());
+        }
+    }
+
+    @Test
+    void testContains_ExpiresAfterRetention() throws IOException {
+        try (OffHeapFingerprintSet set = OffHeapFingerprintSet.open(tempDir.resolve("fp.bin"), 1024, Duration.ofMillis(100))) {
+            Fingerprint fingerprint = new Fingerprint(1L, 2L);
+            set.add(fingerprint, 1000);
+
+            assertTrue(set.contains(fingerprint, 1100));
+            assertFalse(set.contains(fingerprint, 1101));
+        }
+    }
+
+    @Test
+    void testAdd_ReusesExpiredSlots() throws IOException {
+        try (OffHeapFingerprintSet set = OffHeapFingerprintSet.open(tempDir.resolve("fp.bin"), 16, Duration.ofMillis(100))) {
+            set.add(new Fingerprint(1L, 0L), 1000);
+            set.add(new Fingerprint(2L, 0L), 5000);
+
+            assertEquals(1, set.size());
+            assertTrue(set.contains(new Fingerprint(2L, 0L), 5000));
+        }
+    }
+
+    @Test
+    void testAdd_EvictsOldestWhenProbeWindowIsFull() throws IOException {
+        try (OffHeapFingerprintSet set = OffHeapFingerprintSet.open(tempDir.resolve("fp.bin"), 8, Duration.ZERO)) {
+            for (int i = 0; i < 8; i++) {
+                set.add(new Fingerprint(i, 0L), 1000 + i);
+            }
+            set.add(new Fingerprint(100L, 0L), 2000);
+
+            assertTrue(set.contains(new Fingerprint(100L, 0L), 2000));
+            assertFalse(set.contains(new Fingerprint(0L, 0L), 2000));
+            assertTrue(set.contains(new Fingerprint(7L, 0L), 2000));
+        }
+    }
+
+    @Test
+    void testOpen_PersistsAcrossReopen() throws IOException {
+        Path file = tempDir.resolve("state/fp.bin");
+        Fingerprint fingerprint = new Fingerprint(42L, 43L);
+        try (OffHeapFingerprintSet set = OffHeapFingerprintSet.open(file, 1000, Duration.ofDays(1))) {
+            set.add(fingerprint, 1000);
+        }
+
+        try (OffHeapFingerprintSet reopened = OffHeapFingerprintSet.open(file, 64, Duration.ofDays(1))) {
+            assertEquals(1024, reopened.capacity());
+            assertTrue(reopened.contains(fingerprint, 2000));
+        }
+    }
+
+    @Test
+    void testOpen_RejectsForeignFile() throws IOException {
+        Path file = tempDir.resolve("foreign.bin");
+        Files.write(file, new byte[128]);
+
+        assertThrows(IOException.class, () -> OffHeapFingerprintSet.open(file, 16, Duration.ofDays(1)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.nn.exportservice.io;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledFileCopierTest {
+
+    private static final int BUFFER_SIZE = 256;
+
+    @TempDir
+    Path tempDir;
+
+    private BufferPool bufferPool;
+    private PooledFileCopier copier;
+
+    @BeforeEach
+    void setUp() {
+        bufferPool = new BufferPool(BUFFER_SIZE, 2);
+        copier = new PooledFileCopier(bufferPool);
+    }
+
+    @Test
+    void testCopy_SmallFileUsesPooledBuffer() throws IOException {
+        byte[] content = randomBytes(100);
+        Path source = Files.write(tempDir.resolve("redemption_01.txt"), content);
+        Path target = tempDir.resolve("copy.txt");
+
+        assertEquals(100, copier.copy(source, target));
+        copier.copy(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue(Files.exists(source));
+        assertEquals(1, bufferPool.pooledCount());
+    }
+
+    @Test
+    void testCopy_LargeFileIsTransferred() throws IOException {
+        byte[] content = randomBytes(10 * BUFFER_SIZE + 7);
+        Path source = Files.write(tempDir.resolve("outpay_01.txt"), content);
+        Path target = tempDir.resolve("copy.txt");
+
+        assertEquals(content.length, copier.copy(source, target));
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(0, bufferPool.pooledCount());
+    }
+
+    @Test
+    void testCopy_LargeFileStreamsBetweenProviders() throws IOException {
+        byte[] content = randomBytes(10 * BUFFER_SIZE + 7);
+        try (FileSystem memory = Jimfs.newFileSystem(Configuration.unix())) {
+            Path source = Files.write(memory.getPath("/outpay_01.txt"), content);
+            Path target = tempDir.resolve("copy.txt");
+
+            assertEquals(content.length, copier.copy(source, target));
+
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(1, bufferPool.pooledCount());
+        }
+    }
+
+    @Test
+    void testCopy_ReplacesTargetAndKeepsModificationTime() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_01.txt"), "new");
+        FileTime modified = FileTime.fromMillis(1_700_000_000_000L);
+        Files.setLastModifiedTime(source, modified);
+        Path target = Files.writeString(tempDir.resolve("copy.txt"), "previous and longer content");
+
+        copier.copy(source, target);
+
+        assertEquals("new", Files.readString(target));
+        assertEquals(modified, Files.getLastModifiedTime(target));
+    }
+
+    @Test
+    void testCopy_EmptyFile() throws IOException {
+        Path source = Files.createFile(tempDir.resolve("empty.txt"));
+        Path target = tempDir.resolve("copy.txt");
+
+        assertEquals(0, copier.copy(source, target));
+        assertEquals(0, Files.size(target));
+    }
+
+    @Test
+    void testCopy_MissingSourceKeepsExistingTarget() throws IOException {
+        Path target = Files.writeString(tempDir.resolve("copy.txt"), "previous");
+
+        assertThrows(NoSuchFileException.class, () -> copier.copy(tempDir.resolve("missing.txt"), target));
+        assertEquals("previous", Files.readString(target));
+    }
+
+    @Test
+    void testBufferPool_ReusesReleasedBuffersUpToLimit() {
+        ByteBuffer first = bufferPool.acquire();
+        ByteBuffer second = bufferPool.acquire();
+        ByteBuffer third = bufferPool.acquire();
+        first.put((byte) 1);
+
+        bufferPool.release(first);
+        bufferPool.release(second);
+        bufferPool.release(third);
+
+        assertEquals(2, bufferPool.pooledCount());
+        ByteBuffer reused = bufferPool.acquire();
+        assertSame(first, reused);
+        assertTrue(reused.isDirect());
+        assertEquals(0, reused.position());
+        assertEquals(BUFFER_SIZE, reused.limit());
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,82 @@
+package com.nn.exportservice.io;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordCounterTest {
+
+    private static final String CONTENT = "id,created,amount\r\n"
+            + "1,2026-10-19T08:00:00Z,10.00\r\n"
+            + "2,2026-10-19T08:05:00Z,5.50\r\n"
+            + "3,2026-10-19T09:30:00Z,1.25\r\n"
+            + "TRAILER,3\r\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCount_RecordsBytesAndTimestamps() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("outpay_001.csv"), CONTENT);
+
+        RecordCounter.Counts counts = new RecordCounter(1, 1, 2, ',').count(file);
+
+        assertEquals(new RecordCounter.Counts(3, CONTENT.length(), "2026-10-19T08:00:00Z", "2026-10-19T09:30:00Z"), counts);
+    }
+
+    @Test
+    void testCount_UnterminatedLastLineWithoutHeaderOrTimestamps() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("outpay_001.txt"), "a\nb\nc");
+
+        assertEquals(new RecordCounter.Counts(3, 5, null, null), new RecordCounter(0, 0, 0, ',').count(file));
+        assertEquals(new RecordCounter.Counts(0, 0, null, null),
+                new RecordCounter(1, 1, 2, ',').count(Files.createFile(tempDir.resolve("empty.csv"))));
+    }
+
+    @Test
+    void testCount_FileSystemWithoutMapping() throws IOException {
+        try (FileSystem memory = Jimfs.newFileSystem(Configuration.unix())) {
+            Path file = Files.writeString(memory.getPath("/outpay_001.csv"), CONTENT);
+
+            RecordCounter.Counts counts = new RecordCounter(1, 1, 2, ',').count(file);
+
+            assertEquals(3, counts.records());
+            assertEquals("2026-10-19T09:30:00Z", counts.lastTimestamp());
+        }
+    }
+
+    @Test
+    void testCountLineFeeds_MatchesBytewiseCount() {
+        byte[] bytes = new byte[10_007];
+        Random random = new Random(7);
+        for (int i = 0; i < bytes.length; i++) {
+            // line feeds next to bytes that differ from them in a single bit
+            bytes[i] = switch (random.nextInt(4)) {
+                case 0 -> '\n';
+                case 1 -> (byte) ('\n' | 0x80);
+                case 2 -> (byte) ('\n' ^ 0x01);
+                default -> (byte) random.nextInt(256);
+            };
+        }
+        long expected = 0;
+        for (byte b : bytes) {
+            if (b == '\n') {
+                expected++;
+            }
+        }
+
+        assertEquals(expected, RecordCounter.countLineFeeds(ByteBuffer.wrap(bytes)));
+        assertEquals(2, RecordCounter.countLineFeeds(ByteBuffer.wrap("a\n\n".getBytes(StandardCharsets.US_ASCII))));
+    }
+}
@@ -0,0 +1,128 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumableFileCopierTest {
+
+    private static final int CHUNK_SIZE = 64;
+
+    @TempDir
+    Path tempDir;
+
+    private Path source;
+    private Path target;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[1000];
+        new Random(42).nextBytes(content);
+        source = Files.write(tempDir.resolve("outpay_01.txt"), content);
+        target = Files.createDirectories(tempDir.resolve("export")).resolve("outpay_01.txt");
+    }
+
+    @Test
+    void testCopy_PublishesCompleteFileAndRemovesStagingFiles() throws IOException {
+        ResumableFileCopier copier = new ResumableFileCopier(CHUNK_SIZE, 0, Duration.ZERO,
+                ResumableFileCopier.ChunkListener.NONE);
+
+        Fingerprint fingerprint = copier.copy(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(Murmur3Hasher.hash(content), fingerprint);
+        assertTrue(Files.exists(source));
+        assertFalse(Files.exists(ResumableFileCopier.partFile(target)));
+        assertFalse(Files.exists(ResumableFileCopier.checkpointFile(target)));
+    }
+
+    @Test
+    void testCopy_ResumesFromLastCheckpointAfterRestart() throws IOException {
+        failAt(3 * CHUNK_SIZE);
+        assertFalse(Files.exists(target));
+        assertTrue(Files.exists(ResumableFileCopier.checkpointFile(target)));
+
+        List<Long> offsets = new ArrayList<>();
+        Fingerprint fingerprint = new ResumableFileCopier(CHUNK_SIZE, 0, Duration.ZERO, offsets::add).copy(source, target);
+
+        assertEquals(3L * CHUNK_SIZE, offsets.get(0));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(Murmur3Hasher.hash(content), fingerprint);
+    }
+
+    @Test
+    void testCopy_RetriesTransientErrorFromLastCheckpoint() throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        boolean[] failed = new boolean[1];
+        ResumableFileCopier copier = new ResumableFileCopier(CHUNK_SIZE, 1, Duration.ZERO, offset -> {
+            offsets.add(offset);
+            if (offset == 2 * CHUNK_SIZE && !failed[0]) {
+                failed[0] = true;
+                throw new IOException("Mount unavailable");
+            }
+        });
+
+        copier.copy(source, target);
+
+        assertEquals(List.of(64L, 128L, 128L, 192L), offsets.subList(0, 4));
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    void testCopy_StartsOverWhenSourceChanged() throws IOException {
+        failAt(3 * CHUNK_SIZE);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+
+        List<Long> offsets = new ArrayList<>();
+        new ResumableFileCopier(CHUNK_SIZE, 0, Duration.ZERO, offsets::add).copy(source, target);
+
+        assertEquals((long) CHUNK_SIZE, offsets.get(0));
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    void testCopy_StartsOverWhenStagedPrefixIsCorrupt() throws IOException {
+        failAt(3 * CHUNK_SIZE);
+        Path part = ResumableFileCopier.partFile(target);
+        byte[] staged = Files.readAllBytes(part);
+        staged[10] = (byte) (staged[10] ^ 0xff);
+        Files.write(part, staged);
+
+        List<Long> offsets = new ArrayList<>();
+        new ResumableFileCopier(CHUNK_SIZE, 0, Duration.ZERO, offsets::add).copy(source, target);
+
+        assertEquals((long) CHUNK_SIZE, offsets.get(0));
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    void testCopy_GivesUpAfterRetries() {
+        ResumableFileCopier copier = new ResumableFileCopier(CHUNK_SIZE, 2, Duration.ZERO, offset -> {
+            throw new IOException("Mount unavailable");
+        });
+
+        assertThrows(IOException.class, () -> copier.copy(source, target));
+        assertFalse(Files.exists(target));
+    }
+
+    private void failAt(long failingOffset) {
+        ResumableFileCopier copier = new ResumableFileCopier(CHUNK_SIZE, 0, Duration.ZERO, offset -> {
+            if (offset == failingOffset) {
+                throw new IOException("Process killed");
+            }
+        });
+        assertThrows(IOException.class, () -> copier.copy(source, target));
+    }
+}
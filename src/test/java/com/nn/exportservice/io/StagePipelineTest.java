@@ -0,0 +1,143 @@
+package com.nn.exportservice.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagePipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private StagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        pipeline = new StagePipeline(executor, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testRun_ChainsStagesAndRecordsTheirTimes() throws IOException {
+        // many times the chunks a pipe holds, so the stages have to run at the same time
+        byte[] content = new byte[256 * 1024];
+        new Random(1).nextBytes(content);
+        Path source = Files.write(tempDir.resolve("outpay_001.txt"), content);
+        List<ExportStage> stages = List.of(new InvertStage(), new GzipStage());
+        Path target = tempDir.resolve(StagePipeline.targetName(stages, "outpay_001.txt"));
+        Map<String, Long> times = new ConcurrentHashMap<>();
+
+        pipeline.run(source, target, stages, times::put);
+
+        assertEquals("outpay_001.txt.gz", target.getFileName().toString());
+        byte[] exported;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            exported = in.readAllBytes();
+        }
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ~content[i];
+        }
+        assertArrayEquals(content, exported);
+        assertTrue(Files.exists(source));
+        assertFalse(Files.exists(ResumableFileCopier.partFile(target)));
+        assertEquals(Files.getLastModifiedTime(source), Files.getLastModifiedTime(target));
+        assertEquals(2, times.size());
+        assertTrue(times.get("invert") > 0);
+        assertTrue(times.get("gzip") > 0);
+    }
+
+    @Test
+    void testRun_FailedStageLeavesNoTarget() throws IOException {
+        Path source = Files.write(tempDir.resolve("outpay_001.txt"), new byte[64 * 1024]);
+        Path target = tempDir.resolve("outpay_001.txt.gz");
+        ExportStage failing = new ExportStage() {
+            @Override
+            public String name() {
+                return "failing";
+            }
+
+            @Override
+            public void process(InputStream input, OutputStream output) throws IOException {
+                input.readNBytes(2048);
+                throw new IOException("corrupt record");
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> pipeline.run(source, target, List.of(new InvertStage(), failing, new GzipStage()), (stage, nanos) -> {}));
+
+        assertTrue(e.getMessage().contains("failing"), e.getMessage());
+        assertTrue(e.getMessage().contains("corrupt record"), e.getMessage());
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(ResumableFileCopier.partFile(target)));
+        assertTrue(Files.exists(source));
+    }
+
+    @Test
+    void testRun_StageReturningBeforeEndOfInputFailsInsteadOfBlocking() throws IOException {
+        // far more than the pipe holds, so the stage before it is blocked on a full pipe
+        Path source = Files.write(tempDir.resolve("outpay_001.txt"), new byte[256 * 1024]);
+        Path target = tempDir.resolve("outpay_001.txt.gz");
+        ExportStage headerCheck = new ExportStage() {
+            @Override
+            public String name() {
+                return "header-check";
+            }
+
+            @Override
+            public void process(InputStream input, OutputStream output) throws IOException {
+                output.write(input.read());
+            }
+        };
+
+        assertThrows(IOException.class, () -> assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> pipeline.run(source, target, List.of(new InvertStage(), headerCheck, new GzipStage()),
+                        (stage, nanos) -> {})));
+
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(ResumableFileCopier.partFile(target)));
+    }
+
+    private static final class InvertStage implements ExportStage {
+
+        @Override
+        public String name() {
+            return "invert";
+        }
+
+        @Override
+        public void process(InputStream input, OutputStream output) throws IOException {
+            byte[] buffer = new byte[700];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    buffer[i] = (byte) ~buffer[i];
+                }
+                output.write(buffer, 0, read);
+            }
+        }
+    }
+}
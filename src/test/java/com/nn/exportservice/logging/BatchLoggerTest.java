@@ -0,0 +1,75 @@
+package com.nn.exportservice.logging;
+
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.model.FileOperationResult;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchLoggerTest {
+
+    private final Path from = Paths.get("/tmp/redemption_01.txt");
+    private final Path to = Paths.get("/export/redemption_01.txt");
+
+    @Test
+    void testDetailedMode_LogsEveryFile() {
+        Logger log = mock(Logger.class);
+        BatchLogger batchLogger = new BatchLogger(log, ExportLoggingProperties.defaults());
+
+        for (int i = 0; i < 5; i++) {
+            batchLogger.fileMoved("redemption_01.txt", from, to);
+        }
+
+        verify(log, times(5)).info(eq("filename={} from={} to={}"), any(), any(), any());
+    }
+
+    @Test
+    void testSampledMode_LogsOneInNSuccesses() {
+        Logger log = mock(Logger.class);
+        BatchLogger batchLogger = new BatchLogger(log, sampled(10, 100, 2));
+
+        for (int i = 0; i < 25; i++) {
+            batchLogger.fileMoved("redemption_01.txt", from, to);
+        }
+
+        verify(log, times(3)).info(eq("filename={} from={} to={} sample={}"), any(Object[].class));
+    }
+
+    @Test
+    void testSampledMode_FullDetailOnlyForFirstFailures() {
+        Logger log = mock(Logger.class);
+        BatchLogger batchLogger = new BatchLogger(log, sampled(10, 5, 2));
+        IOException error = new IOException("Permission denied");
+
+        for (int i = 0; i < 12; i++) {
+            batchLogger.fileFailed("redemption_01.txt", error);
+        }
+
+        verify(log, times(2)).error("failed to move file filename={} error={}", "redemption_01.txt", "Permission denied", error);
+        verify(log, times(2)).error(eq("failed to move file filename={} error={} sample={}"), any(), any(), any());
+    }
+
+    @Test
+    void testSampledMode_CompletedLogsAggregate() {
+        Logger log = mock(Logger.class);
+        BatchLogger batchLogger = new BatchLogger(log, sampled(10, 5, 2));
+        batchLogger.fileFailed("redemption_02.txt", new IOException("Permission denied"));
+        FileOperationResult result = new FileOperationResult();
+        result.addSuccess("redemption_01.txt");
+        result.addError("redemption_02.txt", "Permission denied");
+
+        batchLogger.completed(result);
+
+        verify(log).info(startsWith("moved {} files, {} errors, {} duplicates elapsedMs={}"), any(Object[].class));
+    }
+
+    private static ExportLoggingProperties sampled(int successRate, int failureRate, int detailLimit) {
+        return new ExportLoggingProperties(ExportLoggingProperties.Mode.SAMPLED, successRate, failureRate, detailLimit);
+    }
+}
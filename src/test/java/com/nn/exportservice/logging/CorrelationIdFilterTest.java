@@ -0,0 +1,46 @@
+package com.nn.exportservice.logging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    void testDoFilter_UsesIncomingHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/api/export/redemption");
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "upstream-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                seen.set(LoggingContext.getCorrelationId());
+            }
+        });
+
+        assertThat(seen.get()).isEqualTo("upstream-123");
+        assertThat(response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER)).isEqualTo("upstream-123");
+        assertThat(LoggingContext.getCorrelationId()).isNull();
+    }
+
+    @Test
+    void testDoFilter_GeneratesIdWhenHeaderMissingOrInvalid() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/api/export/redemption");
+        request.addHeader(CorrelationIdFilter.CORRELATION_ID_HEADER, "bad id\nwith newline");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getHeader(CorrelationIdFilter.CORRELATION_ID_HEADER))
+                .matches("[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
+    }
+}
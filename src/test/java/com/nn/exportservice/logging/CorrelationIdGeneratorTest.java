@@ -0,0 +1,34 @@
+package com.nn.exportservice.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdGeneratorTest {
+
+    @Test
+    void testNext_IsUuidVersion7() {
+        UUID id = UUID.fromString(CorrelationIdGenerator.next());
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void testNext_IsUniqueAndMonotonic() {
+        Set<String> ids = new HashSet<>();
+        String previous = CorrelationIdGenerator.next();
+        for (int i = 0; i < 10_000; i++) {
+            String id = CorrelationIdGenerator.next();
+            assertThat(id).isGreaterThan(previous);
+            ids.add(id);
+            previous = id;
+        }
+
+        assertThat(ids).hasSize(10_000);
+    }
+}
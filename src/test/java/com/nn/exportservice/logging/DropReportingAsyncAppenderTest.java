@@ -0,0 +1,153 @@
+package com.nn.exportservice.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DropReportingAsyncAppenderTest {
+
+    @Test
+    void testAppend_CountsAndReportsDroppedEvents() throws InterruptedException {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListAppender target = new BlockingListAppender(release);
+        target.setContext(context);
+        target.start();
+
+        DropReportingAsyncAppender appender = new DropReportingAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC_TEST");
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(target);
+        appender.start();
+
+        Logger logger = context.getLogger("test");
+        logger.addAppender(appender);
+
+        for (int i = 0; i < 50; i++) {
+            logger.info("line {}", i);
+        }
+        assertThat(appender.getTotalDropped()).isGreaterThan(0);
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> appender.getNumberOfElementsInQueue() == 0);
+        logger.info("after drain");
+        appender.stop();
+
+        assertThat(target.events)
+                .anyMatch(event -> event.getFormattedMessage().contains("dropped"))
+                .anyMatch(event -> event.getFormattedMessage().equals("after drain"));
+    }
+
+    @Test
+    void testAppend_CountsExactlyTheEventsNotEnqueuedUnderConcurrentLogging() throws InterruptedException {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListAppender target = new BlockingListAppender(release);
+        target.setContext(context);
+        target.start();
+        DropReportingAsyncAppender appender = appender(context, target);
+        Logger logger = context.getLogger("test");
+        logger.addAppender(appender);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 250; i++) {
+                    logger.info("line {}", i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        release.countDown();
+        appender.stop();
+
+        long delivered = target.events.stream().filter(event -> event.getLoggerName().equals("test")).count();
+        long reported = target.events.stream()
+                .filter(event -> event.getLoggerName().equals(DropReportingAsyncAppender.class.getName()))
+                .mapToLong(event -> (Long) event.getArgumentArray()[1])
+                .sum();
+        assertThat(delivered + appender.getTotalDropped()).isEqualTo(1000);
+        assertThat(reported).isEqualTo(appender.getTotalDropped());
+    }
+
+    @Test
+    void testStop_ReportsDropsThatWereNotReportedYet() {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListAppender target = new BlockingListAppender(release);
+        target.setContext(context);
+        target.start();
+        DropReportingAsyncAppender appender = appender(context, target);
+        Logger logger = context.getLogger("test");
+        logger.addAppender(appender);
+        // the worker takes the first line and blocks on it, the queue never has room during the loop below
+        logger.info("first");
+        await().atMost(Duration.ofSeconds(5)).until(() -> appender.getNumberOfElementsInQueue() == 0);
+
+        for (int i = 0; i < 50; i++) {
+            logger.info("line {}", i);
+        }
+        release.countDown();
+        // no event after the drops, only stopping can report them
+        appender.stop();
+
+        assertThat(target.events)
+                .filteredOn(event -> event.getFormattedMessage().contains("dropped"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getArgumentArray()[1]).isEqualTo(appender.getTotalDropped()));
+    }
+
+    private static DropReportingAsyncAppender appender(LoggerContext context, BlockingListAppender target) {
+        DropReportingAsyncAppender appender = new DropReportingAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC_TEST");
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.setMaxFlushTime(5000);
+        appender.addAppender(target);
+        appender.start();
+        return appender;
+    }
+
+    private static class BlockingListAppender extends AppenderBase<ILoggingEvent> {
+
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+
+        BlockingListAppender(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.nn.exportservice.logging;
+
+import com.nn.exportservice.config.TracingProperties;
+import com.nn.exportservice.model.TestFileTypes;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportTracingTest {
+
+    private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+    private ObservationRegistry observationRegistry;
+
+    @BeforeEach
+    void setUp() {
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        LoggingContext.clear();
+    }
+
+    @Test
+    void testBatch_CarriesCorrelationIdAndParentsChildSpans() {
+        ExportTracing tracing = new ExportTracing(observationRegistry, TracingProperties.defaults());
+        LoggingContext.setCorrelationId("corr-1");
+
+        String result = tracing.batch("manual", TestFileTypes.REDEMPTION,
+                () -> tracing.span(ExportTracing.SCAN, TestFileTypes.REDEMPTION, () -> "scanned"));
+
+        assertThat(result).isEqualTo("scanned");
+        assertThat(stopped).extracting(Observation.Context::getName).containsExactly(ExportTracing.SCAN, ExportTracing.BATCH);
+        Observation.Context scan = stopped.get(0);
+        Observation.Context batch = stopped.get(1);
+        assertThat(scan.getParentObservation().getContextView()).isSameAs(batch);
+        assertThat(batch.getHighCardinalityKeyValue("correlation.id").getValue()).isEqualTo("corr-1");
+        assertThat(batch.getLowCardinalityKeyValue("trigger").getValue()).isEqualTo("manual");
+        assertThat(batch.getLowCardinalityKeyValue("file.type").getValue()).isEqualTo("redemption");
+    }
+
+    @Test
+    void testFile_SamplesOneInNUnderCapturedParent() {
+        ExportTracing tracing = new ExportTracing(observationRegistry, new TracingProperties(2));
+
+        tracing.batch("scheduled", TestFileTypes.OUTPAY, () -> {
+            Observation parent = tracing.current();
+            List<CompletableFuture<Void>> moves = List.of("outpay_1.txt", "outpay_2.txt", "outpay_3.txt").stream()
+                    .map(name -> CompletableFuture.runAsync(
+                            tracing.file(parent, TestFileTypes.OUTPAY, name, "default-0", () -> { })))
+                    .toList();
+            moves.forEach(CompletableFuture::join);
+            return null;
+        });
+
+        List<Observation.Context> files = stopped.stream()
+                .filter(context -> context.getName().equals(ExportTracing.FILE))
+                .toList();
+        assertThat(files).hasSize(2);
+        Observation.Context batch = stopped.get(stopped.size() - 1);
+        assertThat(files).allSatisfy(file -> assertThat(file.getParentObservation().getContextView()).isSameAs(batch));
+    }
+
+    @Test
+    void testRunWithin_MakesParentCurrentOnAnotherThread() {
+        ExportTracing tracing = new ExportTracing(observationRegistry, TracingProperties.defaults());
+        Observation parent = Observation.start("export.batch", observationRegistry);
+
+        Observation seen = CompletableFuture.supplyAsync(() -> {
+            Observation[] current = new Observation[1];
+            tracing.runWithin(parent, () -> current[0] = tracing.current());
+            return current[0];
+        }).join();
+        parent.stop();
+
+        assertThat(seen).isSameAs(parent);
+    }
+
+    @Test
+    void testDisabled_LeavesMovesUnwrapped() {
+        ExportTracing tracing = ExportTracing.disabled();
+        Runnable move = () -> { };
+
+        assertThat(tracing.file(null, TestFileTypes.REDEMPTION, "redemption_1.txt", "default-0", move)).isSameAs(move);
+        assertThat(tracing.batch("manual", TestFileTypes.REDEMPTION, () -> "done")).isEqualTo("done");
+        assertThat(tracing.current()).isNull();
+    }
+}
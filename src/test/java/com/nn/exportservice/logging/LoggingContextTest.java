@@ -4,6 +4,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.MDC;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class LoggingContextTest {
@@ -61,4 +65,43 @@ class LoggingContextTest {
 
         assertThat(LoggingContext.getCorrelationId()).isEqualTo(customId);
     }
+
+    @Test
+    void testWrap_PropagatesContextToWorkerThread() throws Exception {
+        LoggingContext.setOperation("test_operation");
+        String correlationId = LoggingContext.getCorrelationId();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> workerCorrelationId = executor.submit(LoggingContext.wrap(LoggingContext::getCorrelationId));
+
+            assertThat(workerCorrelationId.get()).isEqualTo(correlationId);
+        }
+    }
+
+    @Test
+    void testWrap_RestoresWorkerContextAfterTask() throws Exception {
+        LoggingContext.setCorrelationId("caller-id");
+        Runnable task = LoggingContext.wrap(() -> {
+            assertThat(LoggingContext.getCorrelationId()).isEqualTo("caller-id");
+        });
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            executor.submit(() -> LoggingContext.setCorrelationId("worker-id")).get();
+            executor.submit(task).get();
+
+            assertThat(executor.submit(LoggingContext::getCorrelationId).get()).isEqualTo("worker-id");
+        }
+    }
+
+    @Test
+    void testTaskDecorator_WrapsWithCallerContext() throws Exception {
+        LoggingContext.setCorrelationId("decorated-id");
+        String[] seen = new String[1];
+        Runnable decorated = new LoggingContextTaskDecorator().decorate(() -> seen[0] = LoggingContext.getCorrelationId());
+
+        Thread worker = Thread.ofVirtual().start(decorated);
+        worker.join();
+
+        assertThat(seen[0]).isEqualTo("decorated-id");
+    }
 }
@@ -1,11 +1,14 @@
 package com.nn.exportservice.mapper;
 
 import com.nn.exportservice.dto.FileExportResponse;
+import com.nn.exportservice.dto.FileStatistics;
 import com.nn.exportservice.model.FileOperationResult;
-import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class FileExportMapperTest {
@@ -23,7 +26,7 @@ class FileExportMapperTest {
         result.addSuccess("file1.txt");
         result.addSuccess("file2.txt");
 
-        FileExportResponse response = mapper.toResponse(FileType.REDEMPTION, result);
+        FileExportResponse response = mapper.toResponse(TestFileTypes.REDEMPTION, result);
 
         assertEquals("REDEMPTION", response.fileType());
         assertEquals(2, response.filesProcessed());
@@ -39,7 +42,7 @@ class FileExportMapperTest {
         result.addSuccess("file1.txt");
         result.addError("file2.txt", "Permission denied");
 
-        FileExportResponse response = mapper.toResponse(FileType.OUTPAY, result);
+        FileExportResponse response = mapper.toResponse(TestFileTypes.OUTPAY, result);
 
         assertEquals("OUTPAY", response.fileType());
         assertEquals(1, response.filesProcessed());
@@ -49,11 +52,24 @@ class FileExportMapperTest {
         assertEquals("Permission denied", response.errors().get(0).errorMessage());
     }
 
+    @Test
+    void testToResponse_WithStatistics() {
+        FileOperationResult result = new FileOperationResult();
+        result.addSuccess("file1.csv");
+        result.addStatistics(new FileOperationResult.FileStatistics("file1.csv", "file1.csv.gz", 42, 1024,
+                "2026-10-19T08:00:00Z", "2026-10-19T09:00:00Z"));
+
+        FileExportResponse response = mapper.toResponse(TestFileTypes.OUTPAY, result);
+
+        assertEquals(List.of(new FileStatistics("file1.csv", "file1.csv.gz", 42, 1024,
+                "2026-10-19T08:00:00Z", "2026-10-19T09:00:00Z")), response.statistics());
+    }
+
     @Test
     void testToResponse_WithNoFiles() {
         FileOperationResult result = new FileOperationResult();
 
-        FileExportResponse response = mapper.toResponse(FileType.OWN_AND_BEN, result);
+        FileExportResponse response = mapper.toResponse(TestFileTypes.OWN_AND_BEN, result);
 
         assertEquals("OWN_AND_BEN", response.fileType());
         assertEquals(0, response.filesProcessed());
@@ -68,7 +84,7 @@ class FileExportMapperTest {
         result.addError("file2.txt", "Permission denied");
         result.addError("file3.txt", "Disk full");
 
-        FileExportResponse response = mapper.toResponse(FileType.REDEMPTION, result);
+        FileExportResponse response = mapper.toResponse(TestFileTypes.REDEMPTION, result);
 
         assertEquals(0, response.filesProcessed());
         assertEquals(3, response.errors().size());
@@ -0,0 +1,36 @@
+package com.nn.exportservice.model;
+
+import com.nn.exportservice.service.FileTypeRegistry;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The file types configured in the application profiles, for tests that do not load configuration
+ */
+public final class TestFileTypes {
+
+    public static final FileType REDEMPTION = type("redemption", "redemption", 1, Duration.ofHours(1))
+            .cron("0 0 * * * *")
+            .build();
+    public static final FileType OUTPAY = type("outpay", "outpay", 2, Duration.ofHours(6))
+            .cron("0 0 */6 * * *")
+            .build();
+    public static final FileType OWN_AND_BEN = type("own-and-ben", "own_and_ben", 3, Duration.ofHours(12))
+            .cron("0 0 */12 * * *")
+            .build();
+
+    private TestFileTypes() {
+    }
+
+    /**
+     * A type with the components every type has, the rest left to the caller
+     */
+    public static FileType.FileTypeBuilder type(String id, String pattern, int priority, Duration targetLatency) {
+        return FileType.builder().id(id).pattern(pattern).priority(priority).targetLatency(targetLatency);
+    }
+
+    public static FileTypeRegistry registry() {
+        return new FileTypeRegistry(List.of(REDEMPTION, OUTPAY, OWN_AND_BEN));
+    }
+}
@@ -0,0 +1,91 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.model.FileType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePollingTriggerTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private AdaptivePollingTrigger trigger;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        trigger = new AdaptivePollingTrigger(new FileType.AdaptivePolling(Duration.ofSeconds(10), Duration.ofMinutes(16)));
+        now = START;
+    }
+
+    @Test
+    void testNextExecution_StartsAtMinInterval() {
+        SimpleTriggerContext context = new SimpleTriggerContext(Clock.fixed(START, ZoneOffset.UTC));
+
+        assertEquals(START.plusSeconds(10), trigger.nextExecution(context));
+    }
+
+    @Test
+    void testNextExecution_CountsFromLastCompletion() {
+        SimpleTriggerContext context = new SimpleTriggerContext(Clock.fixed(START, ZoneOffset.UTC));
+        context.update(START, START, START.plusSeconds(3));
+
+        assertEquals(START.plusSeconds(13), trigger.nextExecution(context));
+    }
+
+    @Test
+    void testRecordScan_EmptyScansBackOffExponentiallyToMax() {
+        assertEquals(Duration.ofSeconds(20), scan(0));
+        assertEquals(Duration.ofSeconds(40), scan(0));
+        assertEquals(Duration.ofSeconds(80), scan(0));
+        for (int i = 0; i < 10; i++) {
+            scan(0);
+        }
+        assertEquals(Duration.ofMinutes(16), trigger.getInterval());
+    }
+
+    @Test
+    void testRecordScan_FilesShortenIntervalToExpectedArrivalGap() {
+        for (int i = 0; i < 6; i++) {
+            scan(0);
+        }
+        assertEquals(Duration.ofMinutes(10).plusSeconds(40), trigger.getInterval());
+
+        // 64 files in 640s: about one every 20s once weighed into the estimate
+        assertEquals(Duration.ofSeconds(20), scan(64));
+        assertEquals(Duration.ofSeconds(10), scan(2));
+    }
+
+    @Test
+    void testRecordScan_BackOffFollowsDecayingArrivalRate() {
+        scan(0);
+        scan(10);
+        assertEquals(Duration.ofSeconds(10), trigger.getInterval());
+
+        // the estimate still expects a file every 8s, so one empty scan keeps the interval
+        assertEquals(Duration.ofSeconds(10), scan(0));
+        assertTrue(trigger.getArrivalRate() > 0);
+        assertEquals(Duration.ofSeconds(16), scan(0));
+    }
+
+    @Test
+    void testAdaptivePolling_RejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileType.AdaptivePolling(Duration.ZERO, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileType.AdaptivePolling(Duration.ofMinutes(2), Duration.ofMinutes(1)));
+    }
+
+    private Duration scan(int filesFound) {
+        now = now.plus(trigger.getInterval());
+        trigger.recordScan(filesFound, now);
+        return trigger.getInterval();
+    }
+}
@@ -0,0 +1,94 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimitTest {
+
+    private static final long BASELINE = 10_000_000;
+
+    private final List<Integer> changes = new ArrayList<>();
+
+    private AimdLimit limit(int initial, int max) {
+        return new AimdLimit("test", initial, new ConcurrencyProperties(true, 1, max, 2.0, 0.5, 0.1, 4), changes::add);
+    }
+
+    @Test
+    void testLimit_RaisesByOneWhileSaturatedAtBaselineLatency() {
+        AimdLimit limit = limit(4, 64);
+
+        runWindow(limit, 4, BASELINE, true);
+        runWindow(limit, 5, BASELINE, true);
+
+        assertEquals(6, limit.getLimit());
+        assertEquals(List.of(5, 6), changes);
+    }
+
+    @Test
+    void testLimit_StaysWhenNotSaturated() {
+        AimdLimit limit = limit(4, 64);
+
+        runWindow(limit, 2, BASELINE, true);
+        runWindow(limit, 2, BASELINE, true);
+
+        assertEquals(4, limit.getLimit());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testLimit_CutsMultiplicativelyWhenLatencyRises() {
+        AimdLimit limit = limit(8, 64);
+
+        runWindow(limit, 8, BASELINE, true);
+        runWindow(limit, 9, 5 * BASELINE, true);
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void testLimit_CutsWhenErrorRateRises() {
+        AimdLimit limit = limit(8, 64);
+
+        runWindow(limit, 8, BASELINE, true);
+        runWindow(limit, 9, BASELINE, false);
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void testLimit_StaysWithinBounds() {
+        AimdLimit limit = limit(3, 4);
+
+        runWindow(limit, 3, BASELINE, true);
+        runWindow(limit, 4, BASELINE, true);
+        assertEquals(4, limit.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            runWindow(limit, limit.getLimit(), BASELINE, false);
+        }
+        assertEquals(1, limit.getLimit());
+    }
+
+    /**
+     * Runs one evaluation window of moves with the given concurrency
+     */
+    private static void runWindow(AimdLimit limit, int concurrency, long latency, boolean succeeded) {
+        int moves = Math.max(4, limit.getLimit());
+        int done = 0;
+        while (done < moves) {
+            int batch = Math.min(concurrency, moves - done);
+            for (int i = 0; i < batch; i++) {
+                limit.started();
+            }
+            for (int i = 0; i < batch; i++) {
+                limit.finished(latency, succeeded);
+            }
+            done += batch;
+        }
+    }
+}
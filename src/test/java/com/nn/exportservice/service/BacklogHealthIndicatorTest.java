@@ -0,0 +1,177 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.BacklogProperties;
+import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.model.TestFileTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacklogHealthIndicatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path tmpFolder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+    }
+
+    @Test
+    void testHealth_UpWithPendingDetailsPerType() throws IOException {
+        Files.writeString(tmpFolder.resolve("redemption_001.txt"), "12345");
+        Files.writeString(tmpFolder.resolve("redemption_002.txt"), "123");
+        Files.writeString(tmpFolder.resolve("unknown.txt"), "ignored");
+
+        Health health = indicator(BacklogProperties.defaults()).health();
+
+        assertEquals(Status.UP, health.getStatus());
+        Map<?, ?> redemption = (Map<?, ?>) health.getDetails().get("redemption");
+        assertEquals(2L, redemption.get("pending"));
+        assertEquals(8L, redemption.get("pendingBytes"));
+        assertEquals("UP", redemption.get("status"));
+        assertEquals(0L, ((Map<?, ?>) health.getDetails().get("outpay")).get("pending"));
+    }
+
+    @Test
+    void testHealth_DegradedWhenOldestFileExceedsTargetLatency() throws IOException {
+        // redemption has a target latency of 1h
+        age(Files.createFile(tmpFolder.resolve("redemption_001.txt")), Duration.ofMinutes(90));
+        age(Files.createFile(tmpFolder.resolve("outpay_001.txt")), Duration.ofMinutes(90));
+
+        Health health = indicator(BacklogProperties.defaults()).health();
+
+        assertEquals(BacklogHealthIndicator.DEGRADED, health.getStatus());
+        assertEquals("DEGRADED", ((Map<?, ?>) health.getDetails().get("redemption")).get("status"));
+        assertEquals("UP", ((Map<?, ?>) health.getDetails().get("outpay")).get("status"));
+    }
+
+    @Test
+    void testHealth_DownWhenOldestFileExceedsDownAgeFactor() throws IOException {
+        age(Files.createFile(tmpFolder.resolve("redemption_001.txt")), Duration.ofHours(3));
+
+        assertEquals(Status.DOWN, indicator(BacklogProperties.defaults()).health().getStatus());
+    }
+
+    @Test
+    void testHealth_CountThresholds() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            Files.createFile(tmpFolder.resolve("outpay_00" + i + ".txt"));
+        }
+
+        assertEquals(BacklogHealthIndicator.DEGRADED,
+                indicator(new BacklogProperties(Duration.ofSeconds(30), 3, 2, 5, 1.0, 2.0)).health().getStatus());
+        assertEquals(Status.DOWN,
+                indicator(new BacklogProperties(Duration.ofSeconds(30), 3, 2, 3, 1.0, 2.0)).health().getStatus());
+    }
+
+    @Test
+    void testSnapshot_ReusedUntilRefreshed() throws IOException {
+        BacklogMonitor monitor = monitor(BacklogProperties.defaults());
+        BacklogMonitor.Snapshot first = monitor.snapshot();
+        Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+
+        assertSame(first, monitor.snapshot());
+        assertEquals(0, monitor.snapshot().types().get("outpay").count());
+
+        monitor.refresh();
+        assertEquals(1, monitor.snapshot().types().get("outpay").count());
+    }
+
+    @Test
+    void testStart_RefreshesInBackground() throws IOException {
+        BacklogMonitor monitor = new BacklogMonitor(new FileSystemProperties(tmpFolder.toString(),
+                tempDir.resolve("export").toString()), TestFileTypes.registry(),
+                new BacklogProperties(Duration.ofMillis(50), 3, 10, 100, 1.0, 2.0), FileStoreRegistry.defaultOnly());
+        Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+
+        try {
+            monitor.start();
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> monitor.snapshot() != null
+                    && monitor.snapshot().types().get("outpay").count() == 1);
+            Files.createFile(tmpFolder.resolve("outpay_002.txt"));
+            await().atMost(Duration.ofSeconds(5)).until(() -> monitor.snapshot().types().get("outpay").count() == 2);
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void testHealth_UnknownBeforeFirstScan() {
+        BacklogMonitor monitor = new BacklogMonitor(new FileSystemProperties(tmpFolder.toString(),
+                tempDir.resolve("export").toString()), TestFileTypes.registry(), BacklogProperties.defaults(),
+                FileStoreRegistry.defaultOnly());
+
+        Health health = new BacklogHealthIndicator(monitor, TestFileTypes.registry(), BacklogProperties.defaults())
+                .health();
+
+        assertEquals(Status.UNKNOWN, health.getStatus());
+    }
+
+    @Test
+    void testHealth_DownOnceScansKeepFailing() throws IOException {
+        BacklogProperties properties = new BacklogProperties(Duration.ofMillis(50), 2, 10, 100, 1.0, 2.0);
+        BacklogMonitor monitor = new BacklogMonitor(new FileSystemProperties(tmpFolder.toString(),
+                tempDir.resolve("export").toString()), TestFileTypes.registry(), properties,
+                FileStoreRegistry.defaultOnly());
+        BacklogHealthIndicator indicator = new BacklogHealthIndicator(monitor, TestFileTypes.registry(), properties);
+
+        try {
+            monitor.start();
+            await().atMost(Duration.ofSeconds(5)).until(() -> monitor.snapshot() != null);
+            // a file where the folder was, every later scan fails and the first snapshot is kept
+            Files.delete(tmpFolder);
+            Files.createFile(tmpFolder);
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> indicator.health().getStatus() == Status.DOWN);
+            assertTrue(indicator.health().getDetails().get("reason").toString().startsWith("Backlog not scanned since"));
+        } finally {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void testSnapshot_MissingTmpFolderIsEmpty() throws IOException {
+        Files.delete(tmpFolder);
+
+        BacklogMonitor.Snapshot snapshot = monitor(BacklogProperties.defaults()).snapshot();
+
+        assertEquals(0, snapshot.types().get("redemption").count());
+        assertEquals(Duration.ZERO, snapshot.types().get("redemption").oldestAge());
+    }
+
+    private BacklogHealthIndicator indicator(BacklogProperties properties) {
+        return new BacklogHealthIndicator(monitor(properties), TestFileTypes.registry(), properties);
+    }
+
+    /**
+     * A monitor that has scanned once and is not refreshed in the background
+     */
+    private BacklogMonitor monitor(BacklogProperties properties) {
+        BacklogMonitor monitor = new BacklogMonitor(new FileSystemProperties(tmpFolder.toString(),
+                tempDir.resolve("export").toString()), TestFileTypes.registry(), properties,
+                FileStoreRegistry.defaultOnly());
+        monitor.refresh();
+        return monitor;
+    }
+
+    private static void age(Path file, Duration age) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+    }
+}
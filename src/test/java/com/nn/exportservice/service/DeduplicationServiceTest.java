@@ -0,0 +1,53 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.config.FileStoreProperties;
+import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.io.Fingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeduplicationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final FileStoreRegistry fileStores = new FileStoreRegistry(new FileStoreProperties(Map.of(
+            "scratch", new FileStoreProperties.Store(FileStoreProperties.Type.MEMORY, null))));
+
+    @Test
+    void testHandleDuplicate_RoutesIntoMemoryStore() throws IOException {
+        DeduplicationService service = new DeduplicationService(properties("scratch:/duplicates",
+                tempDir.resolve("fingerprints.bin").toString()), fileStores);
+        Path duplicate = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+
+        try {
+            Fingerprint fingerprint = service.fingerprint(duplicate);
+            service.handleDuplicate(duplicate, fingerprint);
+
+            assertFalse(Files.exists(duplicate));
+            assertEquals("content", Files.readString(fileStores.resolve("scratch:/duplicates/outpay_001.txt")));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsStoreFileOutsideDefaultFileSystem() {
+        assertThrows(FileSystemException.class, () -> new DeduplicationService(
+                properties(tempDir.resolve("duplicates").toString(), "scratch:/fingerprints.bin"), fileStores));
+    }
+
+    private static DeduplicationProperties properties(String duplicatesFolder, String storeFile) {
+        return new DeduplicationProperties(true, DeduplicationProperties.DuplicateAction.ROUTE, duplicatesFolder,
+                storeFile, 1024, Duration.ofDays(1));
+    }
+}
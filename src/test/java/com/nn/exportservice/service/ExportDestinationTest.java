@@ -0,0 +1,150 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.LaneProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportDestinationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExportDestination destination;
+
+    @AfterEach
+    void tearDown() {
+        if (destination != null) {
+            destination.close();
+        }
+    }
+
+    @Test
+    void testSubmit_SmallFilesKeepFlowingWhileLargeFileMoves() throws Exception {
+        destination = new ExportDestination("archive", tempDir, 1, new LaneProperties(DataSize.ofKilobytes(1), 1),
+                ConcurrencyProperties.defaults(), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> largeMove = destination.submit(() -> await(release), 2048);
+
+        CompletableFuture<Void> smallMoves = CompletableFuture.allOf(
+                destination.submit(() -> { }, 10),
+                destination.submit(() -> { }, 1023));
+
+        smallMoves.get(5, TimeUnit.SECONDS);
+        assertFalse(largeMove.isDone());
+        assertEquals(1, destination.pendingCount());
+
+        release.countDown();
+        largeMove.get(5, TimeUnit.SECONDS);
+        assertEquals(0, destination.pendingCount());
+    }
+
+    @Test
+    void testSubmit_RecordsLatencyPerLane() throws Exception {
+        destination = new ExportDestination("archive", tempDir, 1, new LaneProperties(DataSize.ofKilobytes(1), 1),
+                ConcurrencyProperties.defaults(), meterRegistry);
+
+        CompletableFuture.allOf(
+                destination.submit(() -> { }, 10),
+                destination.submit(() -> { }, 10),
+                destination.submit(() -> { }, 4096)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, latency("small").count());
+        assertEquals(1, latency("large").count());
+        assertEquals(0.0, meterRegistry.get("export.lane.pending").tag("lane", "large").gauge().value());
+    }
+
+    @Test
+    void testSubmit_WithoutWorkersRunsOnCallingThread() {
+        destination = new ExportDestination("direct", tempDir, 0, LaneProperties.defaults(),
+                ConcurrencyProperties.defaults(), meterRegistry);
+        Thread caller = Thread.currentThread();
+        Thread[] runner = new Thread[1];
+
+        CompletableFuture<Void> move = destination.submit(() -> runner[0] = Thread.currentThread(), 10);
+
+        assertTrue(move.isDone());
+        assertSame(caller, runner[0]);
+    }
+
+    @Test
+    void testSubmit_RunsQueuedMovesEarliestDeadlineFirst() throws Exception {
+        destination = new ExportDestination("archive", tempDir, 1, LaneProperties.defaults(),
+                ConcurrencyProperties.defaults(), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> running = destination.submit(() -> await(release), 10);
+
+        CompletableFuture.allOf(
+                running,
+                destination.submit(() -> order.add("no deadline"), 10),
+                destination.submit(() -> order.add("late"), 10, 2000, 3),
+                destination.submit(() -> order.add("urgent"), 10, 1000, 3),
+                destination.submit(() -> order.add("late, higher priority"), 10, 2000, 1),
+                destination.submit(() -> order.add("late, queued last"), 10, 2000, 3),
+                CompletableFuture.runAsync(release::countDown)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("urgent", "late, higher priority", "late", "late, queued last", "no deadline"), order);
+    }
+
+    private Timer latency(String lane) {
+        return meterRegistry.get("export.lane.latency").tag("destination", "archive").tag("lane", lane).timer();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testSubmit_AdaptiveLaneGrowsWhileMovesStayFast() throws Exception {
+        ConcurrencyProperties concurrency = new ConcurrencyProperties(true, 1, 8, 1000.0, 0.75, 0.1, 2);
+        destination = new ExportDestination("adaptive", tempDir, 2, LaneProperties.defaults(), concurrency, meterRegistry);
+        assertEquals(2, destination.limit(ExportDestination.SMALL_LANE));
+
+        for (int round = 0; round < 20; round++) {
+            CountDownLatch running = new CountDownLatch(destination.limit(ExportDestination.SMALL_LANE));
+            CompletableFuture<?>[] moves = new CompletableFuture<?>[(int) running.getCount()];
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = destination.submit(() -> {
+                    running.countDown();
+                    await(running);
+                }, 10);
+            }
+            CompletableFuture.allOf(moves).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(8, destination.limit(ExportDestination.SMALL_LANE));
+        assertEquals(8, meterRegistry.get("export.lane.limit").tag("destination", "adaptive").tag("lane", "small")
+                .gauge().value());
+    }
+
+    @Test
+    void testSubmit_AdaptiveLaneShrinksWhenMovesFail() throws Exception {
+        ConcurrencyProperties concurrency = new ConcurrencyProperties(true, 1, 8, 2.0, 0.5, 0.1, 2);
+        destination = new ExportDestination("failing", tempDir, 8, LaneProperties.defaults(), concurrency, meterRegistry);
+
+        for (int i = 0; i < 16; i++) {
+            destination.submit(() -> false, 10, Long.MAX_VALUE, 0).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, destination.limit(ExportDestination.SMALL_LANE));
+    }
+}
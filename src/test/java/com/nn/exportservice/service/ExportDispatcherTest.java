@@ -0,0 +1,198 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.config.RoutingProperties;
+import com.nn.exportservice.io.ExportStage;
+import com.nn.exportservice.logging.BatchLogger;
+import com.nn.exportservice.logging.ExportTracing;
+import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExportDispatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path tmpFolder;
+    private Path exportFolder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+        exportFolder = tempDir.resolve("export");
+    }
+
+    @Test
+    void testDrain_OrdersByDeadlineAcrossTypes() throws IOException {
+        FileSystemService fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.ensureExportDirectory(any(FileType.class))).thenReturn(exportFolder);
+        when(fileSystemService.submitMove(any(), any(), any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(fileSystemService.startBatch()).thenReturn(batchLogger());
+        ExportDispatcher dispatcher = new ExportDispatcher(fileSystemService, ExportTracing.disabled());
+
+        Path overdueOwnAndBen = createFile("own_and_ben_01.txt", Duration.ofHours(20));
+        Path outpay = createFile("outpay_01.txt", Duration.ofHours(1));
+        Path redemption = createFile("redemption_01.txt", Duration.ZERO);
+
+        dispatcher.submit(TestFileTypes.OUTPAY, List.of(outpay));
+        dispatcher.submit(TestFileTypes.REDEMPTION, List.of(redemption));
+        dispatcher.submit(TestFileTypes.OWN_AND_BEN, List.of(overdueOwnAndBen));
+        dispatcher.drain();
+
+        InOrder inOrder = inOrder(fileSystemService);
+        inOrder.verify(fileSystemService).submitMove(any(), eq(overdueOwnAndBen), eq(exportFolder), any(), any());
+        inOrder.verify(fileSystemService).submitMove(any(), eq(redemption), eq(exportFolder), any(), any());
+        inOrder.verify(fileSystemService).submitMove(any(), eq(outpay), eq(exportFolder), any(), any());
+        assertEquals(0, dispatcher.pendingCount());
+    }
+
+    @Test
+    void testDrain_UrgentTypeGoesFirstForSameArrival() throws IOException {
+        FileSystemService fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.ensureExportDirectory(any(FileType.class))).thenReturn(exportFolder);
+        when(fileSystemService.submitMove(any(), any(), any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(fileSystemService.startBatch()).thenReturn(batchLogger());
+        ExportDispatcher dispatcher = new ExportDispatcher(fileSystemService, ExportTracing.disabled());
+
+        Path ownAndBen = createFile("own_and_ben_01.txt", Duration.ZERO);
+        Path redemption = createFile("redemption_01.txt", Duration.ZERO);
+
+        dispatcher.submit(TestFileTypes.OWN_AND_BEN, List.of(ownAndBen));
+        dispatcher.submit(TestFileTypes.REDEMPTION, List.of(redemption));
+        dispatcher.drain();
+
+        InOrder inOrder = inOrder(fileSystemService);
+        inOrder.verify(fileSystemService).submitMove(any(), eq(redemption), eq(exportFolder), any(), any());
+        inOrder.verify(fileSystemService).submitMove(any(), eq(ownAndBen), eq(exportFolder), any(), any());
+    }
+
+    @Test
+    void testDispatch_ReturnsResultForSubmittedFilesOnly() throws Exception {
+        ExportDispatcher dispatcher = new ExportDispatcher(FileSystemServiceBuilder.folders(tmpFolder, exportFolder).build(),
+                ExportTracing.disabled());
+        Path redemption1 = createFile("redemption_01.txt", Duration.ZERO);
+        Path redemption2 = createFile("redemption_02.txt", Duration.ZERO);
+        Path outpay = createFile("outpay_01.txt", Duration.ZERO);
+
+        CompletableFuture<FileOperationResult> outpayResult =
+                CompletableFuture.supplyAsync(() -> dispatcher.dispatch(TestFileTypes.OUTPAY, List.of(outpay)));
+        FileOperationResult redemptionResult = dispatcher.dispatch(TestFileTypes.REDEMPTION, List.of(redemption1, redemption2));
+
+        assertEquals(List.of("redemption_01.txt", "redemption_02.txt"), redemptionResult.getSuccessfulFiles());
+        assertEquals(List.of("outpay_01.txt"), outpayResult.get().getSuccessfulFiles());
+        assertTrue(Files.exists(exportFolder.resolve("redemption_01.txt")));
+        assertTrue(Files.exists(exportFolder.resolve("outpay_01.txt")));
+    }
+
+    @Test
+    void testDispatch_UrgentFileOvertakesBatchAlreadyQueuedOnLane() throws Exception {
+        List<String> moved = new CopyOnWriteArrayList<>();
+        ExportStage recording = new ExportStage() {
+            @Override
+            public String name() {
+                return "record";
+            }
+
+            @Override
+            public void process(InputStream input, OutputStream output) throws IOException {
+                byte[] content = input.readAllBytes();
+                moved.add(new String(content, StandardCharsets.UTF_8));
+                output.write(content);
+            }
+        };
+        FileType ownAndBen = TestFileTypes.OWN_AND_BEN.toBuilder().stages(List.of("record")).build();
+        FileType redemption = TestFileTypes.REDEMPTION.toBuilder().stages(List.of("record")).build();
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(1).build();
+        FileSystemService fileSystemService = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(new FileTypeRegistry(List.of(ownAndBen, redemption)))
+                .router(router)
+                .stages(new ExportStageRegistry(List.of(recording)))
+                .build();
+        ExportDispatcher dispatcher = new ExportDispatcher(fileSystemService, ExportTracing.disabled());
+        ExportDestination lane = router.route(ownAndBen, "own_and_ben_01.txt", exportFolder);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Path> ownAndBenFiles = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ownAndBenFiles.add(createFile("own_and_ben_0" + i + ".txt", Duration.ZERO));
+        }
+        Path redemptionFile = createFile("redemption_01.txt", Duration.ZERO);
+
+        try {
+            // occupies the only worker, so the whole own_and_ben batch waits on the lane
+            lane.submit(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 0);
+            CompletableFuture<FileOperationResult> ownAndBenResult =
+                    CompletableFuture.supplyAsync(() -> dispatcher.dispatch(ownAndBen, ownAndBenFiles));
+            await().atMost(Duration.ofSeconds(5)).until(() -> lane.pendingCount() == 6);
+            CompletableFuture<FileOperationResult> redemptionResult =
+                    CompletableFuture.supplyAsync(() -> dispatcher.dispatch(redemption, List.of(redemptionFile)));
+            await().atMost(Duration.ofSeconds(5)).until(() -> lane.pendingCount() == 7);
+            release.countDown();
+
+            assertEquals(5, ownAndBenResult.get(10, TimeUnit.SECONDS).getSuccessCount());
+            assertEquals(1, redemptionResult.get(10, TimeUnit.SECONDS).getSuccessCount());
+            assertEquals("redemption_01.txt", moved.getFirst());
+            assertEquals(6, moved.size());
+        } finally {
+            release.countDown();
+            fileSystemService.close();
+            router.close();
+        }
+    }
+
+    @Test
+    void testDispatch_WithEmptyList() {
+        FileSystemService fileSystemService = mock(FileSystemService.class);
+        when(fileSystemService.startBatch()).thenReturn(batchLogger());
+        ExportDispatcher dispatcher = new ExportDispatcher(fileSystemService, ExportTracing.disabled());
+
+        FileOperationResult result = dispatcher.dispatch(TestFileTypes.REDEMPTION, List.of());
+
+        assertEquals(0, result.getSuccessCount());
+        verify(fileSystemService, never()).submitMove(any(), any(), any(), any(), any());
+    }
+
+    private static BatchLogger batchLogger() {
+        return new BatchLogger(LoggerFactory.getLogger(ExportDispatcherTest.class), ExportLoggingProperties.defaults());
+    }
+
+    private Path createFile(String name, Duration age) throws IOException {
+        Path file = Files.writeString(tmpFolder.resolve(name), name);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+}
@@ -0,0 +1,69 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.ConcurrencyProperties;
+import com.nn.exportservice.config.LaneProperties;
+import com.nn.exportservice.config.RoutingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link ExportRouter} for tests. Everything not set is the default below: default lanes,
+ * fixed worker counts and folders on the default file system.
+ */
+public final class ExportRouterBuilder {
+
+    private final RoutingProperties routingProperties;
+    private LaneProperties laneProperties = LaneProperties.defaults();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FileStoreRegistry fileStores = FileStoreRegistry.defaultOnly();
+    private ConcurrencyProperties concurrencyProperties = ConcurrencyProperties.defaults();
+
+    private ExportRouterBuilder(RoutingProperties routingProperties) {
+        this.routingProperties = routingProperties;
+    }
+
+    public static ExportRouterBuilder routing(RoutingProperties routingProperties) {
+        return new ExportRouterBuilder(routingProperties);
+    }
+
+    /**
+     * No rules, every export folder gets a destination with the given number of workers
+     */
+    public static ExportRouterBuilder defaultWorkers(int workers) {
+        return routing(new RoutingProperties(List.of(), Map.of(), workers));
+    }
+
+    /**
+     * Router without rules that moves files on the calling thread
+     */
+    public static ExportRouter direct() {
+        return routing(RoutingProperties.disabled()).build();
+    }
+
+    public ExportRouterBuilder lanes(LaneProperties laneProperties) {
+        this.laneProperties = laneProperties;
+        return this;
+    }
+
+    public ExportRouterBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    public ExportRouterBuilder fileStores(FileStoreRegistry fileStores) {
+        this.fileStores = fileStores;
+        return this;
+    }
+
+    public ExportRouterBuilder concurrency(ConcurrencyProperties concurrencyProperties) {
+        this.concurrencyProperties = concurrencyProperties;
+        return this;
+    }
+
+    public ExportRouter build() {
+        return new ExportRouter(routingProperties, laneProperties, meterRegistry, fileStores, concurrencyProperties);
+    }
+}
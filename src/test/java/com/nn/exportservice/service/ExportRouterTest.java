@@ -0,0 +1,79 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.RoutingProperties;
+import com.nn.exportservice.model.TestFileTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportRouterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExportRouter router;
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    void testRoute_FirstMatchingRuleWins() {
+        router = ExportRouterBuilder.routing(properties(List.of(
+                new RoutingProperties.Rule("outpay", "outpay_urgent*", "fast"),
+                new RoutingProperties.Rule("outpay", null, "payments"),
+                new RoutingProperties.Rule(null, "*.zip", "archive")))).build();
+        Path defaultRoot = tempDir.resolve("export");
+
+        assertEquals("fast", router.route(TestFileTypes.OUTPAY, "outpay_urgent_01.txt", defaultRoot).getName());
+        assertEquals("payments", router.route(TestFileTypes.OUTPAY, "outpay_01.zip", defaultRoot).getName());
+        assertEquals("archive", router.route(TestFileTypes.REDEMPTION, "redemption_01.zip", defaultRoot).getName());
+        assertEquals("archive", router.route(null, "other.zip", defaultRoot).getName());
+    }
+
+    @Test
+    void testRoute_UnmatchedFilesGoToDefaultRootDestination() {
+        router = ExportRouterBuilder.routing(properties(List.of(new RoutingProperties.Rule("outpay", null, "payments"))))
+                .build();
+        Path defaultRoot = tempDir.resolve("export");
+
+        ExportDestination destination = router.route(TestFileTypes.REDEMPTION, "redemption_01.txt", defaultRoot);
+
+        assertEquals(defaultRoot, destination.getRoot());
+        assertSame(destination, router.route(TestFileTypes.OWN_AND_BEN, "own_and_ben_01.txt", defaultRoot));
+        assertEquals(4, router.getDestinations().size());
+    }
+
+    @Test
+    void testConstructor_CreatesDestinationRoots() {
+        router = ExportRouterBuilder.routing(properties(List.of())).build();
+
+        assertTrue(Files.isDirectory(tempDir.resolve("payments")));
+        assertTrue(Files.isDirectory(tempDir.resolve("archive")));
+    }
+
+    @Test
+    void testConstructor_RejectsRuleWithUnknownDestination() {
+        assertThrows(IllegalArgumentException.class, () -> ExportRouterBuilder.routing(
+                properties(List.of(new RoutingProperties.Rule("outpay", null, "unknown")))).build());
+    }
+
+    private RoutingProperties properties(List<RoutingProperties.Rule> rules) {
+        Map<String, RoutingProperties.Destination> destinations = new LinkedHashMap<>();
+        destinations.put("payments", new RoutingProperties.Destination(tempDir.resolve("payments").toString(), 2));
+        destinations.put("archive", new RoutingProperties.Destination(tempDir.resolve("archive").toString(), 1));
+        destinations.put("fast", new RoutingProperties.Destination(tempDir.resolve("fast").toString(), 1));
+        return new RoutingProperties(rules, destinations, 1);
+    }
+}
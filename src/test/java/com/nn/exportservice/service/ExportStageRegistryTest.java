@@ -0,0 +1,46 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.io.ExportStage;
+import com.nn.exportservice.io.GzipStage;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportStageRegistryTest {
+
+    @Test
+    void testResolve_KeepsOrderAndLetsBeansReplaceBuiltIns() {
+        ExportStage encrypt = stage("encrypt");
+        ExportStage gzip = stage(GzipStage.NAME);
+        ExportStageRegistry registry = new ExportStageRegistry(List.of(encrypt, gzip));
+
+        assertEquals(List.of(gzip, encrypt), registry.resolve(List.of("gzip", "encrypt")));
+        assertInstanceOf(GzipStage.class, ExportStageRegistry.builtIn().resolve(List.of("gzip")).getFirst());
+        assertEquals(List.of(), registry.resolve(List.of()));
+    }
+
+    @Test
+    void testResolve_UnknownStage() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExportStageRegistry.builtIn().resolve(List.of("gzip", "encrypt")));
+
+        assertTrue(e.getMessage().contains("encrypt"));
+    }
+
+    private static ExportStage stage(String name) {
+        return new ExportStage() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void process(InputStream input, OutputStream output) {
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.FileStoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStoreRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path archive;
+    private FileStoreRegistry fileStores;
+
+    @BeforeEach
+    void setUp() {
+        archive = tempDir.resolve("archive").resolve("export.zip");
+        fileStores = new FileStoreRegistry(new FileStoreProperties(Map.of(
+                "scratch", new FileStoreProperties.Store(FileStoreProperties.Type.MEMORY, null),
+                "archive", new FileStoreProperties.Store(FileStoreProperties.Type.ZIP, archive.toString()))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileStores.close();
+    }
+
+    @Test
+    void testResolve_PlainLocationIsOnDefaultFileSystem() {
+        Path path = fileStores.resolve(tempDir.resolve("tmp").toString());
+
+        assertSame(FileSystems.getDefault(), path.getFileSystem());
+        assertEquals(tempDir.resolve("tmp"), path);
+    }
+
+    @Test
+    void testResolve_UnknownStoreIsOnDefaultFileSystem() {
+        assertEquals(Paths.get("other:tmp"), fileStores.resolve("other:tmp"));
+    }
+
+    @Test
+    void testResolve_MemoryStore() throws IOException {
+        Path path = fileStores.resolve("scratch:tmp");
+
+        assertNotSame(FileSystems.getDefault(), path.getFileSystem());
+        assertEquals("/tmp", path.toString());
+        Files.createDirectories(path);
+        Files.writeString(path.resolve("outpay_001.txt"), "content");
+        assertEquals("content", Files.readString(fileStores.resolve("scratch:/tmp/outpay_001.txt")));
+    }
+
+    @Test
+    void testResolve_RejectsZipStore() {
+        assertThrows(IllegalArgumentException.class, () -> fileStores.resolve("archive:/export"));
+    }
+
+    @Test
+    void testRelease_WritesArchiveWhenLastUserReleases() throws IOException {
+        Path first = fileStores.open("archive:/export");
+        Path second = fileStores.open("archive:/export");
+        Files.createDirectories(first);
+        Files.writeString(first.resolve("outpay_001.txt"), "content");
+
+        fileStores.release(first);
+        assertTrue(second.getFileSystem().isOpen());
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(0, zip.size());
+        }
+
+        fileStores.release(second);
+        assertFalse(second.getFileSystem().isOpen());
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertNotNull(zip.getEntry("export/outpay_001.txt"));
+        }
+    }
+
+    @Test
+    void testOpen_StagesEntriesInTemporaryFilesInsteadOfTheHeap() throws IOException {
+        Path export = Files.createDirectories(fileStores.open("archive:/export"));
+        Files.writeString(export.resolve("outpay_001.txt"), "content");
+
+        try (Stream<Path> files = Files.list(archive.getParent())) {
+            assertTrue(files.anyMatch(file -> !file.equals(archive)));
+        }
+        fileStores.release(export);
+        try (Stream<Path> files = Files.list(archive.getParent())) {
+            assertEquals(List.of(archive), files.toList());
+        }
+    }
+
+    @Test
+    void testRelease_DeletesSourcesOnceArchiveIsWritten() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("outpay_001.txt"), "content");
+        Path export = Files.createDirectories(fileStores.open("archive:/export"));
+        Path target = Files.copy(source, export.resolve("outpay_001.txt"));
+
+        assertTrue(fileStores.deleteWhenWritten(source, target));
+        assertTrue(Files.exists(source));
+
+        fileStores.release(export);
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    void testDeleteWhenWritten_OutsideZipStoreIsLeftToCaller() {
+        Path source = tempDir.resolve("outpay_001.txt");
+
+        assertFalse(fileStores.deleteWhenWritten(source, tempDir.resolve("export").resolve("outpay_001.txt")));
+        assertFalse(fileStores.deleteWhenWritten(source, fileStores.resolve("scratch:/export/outpay_001.txt")));
+    }
+
+    @Test
+    void testCurrent_ResolvesStalePathOnReopenedArchive() throws IOException {
+        Path stale = fileStores.open("archive:/export");
+        Files.createDirectories(stale);
+        fileStores.release(stale);
+
+        Path reopened = fileStores.open("archive:/export");
+        Path current = fileStores.current(stale);
+
+        assertNotSame(stale.getFileSystem(), current.getFileSystem());
+        assertSame(reopened.getFileSystem(), current.getFileSystem());
+        assertTrue(Files.isDirectory(current));
+        fileStores.release(reopened);
+    }
+}
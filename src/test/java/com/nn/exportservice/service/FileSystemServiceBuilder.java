@@ -0,0 +1,106 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.CopyProperties;
+import com.nn.exportservice.config.DurabilityProperties;
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.config.PipelineProperties;
+import com.nn.exportservice.logging.ExportTracing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builds a {@link FileSystemService} for tests. Everything not set is the default below: no deduplication,
+ * no file types, moves on the calling thread, no fsync, no pipelining and only the built-in stages.
+ */
+public final class FileSystemServiceBuilder {
+
+    private final FileSystemProperties fileSystemProperties;
+    private DeduplicationService deduplicationService = DeduplicationService.disabled();
+    private ExportLoggingProperties exportLoggingProperties = ExportLoggingProperties.defaults();
+    private FileTypeRegistry fileTypeRegistry = new FileTypeRegistry(List.of());
+    private ExportRouter exportRouter = ExportRouterBuilder.direct();
+    private CopyProperties copyProperties = CopyProperties.defaults();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExportTracing exportTracing = ExportTracing.disabled();
+    private FileStoreRegistry fileStores = FileStoreRegistry.defaultOnly();
+    private DurabilityProperties durabilityProperties = DurabilityProperties.defaults();
+    private PipelineProperties pipelineProperties = PipelineProperties.defaults();
+    private ExportStageRegistry exportStages = ExportStageRegistry.builtIn();
+
+    private FileSystemServiceBuilder(FileSystemProperties fileSystemProperties) {
+        this.fileSystemProperties = fileSystemProperties;
+    }
+
+    public static FileSystemServiceBuilder folders(Path tmpFolder, Path exportFolder) {
+        return folders(tmpFolder.toString(), exportFolder.toString());
+    }
+
+    public static FileSystemServiceBuilder folders(String tmpFolder, String exportFolder) {
+        return new FileSystemServiceBuilder(new FileSystemProperties(tmpFolder, exportFolder));
+    }
+
+    public FileSystemServiceBuilder deduplication(DeduplicationService deduplicationService) {
+        this.deduplicationService = deduplicationService;
+        return this;
+    }
+
+    public FileSystemServiceBuilder logging(ExportLoggingProperties exportLoggingProperties) {
+        this.exportLoggingProperties = exportLoggingProperties;
+        return this;
+    }
+
+    public FileSystemServiceBuilder fileTypes(FileTypeRegistry fileTypeRegistry) {
+        this.fileTypeRegistry = fileTypeRegistry;
+        return this;
+    }
+
+    public FileSystemServiceBuilder router(ExportRouter exportRouter) {
+        this.exportRouter = exportRouter;
+        return this;
+    }
+
+    public FileSystemServiceBuilder copy(CopyProperties copyProperties) {
+        this.copyProperties = copyProperties;
+        return this;
+    }
+
+    public FileSystemServiceBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    public FileSystemServiceBuilder tracing(ExportTracing exportTracing) {
+        this.exportTracing = exportTracing;
+        return this;
+    }
+
+    public FileSystemServiceBuilder fileStores(FileStoreRegistry fileStores) {
+        this.fileStores = fileStores;
+        return this;
+    }
+
+    public FileSystemServiceBuilder durability(DurabilityProperties durabilityProperties) {
+        this.durabilityProperties = durabilityProperties;
+        return this;
+    }
+
+    public FileSystemServiceBuilder pipeline(PipelineProperties pipelineProperties) {
+        this.pipelineProperties = pipelineProperties;
+        return this;
+    }
+
+    public FileSystemServiceBuilder stages(ExportStageRegistry exportStages) {
+        this.exportStages = exportStages;
+        return this;
+    }
+
+    public FileSystemService build() {
+        return new FileSystemService(fileSystemProperties, deduplicationService, exportLoggingProperties,
+                fileTypeRegistry, exportRouter, copyProperties, meterRegistry, exportTracing, fileStores,
+                durabilityProperties, pipelineProperties, exportStages);
+    }
+}
@@ -1,17 +1,44 @@
 package com.nn.exportservice.service;
 
-import com.nn.exportservice.config.FileSystemProperties;
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.config.DurabilityProperties;
+import com.nn.exportservice.config.FileStoreProperties;
+import com.nn.exportservice.config.PipelineProperties;
+import com.nn.exportservice.config.RoutingProperties;
 import com.nn.exportservice.exception.FileSystemException;
+import com.nn.exportservice.io.ExportStage;
+import com.nn.exportservice.io.FileSplitter;
 import com.nn.exportservice.model.FileOperationResult;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipFile;
+
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 
 class FileSystemServiceTest {
@@ -29,11 +56,7 @@ class FileSystemServiceTest {
         exportFolder = tempDir.resolve("export");
         Files.createDirectories(tmpFolder);
 
-        FileSystemProperties properties = new FileSystemProperties(
-                tmpFolder.toString(),
-                exportFolder.toString()
-        );
-        fileSystemService = new FileSystemService(properties);
+        fileSystemService = FileSystemServiceBuilder.folders(tmpFolder, exportFolder).build();
     }
 
     @Test
@@ -60,11 +83,7 @@ class FileSystemServiceTest {
 
     @Test
     void testListFilesByPrefix_WhenTmpFolderDoesNotExist() {
-        FileSystemProperties properties = new FileSystemProperties(
-                "/non/existent/path",
-                exportFolder.toString()
-        );
-        FileSystemService service = new FileSystemService(properties);
+        FileSystemService service = FileSystemServiceBuilder.folders("/non/existent/path", exportFolder.toString()).build();
 
         List<Path> result = service.listFilesByPrefix("redemption_");
 
@@ -77,11 +96,7 @@ class FileSystemServiceTest {
         Path fileInsteadOfDir = tempDir.resolve("not_a_directory.txt");
         Files.createFile(fileInsteadOfDir);
 
-        FileSystemProperties properties = new FileSystemProperties(
-                fileInsteadOfDir.toString(),
-                exportFolder.toString()
-        );
-        FileSystemService service = new FileSystemService(properties);
+        FileSystemService service = FileSystemServiceBuilder.folders(fileInsteadOfDir, exportFolder).build();
 
         assertThrows(FileSystemException.class, () -> service.listFilesByPrefix("test_"));
     }
@@ -174,4 +189,570 @@ class FileSystemServiceTest {
         assertEquals(3, result.size());
         assertTrue(result.stream().allMatch(p -> p.getFileName().toString().startsWith("own_and_ben_")));
     }
+
+    @Test
+    void testMoveFiles_SkipsDuplicateContent() throws IOException {
+        DeduplicationService deduplicationService = createDeduplicationService(DeduplicationProperties.DuplicateAction.SKIP);
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .deduplication(deduplicationService)
+                .build();
+        Files.writeString(tmpFolder.resolve("redemption_01.txt"), "same content");
+        service.moveFiles(List.of(tmpFolder.resolve("redemption_01.txt")));
+
+        Path redrop = Files.writeString(tmpFolder.resolve("redemption_02.txt"), "same content");
+        FileOperationResult result = service.moveFiles(List.of(redrop));
+
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(List.of("redemption_02.txt"), result.getDuplicateFiles());
+        assertFalse(Files.exists(redrop));
+        assertFalse(Files.exists(exportFolder.resolve("redemption_02.txt")));
+        deduplicationService.close();
+    }
+
+    @Test
+    void testMoveFiles_RoutesDuplicateContent() throws IOException {
+        DeduplicationService deduplicationService = createDeduplicationService(DeduplicationProperties.DuplicateAction.ROUTE);
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .deduplication(deduplicationService)
+                .build();
+        Path first = Files.writeString(tmpFolder.resolve("redemption_01.txt"), "same content");
+        Path second = Files.writeString(tmpFolder.resolve("redemption_02.txt"), "same content");
+        Path other = Files.writeString(tmpFolder.resolve("redemption_03.txt"), "other content");
+
+        FileOperationResult result = service.moveFiles(List.of(first, second, other));
+
+        assertEquals(List.of("redemption_01.txt", "redemption_03.txt"), result.getSuccessfulFiles());
+        assertEquals(List.of("redemption_02.txt"), result.getDuplicateFiles());
+        assertTrue(Files.exists(tempDir.resolve("duplicates").resolve("redemption_02.txt")));
+        deduplicationService.close();
+    }
+
+    @Test
+    void testMoveFiles_ExportsIdenticalContentOnceAcrossParallelWorkers() throws IOException {
+        DeduplicationService deduplicationService = createDeduplicationService(DeduplicationProperties.DuplicateAction.SKIP);
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(4).build();
+        // fingerprints are only recorded once the group commit lands, long after every worker has checked its file
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .deduplication(deduplicationService)
+                .router(router)
+                .durability(new DurabilityProperties(DurabilityProperties.Level.GROUP_COMMIT, Duration.ofMillis(200), 1000))
+                .build();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            files.add(Files.writeString(tmpFolder.resolve("redemption_0" + i + ".txt"), "same content"));
+        }
+
+        try {
+            FileOperationResult result = service.moveFiles(files);
+
+            assertEquals(1, result.getSuccessCount());
+            assertEquals(3, result.getDuplicateFiles().size());
+            try (Stream<Path> exported = Files.list(exportFolder)) {
+                assertEquals(1, exported.count());
+            }
+        } finally {
+            service.close();
+            router.close();
+            deduplicationService.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_ReleasesClaimWhenExportFails() throws IOException {
+        DeduplicationService deduplicationService = createDeduplicationService(DeduplicationProperties.DuplicateAction.SKIP);
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .deduplication(deduplicationService)
+                .build();
+        Path file = Files.writeString(tmpFolder.resolve("redemption_01.txt"), "content");
+        Path blocker = Files.createDirectories(exportFolder.resolve("redemption_01.txt"));
+        Files.createFile(blocker.resolve("occupied"));
+
+        FileOperationResult failed = service.moveFiles(List.of(file));
+        Files.delete(blocker.resolve("occupied"));
+        Files.delete(blocker);
+        FileOperationResult retried = service.moveFiles(List.of(file));
+
+        assertEquals(1, failed.getErrorCount());
+        assertEquals(List.of("redemption_01.txt"), retried.getSuccessfulFiles());
+        assertTrue(retried.getDuplicateFiles().isEmpty());
+        assertEquals("content", Files.readString(exportFolder.resolve("redemption_01.txt")));
+        deduplicationService.close();
+    }
+
+    private DeduplicationService createDeduplicationService(DeduplicationProperties.DuplicateAction action) {
+        return new DeduplicationService(new DeduplicationProperties(
+                true,
+                action,
+                tempDir.resolve("duplicates").toString(),
+                tempDir.resolve("state/fingerprints.bin").toString(),
+                1024,
+                Duration.ofDays(1)
+        ), FileStoreRegistry.defaultOnly());
+    }
+
+    @Test
+    void testListFiles_ByFileType() throws IOException {
+        Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+        Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+        Files.createFile(tmpFolder.resolve("own_and_ben_001.txt"));
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .build();
+
+        List<Path> result = service.listFiles(TestFileTypes.OWN_AND_BEN);
+
+        assertEquals(List.of(tmpFolder.resolve("own_and_ben_001.txt")), result);
+    }
+
+    @Test
+    void testMoveFiles_ToExportFolderOfFileType() throws IOException {
+        Path redemptionFolder = tempDir.resolve("redemption-export");
+        FileType redemption = TestFileTypes.REDEMPTION.toBuilder().exportFolder(redemptionFolder.toString()).build();
+        Path file = Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+
+        FileOperationResult result = fileSystemService.moveFiles(redemption, List.of(file));
+
+        assertEquals(1, result.getSuccessCount());
+        assertTrue(Files.exists(redemptionFolder.resolve("redemption_001.txt")));
+        assertFalse(Files.exists(exportFolder));
+    }
+
+    @Test
+    void testMoveFiles_RoutesToDestinationOfFirstMatchingRule() throws IOException {
+        Path payments = tempDir.resolve("payments");
+        ExportRouter router = ExportRouterBuilder.routing(new RoutingProperties(
+                List.of(new RoutingProperties.Rule("outpay", null, "payments")),
+                Map.of("payments", new RoutingProperties.Destination(payments.toString(), 2)), 1)).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .router(router)
+                .build();
+        Path outpay = Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+        Path redemption = Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+
+        try {
+            service.moveFiles(TestFileTypes.OUTPAY, List.of(outpay));
+            service.moveFiles(TestFileTypes.REDEMPTION, List.of(redemption));
+        } finally {
+            router.close();
+        }
+
+        assertTrue(Files.exists(payments.resolve("outpay_001.txt")));
+        assertTrue(Files.exists(exportFolder.resolve("redemption_001.txt")));
+    }
+
+    @Test
+    void testMoveFiles_SlowDestinationDoesNotBlockOtherDestinations() throws Exception {
+        Path slow = tempDir.resolve("slow");
+        ExportRouter router = ExportRouterBuilder.routing(new RoutingProperties(
+                List.of(new RoutingProperties.Rule("outpay", null, "slow")),
+                Map.of("slow", new RoutingProperties.Destination(slow.toString(), 1)), 1)).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .router(router)
+                .build();
+        Path redemption = Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+        CountDownLatch release = new CountDownLatch(1);
+        ExportDestination slowDestination = router.route(TestFileTypes.OUTPAY, "outpay_001.txt", exportFolder);
+
+        try {
+            slowDestination.submit(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 0);
+
+            FileOperationResult result = service.moveFiles(TestFileTypes.REDEMPTION, List.of(redemption));
+
+            assertEquals(1, result.getSuccessCount());
+            assertEquals(1, slowDestination.pendingCount());
+        } finally {
+            release.countDown();
+            router.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_RecordsFileAgeAtExport() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .meterRegistry(meterRegistry)
+                .build();
+        Path redemption = Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+        Files.setLastModifiedTime(redemption, FileTime.from(Instant.now().minus(Duration.ofMinutes(5))));
+
+        service.moveFiles(TestFileTypes.REDEMPTION, List.of(redemption));
+
+        Timer fileAge = meterRegistry.get("export.file.age").tag("fileType", "REDEMPTION").timer();
+        assertEquals(1, fileAge.count());
+        assertTrue(fileAge.totalTime(TimeUnit.SECONDS) >= 300);
+    }
+
+    @Test
+    void testMoveFiles_FromMemoryStoreIntoZipStore() throws IOException {
+        Path archive = tempDir.resolve("export.zip");
+        FileStoreRegistry fileStores = new FileStoreRegistry(new FileStoreProperties(Map.of(
+                "scratch", new FileStoreProperties.Store(FileStoreProperties.Type.MEMORY, null),
+                "archive", new FileStoreProperties.Store(FileStoreProperties.Type.ZIP, archive.toString()))));
+        FileSystemService service = FileSystemServiceBuilder.folders("scratch:/tmp", "archive:/export")
+                .fileTypes(TestFileTypes.registry())
+                .fileStores(fileStores)
+                .build();
+        Path memoryTmp = Files.createDirectories(fileStores.resolve("scratch:/tmp"));
+
+        try {
+            Path first = Files.writeString(memoryTmp.resolve("outpay_001.txt"), "first");
+            assertEquals(1, service.moveFiles(TestFileTypes.OUTPAY, service.listFiles(TestFileTypes.OUTPAY)).getSuccessCount());
+            Path second = Files.writeString(memoryTmp.resolve("outpay_002.txt"), "second");
+            assertEquals(1, service.moveFiles(TestFileTypes.OUTPAY, List.of(second)).getSuccessCount());
+
+            assertFalse(Files.exists(first));
+            assertFalse(Files.exists(second));
+            try (ZipFile zip = new ZipFile(archive.toFile())) {
+                assertEquals("first", new String(zip.getInputStream(zip.getEntry("export/outpay_001.txt")).readAllBytes()));
+                assertEquals("second", new String(zip.getInputStream(zip.getEntry("export/outpay_002.txt")).readAllBytes()));
+            }
+        } finally {
+            fileStores.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_ReportsSuccessAfterGroupCommit() throws IOException {
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .durability(new DurabilityProperties(DurabilityProperties.Level.GROUP_COMMIT, Duration.ofMillis(50), 1000))
+                .build();
+        Path first = Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+        Path second = Files.createFile(tmpFolder.resolve("outpay_002.txt"));
+
+        try {
+            FileOperationResult result = service.moveFiles(TestFileTypes.OUTPAY, List.of(first, second));
+
+            assertEquals(2, result.getSuccessCount());
+            assertTrue(Files.exists(exportFolder.resolve("outpay_001.txt")));
+            assertTrue(Files.exists(exportFolder.resolve("outpay_002.txt")));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_ForgetsFingerprintWhenZipArchiveCannotBeWritten() throws IOException {
+        Path archiveFolder = Files.createDirectories(tempDir.resolve("archives"));
+        FileStoreRegistry fileStores = new FileStoreRegistry(new FileStoreProperties(Map.of(
+                "scratch", new FileStoreProperties.Store(FileStoreProperties.Type.MEMORY, null),
+                "archive", new FileStoreProperties.Store(FileStoreProperties.Type.ZIP,
+                        archiveFolder.resolve("export.zip").toString()))));
+        DeduplicationService deduplicationService = createDeduplicationService(DeduplicationProperties.DuplicateAction.SKIP);
+        FileSystemService service = FileSystemServiceBuilder.folders("scratch:/tmp", "archive:/export")
+                .deduplication(deduplicationService)
+                .fileStores(fileStores)
+                .build();
+        Path source = Files.writeString(Files.createDirectories(fileStores.resolve("scratch:/tmp"))
+                .resolve("outpay_001.txt"), "content");
+
+        try {
+            // a second user keeps the archive open, so it is written when the test releases it
+            Path held = fileStores.open("archive:/export");
+            assertEquals(1, service.moveFiles(List.of(source)).getSuccessCount());
+            FileSystemUtils.deleteRecursively(archiveFolder);
+            assertThrows(FileSystemException.class, () -> fileStores.release(held));
+            assertTrue(Files.exists(source));
+
+            Files.createDirectories(archiveFolder);
+            FileOperationResult retried = service.moveFiles(List.of(source));
+
+            assertEquals(List.of("outpay_001.txt"), retried.getSuccessfulFiles());
+            assertTrue(retried.getDuplicateFiles().isEmpty());
+            assertFalse(Files.exists(source));
+            try (ZipFile zip = new ZipFile(archiveFolder.resolve("export.zip").toFile())) {
+                assertNotNull(zip.getEntry("export/outpay_001.txt"));
+            }
+        } finally {
+            fileStores.close();
+            deduplicationService.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_KeepsSourceOfCopyUntilTargetIsSynced() throws Exception {
+        FileStoreRegistry fileStores = new FileStoreRegistry(new FileStoreProperties(Map.of(
+                "scratch", new FileStoreProperties.Store(FileStoreProperties.Type.MEMORY, null))));
+        FileSystemService service = FileSystemServiceBuilder.folders("scratch:/tmp", exportFolder.toString())
+                .fileTypes(TestFileTypes.registry())
+                .fileStores(fileStores)
+                .durability(new DurabilityProperties(DurabilityProperties.Level.GROUP_COMMIT, Duration.ofMinutes(10), 1000))
+                .build();
+        Path source = Files.writeString(Files.createDirectories(fileStores.resolve("scratch:/tmp")).resolve("outpay_001.txt"),
+                "content");
+
+        try {
+            CompletableFuture<FileOperationResult> export = CompletableFuture.supplyAsync(
+                    () -> service.moveFiles(TestFileTypes.OUTPAY, List.of(source)));
+            await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(exportFolder.resolve("outpay_001.txt")));
+
+            // the group commit window is still open, so the copy is not on disk yet
+            assertTrue(Files.exists(source));
+            assertFalse(export.isDone());
+
+            service.close();
+            FileOperationResult result = export.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, result.getSuccessCount());
+            assertFalse(Files.exists(source));
+            assertEquals("content", Files.readString(exportFolder.resolve("outpay_001.txt")));
+        } finally {
+            service.close();
+            fileStores.close();
+        }
+    }
+
+    @Test
+    void testClose_DrainsQueuedMovesBeforeStoppingTheSyncer() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExportStage hold = new ExportStage() {
+            @Override
+            public String name() {
+                return "hold";
+            }
+
+            @Override
+            public void process(InputStream input, OutputStream output) throws IOException {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                input.transferTo(output);
+            }
+        };
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder().stages(List.of("hold")).build();
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(1).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(new FileTypeRegistry(List.of(outpay)))
+                .router(router)
+                .stages(new ExportStageRegistry(List.of(hold)))
+                .durability(new DurabilityProperties(DurabilityProperties.Level.GROUP_COMMIT, Duration.ofMinutes(10), 1000))
+                .build();
+        List<Path> files = List.of(Files.writeString(tmpFolder.resolve("outpay_001.txt"), "first"),
+                Files.writeString(tmpFolder.resolve("outpay_002.txt"), "second"));
+
+        try {
+            CompletableFuture<FileOperationResult> export = CompletableFuture.supplyAsync(
+                    () -> service.moveFiles(outpay, files));
+            ExportDestination lane = router.route(outpay, "outpay_001.txt", exportFolder);
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            await().atMost(Duration.ofSeconds(5)).until(() -> lane.pendingCount() == 2);
+            // the second move is still queued on the lane when shutdown begins
+            CompletableFuture<Void> closed = CompletableFuture.runAsync(service::close);
+            release.countDown();
+
+            closed.get(10, TimeUnit.SECONDS);
+            assertEquals(2, export.get(10, TimeUnit.SECONDS).getSuccessCount());
+            assertEquals("second", Files.readString(exportFolder.resolve("outpay_002.txt")));
+        } finally {
+            release.countDown();
+            service.close();
+            router.close();
+        }
+    }
+
+    @Test
+    void testMoveFiles_FansOutToEveryFolderOfFileType() throws IOException {
+        Path payments = tempDir.resolve("payments");
+        Path ledger = tempDir.resolve("ledger");
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder()
+                .fanOutFolders(List.of(payments.toString(), ledger.toString()))
+                .build();
+        Path file = Files.writeString(tmpFolder.resolve("outpay_001.txt"), "content");
+
+        FileOperationResult result = fileSystemService.moveFiles(outpay, List.of(file));
+
+        assertEquals(1, result.getSuccessCount());
+        assertFalse(Files.exists(file));
+        Path exported = exportFolder.resolve("outpay_001.txt");
+        assertEquals("content", Files.readString(exported));
+        assertTrue(Files.isSameFile(exported, payments.resolve("outpay_001.txt")));
+        assertTrue(Files.isSameFile(exported, ledger.resolve("outpay_001.txt")));
+    }
+
+    @Test
+    void testExportPipelined_MovesFilesOfTypeWithBoundedQueue() throws IOException {
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(2).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .router(router)
+                .pipeline(new PipelineProperties(true, 1))
+                .build();
+        for (int i = 0; i < 5; i++) {
+            Files.createFile(tmpFolder.resolve("outpay_00" + i + ".txt"));
+        }
+        Files.createFile(tmpFolder.resolve("redemption_001.txt"));
+
+        try {
+            // a single slot only frees up once a move is done, so the scan cannot finish before the moves start
+            FileOperationResult result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> service.exportPipelined(TestFileTypes.OUTPAY));
+
+            assertTrue(service.isPipelined());
+            assertEquals(5, result.getSuccessCount());
+            for (int i = 0; i < 5; i++) {
+                assertTrue(Files.exists(exportFolder.resolve("outpay_00" + i + ".txt")));
+            }
+            assertTrue(Files.exists(tmpFolder.resolve("redemption_001.txt")));
+        } finally {
+            service.close();
+            router.close();
+        }
+    }
+
+    @Test
+    void testExportPipelined_FailsInsteadOfWaitingWhenDestinationIsClosed() throws IOException {
+        ExportRouter router = ExportRouterBuilder.defaultWorkers(1).build();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .router(router)
+                .pipeline(new PipelineProperties(true, 2))
+                .build();
+        Path file = Files.createFile(tmpFolder.resolve("outpay_001.txt"));
+        router.route(TestFileTypes.OUTPAY, "outpay_001.txt", service.ensureExportDirectory(TestFileTypes.OUTPAY));
+        router.close();
+
+        try {
+            assertThrows(RejectedExecutionException.class, () -> assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> service.exportPipelined(TestFileTypes.OUTPAY)));
+            assertTrue(Files.exists(file));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void testExportPipelined_WithoutTmpFolder() throws IOException {
+        Files.delete(tmpFolder);
+
+        FileOperationResult result = fileSystemService.exportPipelined(TestFileTypes.OUTPAY);
+
+        assertEquals(0, result.getSuccessCount());
+        assertFalse(fileSystemService.isPipelined());
+    }
+
+    @Test
+    void testMoveFiles_RunsStagesOfFileType() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(TestFileTypes.registry())
+                .meterRegistry(meterRegistry)
+                .build();
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder().stages(List.of("gzip")).build();
+        Path file = Files.writeString(tmpFolder.resolve("outpay_001.txt"), "content");
+
+        try {
+            FileOperationResult result = service.moveFiles(outpay, List.of(file));
+
+            assertEquals(List.of("outpay_001.txt"), result.getSuccessfulFiles());
+            assertFalse(Files.exists(file));
+            assertFalse(Files.exists(exportFolder.resolve("outpay_001.txt")));
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(exportFolder.resolve("outpay_001.txt.gz")))) {
+                assertEquals("content", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            Timer timer = meterRegistry.get("export.stage.duration").tags("fileType", "OUTPAY", "stage", "gzip").timer();
+            assertEquals(1, timer.count());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsUnknownStage() {
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder().stages(List.of("encrypt")).build();
+
+        assertThrows(IllegalArgumentException.class, () -> FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(new FileTypeRegistry(List.of(outpay)))
+                .build());
+    }
+
+    @Test
+    void testMoveFiles_RejectsInvalidFiles() throws IOException {
+        Path rejected = tempDir.resolve("rejected");
+        FileType redemption = TestFileTypes.REDEMPTION.toBuilder()
+                .validation(new FileType.Validation(null, "id,amount", ',', 2, true, rejected.toString()))
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FileSystemService service = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .meterRegistry(meterRegistry)
+                .build();
+        Path valid = Files.writeString(tmpFolder.resolve("redemption_001.csv"), "id,amount\n1,10\nTRAILER,1\n");
+        Path invalid = Files.writeString(tmpFolder.resolve("redemption_002.csv"), "id,amount\n1,10,EUR\nTRAILER,1\n");
+
+        FileOperationResult result = service.moveFiles(redemption, List.of(valid, invalid));
+
+        assertEquals(List.of("redemption_001.csv"), result.getSuccessfulFiles());
+        assertEquals(List.of(new FileOperationResult.FileOperationError("redemption_002.csv",
+                "Rejected: Line 2 has 3 columns, expected 2")), result.getErrors());
+        assertTrue(Files.exists(exportFolder.resolve("redemption_001.csv")));
+        assertFalse(Files.exists(exportFolder.resolve("redemption_002.csv")));
+        assertFalse(Files.exists(invalid));
+        assertTrue(Files.exists(rejected.resolve("redemption_002.csv")));
+        assertEquals("Line 2 has 3 columns, expected 2",
+                Files.readString(rejected.resolve("redemption_002.csv" + FileSystemService.REASON_SUFFIX)).trim());
+        assertEquals(1, meterRegistry.get("export.validation.rejected").tag("fileType", "REDEMPTION").counter().count());
+    }
+
+    @Test
+    void testMoveFiles_CountsRecordsAndWritesManifest() throws IOException {
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder()
+                .statistics(new FileType.Statistics(1, 0, 2, ',', true))
+                .build();
+        Path file = Files.writeString(tmpFolder.resolve("outpay_001.csv"),
+                "id,created\n1,2026-10-19T08:00:00Z\n2,2026-10-19T09:00:00Z\n");
+
+        FileOperationResult result = fileSystemService.moveFiles(outpay, List.of(file));
+
+        assertEquals(List.of(new FileOperationResult.FileStatistics("outpay_001.csv", "outpay_001.csv", 2, 57,
+                "2026-10-19T08:00:00Z", "2026-10-19T09:00:00Z")), result.getStatistics());
+        List<Path> manifests;
+        try (Stream<Path> files = Files.list(exportFolder)) {
+            manifests = files.filter(path -> path.getFileName().toString().startsWith("manifest_outpay_")).toList();
+        }
+        assertEquals(1, manifests.size());
+        assertEquals(List.of("file,exported_file,records,bytes,first_timestamp,last_timestamp",
+                        "outpay_001.csv,outpay_001.csv,2,57,2026-10-19T08:00:00Z,2026-10-19T09:00:00Z"),
+                Files.readAllLines(manifests.getFirst()));
+    }
+
+    @Test
+    void testMoveFiles_SplitsLargeFilesIntoParts() throws IOException {
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder().split(new FileType.Split(10, 2, 1)).build();
+        Path large = Files.writeString(tmpFolder.resolve("outpay_001.csv"), "id\n1\n2\n3\n4\n");
+        Path small = Files.writeString(tmpFolder.resolve("outpay_002.csv"), "id\n1\n");
+
+        FileOperationResult result = fileSystemService.moveFiles(outpay, List.of(large, small));
+
+        assertEquals(2, result.getSuccessCount());
+        assertFalse(Files.exists(large));
+        assertFalse(Files.exists(exportFolder.resolve("outpay_001.csv")));
+        assertEquals("id\n1\n2\n", Files.readString(exportFolder.resolve("outpay_001_part001.csv")));
+        assertEquals("id\n3\n4\n", Files.readString(exportFolder.resolve("outpay_001_part002.csv")));
+        assertEquals(3, Files.readAllLines(exportFolder.resolve("outpay_001.csv" + FileSplitter.INDEX_SUFFIX)).size());
+        assertEquals("id\n1\n", Files.readString(exportFolder.resolve("outpay_002.csv")));
+    }
+
+    @Test
+    void testConstructor_RejectsSplitWithStages() {
+        FileType outpay = TestFileTypes.OUTPAY.toBuilder()
+                .stages(List.of("gzip"))
+                .split(new FileType.Split(1024, 2, 0))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .fileTypes(new FileTypeRegistry(List.of(outpay)))
+                .build());
+    }
 }
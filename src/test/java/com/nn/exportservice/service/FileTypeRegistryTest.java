@@ -0,0 +1,94 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.FileTypeProperties;
+import com.nn.exportservice.exception.UnknownFileTypeException;
+import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTypeRegistryTest {
+
+    @Test
+    void testFrom_LoadsTypesFromProperties() {
+        Map<String, FileTypeProperties.Definition> types = new LinkedHashMap<>();
+        types.put("outpay", new FileTypeProperties.Definition("outpay", "0 0 */6 * * *", null, 2, Duration.ofHours(6),
+                new FileTypeProperties.Adaptive(true, Duration.ofSeconds(5), Duration.ofMinutes(10)),
+                List.of("/export/payments", "/export/ledger"), List.of("gzip"),
+                new FileTypeProperties.Validation(true, StandardCharsets.UTF_8, "id,amount", ";", 2, true, "/export/rejected"),
+                new FileTypeProperties.Statistics(true, 1, 1, 2, ";", true),
+                new FileTypeProperties.Split(true, DataSize.ofMegabytes(512), 8, 1)));
+        types.put("redemption", new FileTypeProperties.Definition("redemption", "0 0 * * * *", "/export/redemption", 1,
+                Duration.ofHours(1), null, null, null, null, null, null));
+
+        FileTypeRegistry registry = FileTypeRegistry.from(new FileTypeProperties(types));
+
+        assertEquals(List.of("redemption", "outpay"), registry.getFileTypes().stream().map(FileType::id).toList());
+        FileType redemption = registry.get("redemption");
+        assertEquals("REDEMPTION", redemption.name());
+        assertEquals("/export/redemption", redemption.exportFolder());
+        assertEquals(Duration.ofHours(1), redemption.targetLatency());
+        assertFalse(redemption.isAdaptive());
+        assertFalse(redemption.isFanOut());
+        assertFalse(redemption.isProcessed());
+        assertEquals(List.of("gzip"), registry.get("outpay").stages());
+        assertFalse(redemption.isValidated());
+        assertEquals(new FileType.Validation(StandardCharsets.UTF_8, "id,amount", ';', 2, true, "/export/rejected"),
+                registry.get("outpay").validation());
+        assertFalse(redemption.isCounted());
+        assertEquals(new FileType.Statistics(1, 1, 2, ';', true), registry.get("outpay").statistics());
+        assertFalse(redemption.isSplit());
+        assertEquals(new FileType.Split(512L * 1024 * 1024, 8, 1), registry.get("outpay").split());
+        assertEquals(List.of("/export/payments", "/export/ledger"), registry.get("outpay").fanOutFolders());
+        assertEquals(new FileType.AdaptivePolling(Duration.ofSeconds(5), Duration.ofMinutes(10)),
+                registry.get("outpay").polling());
+    }
+
+    @Test
+    void testFind_IgnoresCaseAndSeparator() {
+        FileTypeRegistry registry = TestFileTypes.registry();
+
+        assertEquals(TestFileTypes.OWN_AND_BEN, registry.find("own-and-ben").orElseThrow());
+        assertEquals(TestFileTypes.OWN_AND_BEN, registry.find("OWN_AND_BEN").orElseThrow());
+        assertTrue(registry.find("unknown").isEmpty());
+        assertThrows(UnknownFileTypeException.class, () -> registry.get("unknown"));
+    }
+
+    @Test
+    void testClassify_PrefixesAndGlobs() {
+        FileTypeRegistry registry = new FileTypeRegistry(List.of(
+                TestFileTypes.REDEMPTION,
+                TestFileTypes.type("csv", "*.csv", 5, Duration.ofHours(1)).build()));
+
+        assertEquals(TestFileTypes.REDEMPTION, registry.classify("redemption_01.txt"));
+        assertEquals("csv", registry.classify("payments.csv").id());
+        assertNull(registry.classify("payments.txt"));
+    }
+
+    @Test
+    void testClassify_MostUrgentTypeWinsWhenPatternsOverlap() {
+        FileTypeRegistry registry = new FileTypeRegistry(List.of(
+                TestFileTypes.type("all", "*", 9, Duration.ofHours(24)).build(),
+                TestFileTypes.OUTPAY));
+
+        assertEquals(TestFileTypes.OUTPAY, registry.classify("outpay_01.txt"));
+        assertEquals("all", registry.classify("other_01.txt").id());
+    }
+
+    @Test
+    void testConstructor_RejectsInvalidTypes() {
+        assertThrows(IllegalArgumentException.class, () -> new FileTypeRegistry(List.of(
+                TestFileTypes.type("empty", " ", 1, Duration.ofHours(1)).build())));
+        assertThrows(IllegalArgumentException.class, () -> new FileTypeRegistry(List.of(
+                TestFileTypes.OWN_AND_BEN,
+                TestFileTypes.type("OWN_AND_BEN", "own", 1, Duration.ofHours(1)).build())));
+    }
+}
@@ -27,6 +27,9 @@ class ScheduledFileProcessorIT {
     @Autowired
     private ScheduledFileProcessor scheduledFileProcessor;
 
+    @Autowired
+    private FileTypeRegistry fileTypeRegistry;
+
     private Path tmpFolder;
     private Path exportFolder;
     private Path testResourcesFolder;
@@ -58,7 +61,7 @@ class ScheduledFileProcessorIT {
         copyTestFilesToTmp("redemption_01.txt", "redemption_02.txt");
 
         // Process files
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("redemption"));
 
         // Verify files moved to export folder
         assertTrue(Files.exists(exportFolder.resolve("redemption_01.txt")));
@@ -75,7 +78,7 @@ class ScheduledFileProcessorIT {
         copyTestFilesToTmp("outpay_01.txt", "outpay_02.txt", "outpay_03.txt");
 
         // Process files
-        scheduledFileProcessor.processOutpayFiles();
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("outpay"));
 
         // Verify files moved to export folder
         assertTrue(Files.exists(exportFolder.resolve("outpay_01.txt")));
@@ -94,7 +97,7 @@ class ScheduledFileProcessorIT {
         copyTestFilesToTmp("own_and_ben_01.txt", "own_and_ben_02.txt");
 
         // Process files
-        scheduledFileProcessor.processOwnAndBenFiles();
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("own-and-ben"));
 
         // Verify files moved to export folder
         assertTrue(Files.exists(exportFolder.resolve("own_and_ben_01.txt")));
@@ -111,7 +114,7 @@ class ScheduledFileProcessorIT {
         copyTestFilesToTmp("redemption_01.txt", "outpay_01.txt", "own_and_ben_01.txt");
 
         // Process only redemption files
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("redemption"));
 
         // Verify only redemption files moved
         assertTrue(Files.exists(exportFolder.resolve("redemption_01.txt")));
@@ -126,9 +129,9 @@ class ScheduledFileProcessorIT {
     @Test
     void testProcessWithNoFiles_KeepsDirectoriesEmpty() throws IOException {
         // Process with no files in tmp folder
-        scheduledFileProcessor.processRedemptionFiles();
-        scheduledFileProcessor.processOutpayFiles();
-        scheduledFileProcessor.processOwnAndBenFiles();
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("redemption"));
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("outpay"));
+        scheduledFileProcessor.processFilesByType(fileTypeRegistry.get("own-and-ben"));
 
         // Verify no files were created in export folder
         try (Stream<Path> files = Files.list(exportFolder)) {
@@ -1,21 +1,30 @@
 package com.nn.exportservice.service;
 
+import com.nn.exportservice.config.ExportLoggingProperties;
+import com.nn.exportservice.logging.ExportTracing;
 import com.nn.exportservice.model.FileOperationResult;
 import com.nn.exportservice.model.FileType;
+import com.nn.exportservice.model.TestFileTypes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.config.CronTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,7 +33,9 @@ class ScheduledFileProcessorTest {
     @Mock
     private FileSystemService fileSystemService;
 
-    @InjectMocks
+    @Mock
+    private ExportDispatcher exportDispatcher;
+
     private ScheduledFileProcessor scheduledFileProcessor;
 
     private FileOperationResult successResult;
@@ -33,6 +44,9 @@ class ScheduledFileProcessorTest {
 
     @BeforeEach
     void setUp() {
+        scheduledFileProcessor = processor(TestFileTypes.registry(), ExportLoggingProperties.defaults(),
+                new SimpleMeterRegistry());
+
         successResult = new FileOperationResult();
         successResult.addSuccess("file1.txt");
         successResult.addSuccess("file2.txt");
@@ -49,98 +63,171 @@ class ScheduledFileProcessorTest {
 
     @Test
     void testProcessRedemptionFiles_WithFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION))
                 .thenReturn(testFiles);
-        when(fileSystemService.moveFiles(testFiles))
+        when(exportDispatcher.dispatch(TestFileTypes.REDEMPTION, testFiles))
                 .thenReturn(successResult);
 
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.REDEMPTION);
+
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(exportDispatcher).dispatch(TestFileTypes.REDEMPTION, testFiles);
+    }
+
+    @Test
+    void testProcessRedemptionFiles_Pipelined() {
+        when(fileSystemService.isPipelined()).thenReturn(true);
+        when(fileSystemService.exportPipelined(TestFileTypes.REDEMPTION)).thenReturn(successResult);
+
+        scheduledFileProcessor.processFilesByType(TestFileTypes.REDEMPTION);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern());
-        verify(fileSystemService).moveFiles(testFiles);
+        verify(fileSystemService).exportPipelined(TestFileTypes.REDEMPTION);
+        verify(fileSystemService, never()).listFiles(any());
+        verify(exportDispatcher, never()).dispatch(any(), any());
     }
 
     @Test
     void testProcessRedemptionFiles_WithNoFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION))
                 .thenReturn(Collections.emptyList());
 
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.REDEMPTION);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern());
-        verify(fileSystemService, never()).moveFiles(any());
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(exportDispatcher, never()).dispatch(any(), any());
     }
 
     @Test
     void testProcessRedemptionFiles_WithErrors() {
-        when(fileSystemService.listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION))
                 .thenReturn(testFiles);
-        when(fileSystemService.moveFiles(testFiles))
+        when(exportDispatcher.dispatch(TestFileTypes.REDEMPTION, testFiles))
                 .thenReturn(resultWithErrors);
 
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.REDEMPTION);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern());
-        verify(fileSystemService).moveFiles(testFiles);
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(exportDispatcher).dispatch(TestFileTypes.REDEMPTION, testFiles);
     }
 
     @Test
     void testProcessRedemptionFiles_WithException() {
-        when(fileSystemService.listFilesByPrefix(anyString()))
+        when(fileSystemService.listFiles(any()))
                 .thenThrow(new RuntimeException("File system error"));
 
         // Should not throw exception, just log it
-        scheduledFileProcessor.processRedemptionFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.REDEMPTION);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.REDEMPTION.getPrefixPattern());
-        verify(fileSystemService, never()).moveFiles(any());
+        verify(fileSystemService).listFiles(TestFileTypes.REDEMPTION);
+        verify(exportDispatcher, never()).dispatch(any(), any());
     }
 
     @Test
     void testProcessOutpayFiles_WithFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.OUTPAY.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY))
                 .thenReturn(testFiles);
-        when(fileSystemService.moveFiles(testFiles))
+        when(exportDispatcher.dispatch(TestFileTypes.OUTPAY, testFiles))
                 .thenReturn(successResult);
 
-        scheduledFileProcessor.processOutpayFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.OUTPAY);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.OUTPAY.getPrefixPattern());
-        verify(fileSystemService).moveFiles(testFiles);
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
+        verify(exportDispatcher).dispatch(TestFileTypes.OUTPAY, testFiles);
     }
 
     @Test
     void testProcessOutpayFiles_WithNoFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.OUTPAY.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.OUTPAY))
                 .thenReturn(Collections.emptyList());
 
-        scheduledFileProcessor.processOutpayFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.OUTPAY);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.OUTPAY.getPrefixPattern());
-        verify(fileSystemService, never()).moveFiles(any());
+        verify(fileSystemService).listFiles(TestFileTypes.OUTPAY);
+        verify(exportDispatcher, never()).dispatch(any(), any());
     }
 
     @Test
     void testProcessOwnAndBenFiles_WithFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.OWN_AND_BEN.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN))
                 .thenReturn(testFiles);
-        when(fileSystemService.moveFiles(testFiles))
+        when(exportDispatcher.dispatch(TestFileTypes.OWN_AND_BEN, testFiles))
                 .thenReturn(successResult);
 
-        scheduledFileProcessor.processOwnAndBenFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.OWN_AND_BEN);
 
-        verify(fileSystemService).listFilesByPrefix(FileType.OWN_AND_BEN.getPrefixPattern());
-        verify(fileSystemService).moveFiles(testFiles);
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+        verify(exportDispatcher).dispatch(TestFileTypes.OWN_AND_BEN, testFiles);
     }
 
     @Test
     void testProcessOwnAndBenFiles_WithNoFiles() {
-        when(fileSystemService.listFilesByPrefix(FileType.OWN_AND_BEN.getPrefixPattern()))
+        when(fileSystemService.listFiles(TestFileTypes.OWN_AND_BEN))
                 .thenReturn(Collections.emptyList());
 
-        scheduledFileProcessor.processOwnAndBenFiles();
+        scheduledFileProcessor.processFilesByType(TestFileTypes.OWN_AND_BEN);
+
+        verify(fileSystemService).listFiles(TestFileTypes.OWN_AND_BEN);
+        verify(exportDispatcher, never()).dispatch(any(), any());
+    }
+
+    @Test
+    void testProcessRedemptionFiles_WithManyErrorsInSampledMode() {
+        ScheduledFileProcessor sampledProcessor = processor(TestFileTypes.registry(),
+                new ExportLoggingProperties(ExportLoggingProperties.Mode.SAMPLED, 1000, 100, 1), new SimpleMeterRegistry());
+        when(fileSystemService.listFiles(TestFileTypes.REDEMPTION))
+                .thenReturn(testFiles);
+        resultWithErrors.addError("file3.txt", "File locked");
+        when(exportDispatcher.dispatch(TestFileTypes.REDEMPTION, testFiles))
+                .thenReturn(resultWithErrors);
+
+        sampledProcessor.processFilesByType(TestFileTypes.REDEMPTION);
+
+        verify(exportDispatcher).dispatch(TestFileTypes.REDEMPTION, testFiles);
+    }
+
+    @Test
+    void testConfigureTasks_RegistersCronTaskPerScheduledFileType() {
+        FileTypeRegistry registry = new FileTypeRegistry(List.of(
+                TestFileTypes.REDEMPTION,
+                TestFileTypes.type("manual", "manual", 5, Duration.ofHours(1)).cron("-").build()));
+        ScheduledFileProcessor processor = processor(registry, ExportLoggingProperties.defaults(),
+                new SimpleMeterRegistry());
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+        processor.configureTasks(registrar);
+
+        List<CronTask> cronTasks = registrar.getCronTaskList();
+        assertEquals(1, cronTasks.size());
+        assertEquals(TestFileTypes.REDEMPTION.cron(), cronTasks.get(0).getExpression());
+    }
+
+    @Test
+    void testConfigureTasks_AdaptiveTypeGetsTriggerTaskAndIntervalGauge() {
+        FileType adaptive = TestFileTypes.type("adaptive", "adaptive", 5, Duration.ofHours(1))
+                .cron("0 0 * * * *")
+                .polling(new FileType.AdaptivePolling(Duration.ofSeconds(10), Duration.ofMinutes(5)))
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ScheduledFileProcessor processor = processor(new FileTypeRegistry(List.of(adaptive)),
+                ExportLoggingProperties.defaults(), meterRegistry);
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+        processor.configureTasks(registrar);
+
+        assertEquals(0, registrar.getCronTaskList().size());
+        assertEquals(1, registrar.getTriggerTaskList().size());
+        TimeGauge interval = meterRegistry.get("export.polling.interval").tag("fileType", "ADAPTIVE").timeGauge();
+        assertEquals(10, interval.value(TimeUnit.SECONDS));
+
+        when(fileSystemService.listFiles(adaptive)).thenReturn(Collections.emptyList());
+        processor.processFilesByType(adaptive);
+
+        assertEquals(20, interval.value(TimeUnit.SECONDS));
+    }
 
-        verify(fileSystemService).listFilesByPrefix(FileType.OWN_AND_BEN.getPrefixPattern());
-        verify(fileSystemService, never()).moveFiles(any());
+    private ScheduledFileProcessor processor(FileTypeRegistry registry, ExportLoggingProperties logging,
+                                             MeterRegistry meterRegistry) {
+        return new ScheduledFileProcessor(fileSystemService, exportDispatcher, registry, logging, meterRegistry,
+                ExportTracing.disabled());
     }
 }
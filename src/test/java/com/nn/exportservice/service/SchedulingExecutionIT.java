@@ -20,8 +20,8 @@ import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Integration test that verifies scheduled methods are actually triggered automatically
- * by Spring's @Scheduled annotation at the configured intervals.
+ * Integration test that verifies the cron tasks registered per file type are actually triggered
+ * automatically by Spring's scheduler at the configured intervals.
  */
 @SpringBootTest
 @ActiveProfiles("test")
@@ -0,0 +1,101 @@
+package com.nn.exportservice.service;
+
+import com.nn.exportservice.config.DeduplicationProperties;
+import com.nn.exportservice.logging.ExportTracing;
+import com.nn.exportservice.model.TestFileTypes;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the export I/O path against monitors that pin virtual threads while they block
+ */
+class VirtualThreadPinningTest {
+
+    private static final int WORKERS = 32;
+    private static final int FILES_PER_WORKER = 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExportPath_DoesNotPinVirtualThreads() throws Exception {
+        Path tmpFolder = Files.createDirectories(tempDir.resolve("tmp"));
+        Path exportFolder = tempDir.resolve("export");
+        DeduplicationService deduplicationService = new DeduplicationService(new DeduplicationProperties(
+                true, DeduplicationProperties.DuplicateAction.SKIP, null,
+                tempDir.resolve("state/fingerprints.bin").toString(), 4096, Duration.ofDays(1)),
+                FileStoreRegistry.defaultOnly());
+        FileSystemService fileSystemService = FileSystemServiceBuilder.folders(tmpFolder, exportFolder)
+                .deduplication(deduplicationService)
+                .build();
+        ExportDispatcher exportDispatcher = new ExportDispatcher(fileSystemService, ExportTracing.disabled());
+
+        Path recordingFile = tempDir.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int worker = 0; worker < WORKERS; worker++) {
+                    List<Path> files = createFiles(tmpFolder, worker);
+                    boolean useDispatcher = worker % 2 == 0;
+                    futures.add(executor.submit(() -> useDispatcher
+                            ? exportDispatcher.dispatch(TestFileTypes.REDEMPTION, files)
+                            : fileSystemService.moveFiles(files)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            recording.stop();
+            recording.dump(recordingFile);
+        } finally {
+            deduplicationService.close();
+        }
+
+        List<String> pinnedInExportPath = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if (event.getStackTrace() == null) {
+                continue;
+            }
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+                if (method.startsWith("com.nn.exportservice")) {
+                    pinnedInExportPath.add(method);
+                    break;
+                }
+            }
+        }
+        assertTrue(pinnedInExportPath.isEmpty(), "virtual threads pinned in " + pinnedInExportPath);
+        try (var exported = Files.list(exportFolder)) {
+            assertEquals(WORKERS * FILES_PER_WORKER, exported.count());
+        }
+    }
+
+    private static List<Path> createFiles(Path tmpFolder, int worker) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < FILES_PER_WORKER; i++) {
+            String name = "redemption_" + worker + "_" + i + ".txt";
+            files.add(Files.writeString(tmpFolder.resolve(name), name));
+        }
+        return files;
+    }
+}